@@ -0,0 +1,65 @@
+package Labyrinthe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare une requête sur la grille entière ({@link FireIndex}) et une requête guidée par
+ * l'abstraction hiérarchique ({@link ClusterIndex}), les deux index étant construits une fois.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClusterBenchmark {
+
+    @Param({"OPEN", "MAZE", "SINGLE_FIRE"})
+    public String shape;
+
+    @Param({"1000", "4000"})
+    public int size;
+
+    @Param({"16", "32", "64"})
+    public int clusterSize;
+
+    @Param({"42"})
+    public long seed;
+
+    private FireIndex fire;
+    private ClusterIndex clusters;
+    private int start;
+    private int[] exits;
+
+    @Setup
+    public void setUp() {
+        Grid grid = GridGenerator.generate(GridGenerator.Shape.valueOf(shape), size, size, seed);
+        fire = FireIndex.build(grid);
+        clusters = ClusterIndex.build(fire, clusterSize);
+        start = grid.indexOf('D');
+        exits = new int[]{grid.indexOf('S')};
+    }
+
+    @Benchmark
+    public List<Node> flat() {
+        return fire.findPath(start, exits);
+    }
+
+    @Benchmark
+    public List<Node> hierarchical() {
+        return clusters.findPath(start, exits, null);
+    }
+}
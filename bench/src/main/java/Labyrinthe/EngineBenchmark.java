@@ -0,0 +1,53 @@
+package Labyrinthe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure un appel complet à {@link LabyrinthEscape#canEscape(Grid, Engine)} pour chaque moteur.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EngineBenchmark {
+
+    @Param({"OPEN", "MAZE", "SERPENTINE", "MANY_FIRES", "SINGLE_FIRE", "UNREACHABLE"})
+    public String shape;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    @Param({"ASTAR", "LOCKSTEP", "BITSET", "JPS"})
+    public String engine;
+
+    @Param({"42"})
+    public long seed;
+
+    private Grid grid;
+    private Engine selected;
+
+    @Setup
+    public void setUp() {
+        grid = GridGenerator.generate(GridGenerator.Shape.valueOf(shape), size, size, seed);
+        selected = Engine.valueOf(engine);
+    }
+
+    @Benchmark
+    public boolean canEscape() {
+        return LabyrinthEscape.canEscape(grid, selected);
+    }
+}
@@ -0,0 +1,230 @@
+package Labyrinthe;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur reproductible de grilles de test (une même graine donne toujours la même grille).
+ * Sert aux bancs d'essai et aux mesures de performance.
+ */
+final class GridGenerator {
+
+    /**
+     * Formes de grilles représentatives.
+     */
+    enum Shape {
+        /** Terrain ouvert (5 % de murs), D et S sur la première ligne, un feu dans le coin opposé. */
+        OPEN,
+        /** Labyrinthe parfait (un seul chemin entre deux cases), un feu dans le coin bas gauche. */
+        MAZE,
+        /** Couloir en serpentin poursuivi par le feu : le pire cas, toute la grille est parcourue. */
+        SERPENTINE,
+        /** Terrain ouvert avec de nombreux feux dispersés. */
+        MANY_FIRES,
+        /** Terrain ouvert avec un seul feu au centre, D et S sur la première ligne. */
+        SINGLE_FIRE,
+        /** Terrain ouvert dont la sortie est emmurée : la réponse est toujours N. */
+        UNREACHABLE,
+        /** Terrain ouvert semé de béton (20 %) et de portes coupe-feu (2 %), un feu au centre. */
+        MATERIALS
+    }
+
+    private GridGenerator() {
+    }
+
+    /**
+     * Génère une grille.
+     *
+     * @param shape Forme de la grille.
+     * @param rows  Nombre de lignes (au moins 3).
+     * @param cols  Nombre de colonnes (au moins 3).
+     * @param seed  Graine du générateur.
+     * @return Grille générée.
+     */
+    static Grid generate(Shape shape, int rows, int cols, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Grid grid = new Grid(rows, cols);
+        switch (shape) {
+            case OPEN:
+                scatter(grid, random, 0.05, 0);
+                grid.cells[grid.index(rows - 1, 0)] = Grid.FIRE;
+                place(grid, 0, 0, Grid.START);
+                place(grid, 0, cols - 1, Grid.EXIT);
+                break;
+            case MAZE:
+                carveMaze(grid, random);
+                place(grid, 0, 0, Grid.START);
+                place(grid, (rows - 1) & ~1, (cols - 1) & ~1, Grid.EXIT);
+                grid.cells[grid.index((rows - 1) & ~1, 0)] = Grid.FIRE;
+                break;
+            case SERPENTINE:
+                serpentine(grid);
+                break;
+            case MANY_FIRES:
+                scatter(grid, random, 0.05, 0.0001);
+                place(grid, random.nextInt(rows), random.nextInt(cols), Grid.START);
+                place(grid, random.nextInt(rows), random.nextInt(cols), Grid.EXIT);
+                break;
+            case SINGLE_FIRE:
+                scatter(grid, random, 0.05, 0);
+                grid.cells[grid.index(rows / 2, cols / 2)] = Grid.FIRE;
+                place(grid, 0, 0, Grid.START);
+                place(grid, 0, cols - 1, Grid.EXIT);
+                break;
+            case MATERIALS:
+                scatter(grid, random, 0.05, 0);
+                materials(grid, random, 0.20, 0.02);
+                grid.cells[grid.index(rows / 2, cols / 2)] = Grid.FIRE;
+                place(grid, 0, 0, Grid.START);
+                place(grid, 0, cols - 1, Grid.EXIT);
+                break;
+            case UNREACHABLE:
+            default:
+                scatter(grid, random, 0.05, 0);
+                grid.cells[grid.index(rows - 1, cols - 1)] = Grid.FIRE;
+                place(grid, 0, 0, Grid.START);
+                int er = rows / 2;
+                int ec = cols / 2;
+                for (int r = er - 1; r <= er + 1; r++) {
+                    for (int c = ec - 1; c <= ec + 1; c++) {
+                        grid.cells[grid.index(r, c)] = Grid.WALL;
+                    }
+                }
+                grid.cells[grid.index(er, ec)] = Grid.EXIT;
+                break;
+        }
+        return grid;
+    }
+
+    /**
+     * Écrit une grille au format texte lu par {@link LabyrinthReader} ("N M" puis N lignes).
+     *
+     * @param grid Grille à écrire.
+     * @param out  Destination.
+     * @throws IOException si l'écriture échoue.
+     */
+    static void write(Grid grid, Appendable out) throws IOException {
+        out.append(Integer.toString(grid.rows)).append(' ').append(Integer.toString(grid.cols)).append('\n');
+        for (int r = 0; r < grid.rows; r++) {
+            for (int c = 0; c < grid.cols; c++) {
+                out.append(grid.charAt(r, c));
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Pose des murs et des feux au hasard.
+     */
+    private static void scatter(Grid grid, SplittableRandom random, double walls, double fires) {
+        for (int r = 0; r < grid.rows; r++) {
+            int base = grid.index(r, 0);
+            for (int c = 0; c < grid.cols; c++) {
+                double x = random.nextDouble();
+                if (x < walls) {
+                    grid.cells[base + c] = Grid.WALL;
+                } else if (x < walls + fires) {
+                    grid.cells[base + c] = Grid.FIRE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Remplace au hasard des cases vides par du béton et des portes coupe-feu.
+     */
+    private static void materials(Grid grid, SplittableRandom random, double concrete, double doors) {
+        for (int r = 0; r < grid.rows; r++) {
+            int base = grid.index(r, 0);
+            for (int c = 0; c < grid.cols; c++) {
+                if (grid.cells[base + c] != Grid.EMPTY) {
+                    continue;
+                }
+                double x = random.nextDouble();
+                if (x < concrete) {
+                    grid.cells[base + c] = Grid.CONCRETE;
+                } else if (x < concrete + doors) {
+                    grid.cells[base + c] = Grid.FIRE_DOOR;
+                }
+            }
+        }
+    }
+
+    /**
+     * Place un caractère sur une case (ouverte par la même occasion).
+     */
+    private static void place(Grid grid, int r, int c, byte value) {
+        grid.cells[grid.index(r, c)] = value;
+    }
+
+    /**
+     * Creuse un labyrinthe parfait par parcours en profondeur (pile explicite) :
+     * les cases de coordonnées paires sont les salles, les autres des murs à ouvrir.
+     */
+    private static void carveMaze(Grid grid, SplittableRandom random) {
+        int roomRows = (grid.rows + 1) / 2;
+        int roomCols = (grid.cols + 1) / 2;
+        for (int r = 0; r < grid.rows; r++) {
+            for (int c = 0; c < grid.cols; c++) {
+                grid.cells[grid.index(r, c)] = Grid.WALL;
+            }
+        }
+        boolean[] seen = new boolean[roomRows * roomCols];
+        int[] stack = new int[roomRows * roomCols];
+        int size = 0;
+        stack[size++] = 0;
+        seen[0] = true;
+        grid.cells[grid.index(0, 0)] = Grid.EMPTY;
+        int[] dr = {-1, 0, 1, 0};
+        int[] dc = {0, 1, 0, -1};
+        int[] order = new int[4];
+        while (size > 0) {
+            int room = stack[size - 1];
+            int r = room / roomCols;
+            int c = room % roomCols;
+            int count = 0;
+            for (int k = 0; k < 4; k++) {
+                int nr = r + dr[k];
+                int nc = c + dc[k];
+                if (nr >= 0 && nr < roomRows && nc >= 0 && nc < roomCols && !seen[nr * roomCols + nc]) {
+                    order[count++] = k;
+                }
+            }
+            if (count == 0) {
+                size--;
+                continue;
+            }
+            int k = order[random.nextInt(count)];
+            int nr = r + dr[k];
+            int nc = c + dc[k];
+            seen[nr * roomCols + nc] = true;
+            grid.cells[grid.index(2 * r + dr[k], 2 * c + dc[k])] = Grid.EMPTY;
+            grid.cells[grid.index(2 * nr, 2 * nc)] = Grid.EMPTY;
+            stack[size++] = nr * roomCols + nc;
+        }
+    }
+
+    /**
+     * Couloir unique qui serpente sur toute la grille : lignes paires ouvertes, lignes impaires
+     * murées sauf un passage alternativement à droite et à gauche. Le feu part juste derrière
+     * le prisonnier et le suit à un pas d'écart jusqu'à la sortie.
+     */
+    private static void serpentine(Grid grid) {
+        int lastCorridor = 0;
+        for (int r = 1; r < grid.rows; r += 2) {
+            int base = grid.index(r, 0);
+            for (int c = 0; c < grid.cols; c++) {
+                grid.cells[base + c] = Grid.WALL;
+            }
+            int gap = (r / 2) % 2 == 0 ? grid.cols - 1 : 0;
+            grid.cells[base + gap] = Grid.EMPTY;
+            if (r + 1 < grid.rows) {
+                lastCorridor = r + 1;
+            }
+        }
+        place(grid, 0, 0, Grid.FIRE);
+        place(grid, 0, 1, Grid.START);
+        int exitCol = (lastCorridor / 2) % 2 == 0 ? grid.cols - 1 : 0;
+        place(grid, lastCorridor, exitCol, Grid.EXIT);
+    }
+}
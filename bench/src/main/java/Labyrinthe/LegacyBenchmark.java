@@ -0,0 +1,56 @@
+package Labyrinthe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Référence : l'A* d'origine sur char[][] (nœuds alloués, ensemble fermé de String).
+ * Limité à 1000 x 1000, au-delà une seule itération dure plusieurs minutes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LegacyBenchmark {
+
+    @Param({"OPEN", "MAZE", "SERPENTINE", "MANY_FIRES", "SINGLE_FIRE", "UNREACHABLE"})
+    public String shape;
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"42"})
+    public long seed;
+
+    private char[][] grid;
+    private int[] start;
+    private int[] exit;
+    private int[][] fireTime;
+
+    @Setup
+    public void setUp() {
+        grid = GridGenerator.generate(GridGenerator.Shape.valueOf(shape), size, size, seed).toCharArray();
+        start = LabyrinthEscape.findPosition(grid, 'D');
+        exit = LabyrinthEscape.findPosition(grid, 'S');
+        fireTime = LabyrinthEscape.computeFireTime(grid);
+    }
+
+    @Benchmark
+    public List<Node> aStarWithFire() {
+        return LabyrinthEscape.aStarWithFire(grid, start, exit, fireTime);
+    }
+}
@@ -0,0 +1,109 @@
+package Labyrinthe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Scanner;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure la lecture du format texte : {@link LabyrinthReader} contre la lecture d'origine
+ * par {@link Scanner} et {@code substring().toCharArray()}, et le chargement du même lot
+ * converti au format binaire ({@link BinaryLabyrinthFile}).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ParseBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    @Param({"100"})
+    public int count;
+
+    @Param({"42"})
+    public long seed;
+
+    private byte[] input;
+    private Path binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        StringBuilder text = new StringBuilder().append(count).append('\n');
+        for (int t = 0; t < count; t++) {
+            GridGenerator.write(GridGenerator.generate(GridGenerator.Shape.MANY_FIRES, size, size, seed + t), text);
+        }
+        input = text.toString().getBytes(StandardCharsets.US_ASCII);
+        binary = Files.createTempFile("parse-bench-", ".bin");
+        try (LabyrinthReader reader = LabyrinthReader.of(new ByteArrayInputStream(input))) {
+            BinaryLabyrinthFile.convert(reader, binary);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(binary);
+    }
+
+    @Benchmark
+    public long reader() throws IOException {
+        long cells = 0;
+        try (LabyrinthReader reader = LabyrinthReader.of(new ByteArrayInputStream(input))) {
+            int T = reader.readInt();
+            for (int t = 0; t < T; t++) {
+                Grid grid = reader.readGrid();
+                cells += grid.cells.length;
+            }
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public long binary() throws IOException {
+        long cells = 0;
+        try (BinaryLabyrinthFile file = BinaryLabyrinthFile.open(binary)) {
+            for (int t = 0; t < file.count(); t++) {
+                cells += file.grid(t).cells.length;
+            }
+        }
+        return cells;
+    }
+
+    @Benchmark
+    public long scanner() {
+        long cells = 0;
+        try (Scanner scanner = new Scanner(new ByteArrayInputStream(input))) {
+            int T = scanner.nextInt();
+            for (int t = 0; t < T; t++) {
+                int N = scanner.nextInt();
+                int M = scanner.nextInt();
+                scanner.nextLine();
+                char[][] grid = new char[N][M];
+                for (int i = 0; i < N; i++) {
+                    grid[i] = scanner.nextLine().substring(0, M).toCharArray();
+                }
+                cells += (long) N * M;
+            }
+        }
+        return cells;
+    }
+}
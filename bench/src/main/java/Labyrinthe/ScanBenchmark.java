@@ -0,0 +1,73 @@
+package Labyrinthe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare le prétraitement d'une grille ({@link GridScan}) avec l'API Vector et en scalaire,
+ * ainsi que les balayages séparés qu'il remplace.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ScanBenchmark {
+
+    @Param({"MAZE", "MANY_FIRES", "MATERIALS"})
+    public String shape;
+
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"vector", "scalar"})
+    public String scanner;
+
+    @Param({"42"})
+    public long seed;
+
+    private Grid grid;
+    private GridScan.RowScanner rows;
+
+    @Setup
+    public void setUp() {
+        grid = GridGenerator.generate(GridGenerator.Shape.valueOf(shape), size, size, seed);
+        rows = scanner.equals("vector") ? new VectorRowScanner() : new GridScan.ScalarRowScanner();
+    }
+
+    @Benchmark
+    public GridScan fused() {
+        GridScan.Builder builder = new GridScan.Builder(grid.rows, grid.cols);
+        for (int r = 0; r < grid.rows; r++) {
+            rows.scan(grid.cells, grid.index(r, 0), grid.cols, r * builder.words, builder);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public int separate() {
+        // Les balayages d'avant GridScan : D, S, matériaux et sources de feu
+        int found = grid.indexOf('D') + grid.indexOf('S') + (grid.isWeighted() ? 1 : 0);
+        for (int r = 0; r < grid.rows; r++) {
+            int base = grid.index(r, 0);
+            for (int idx = base; idx < base + grid.cols; idx++) {
+                if (grid.cells[idx] == Grid.FIRE) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+}
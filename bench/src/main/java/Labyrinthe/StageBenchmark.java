@@ -0,0 +1,62 @@
+package Labyrinthe;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure séparément chaque étape du moteur A* : propagation du feu puis recherche du chemin.
+ * Le mode SampleTime donne les percentiles de latence ; lancer avec {@code -prof gc}
+ * pour le taux d'allocation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StageBenchmark {
+
+    @Param({"OPEN", "MAZE", "SERPENTINE", "MANY_FIRES", "SINGLE_FIRE", "UNREACHABLE", "MATERIALS"})
+    public String shape;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    @Param({"42"})
+    public long seed;
+
+    private Grid grid;
+    private int start;
+    private int exit;
+    private int[] fireTime;
+
+    @Setup
+    public void setUp() {
+        grid = GridGenerator.generate(GridGenerator.Shape.valueOf(shape), size, size, seed);
+        start = grid.indexOf('D');
+        exit = grid.indexOf('S');
+        fireTime = LabyrinthEscape.computeFireTime(grid);
+    }
+
+    @Benchmark
+    public int[] computeFireTime() {
+        return LabyrinthEscape.computeFireTime(grid);
+    }
+
+    @Benchmark
+    public List<Node> aStarWithFire() {
+        return PrimitiveAStar.aStarWithFire(grid, start, exit, fireTime);
+    }
+}
@@ -0,0 +1,571 @@
+package Labyrinthe;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Résout des répertoires entiers de fichiers de labyrinthes en trois étages qui se
+ * recouvrent : lecture, résolution et écriture.
+ *
+ * Chaque étage a ses propres threads. Deux files bornées les relient : les grilles lues
+ * attendent un solveur, les réponses attendent un écrivain. Un étage trop rapide se bloque
+ * quand sa file est pleine, et la mémoire reste bornée par la capacité des files (plus les
+ * grilles en cours de traitement). Les lectures et écritures de fichiers se font donc pendant
+ * que les solveurs calculent.
+ *
+ * Chaque fichier d'entrée donne un fichier de résultats (une ligne Y, N ou TIMEOUT par
+ * labyrinthe, voir {@link Verdict}). L'écrivain qui reçoit la dernière réponse d'un fichier
+ * l'écrit d'un coup, sous un nom temporaire renommé ensuite. Un fichier de résultats présent
+ * est donc toujours complet. Une relance après un arrêt brutal saute les entrées déjà
+ * traitées et reprend les autres. Un fichier mal formé n'a pas de résultats : il est signalé
+ * dans le bilan et sera retenté à la relance suivante.
+ */
+final class BatchPipeline {
+
+    /** Suffixe des fichiers de résultats. */
+    static final String RESULTS_SUFFIX = ".results";
+
+    /** Suffixe d'un fichier de résultats en cours d'écriture. */
+    static final String TEMP_SUFFIX = ".tmp";
+
+    /** Nom du bilan écrit dans le répertoire de sortie. */
+    static final String SUMMARY_FILE = "batch-summary.txt";
+
+    /** Marqueur de fin d'un étage. */
+    private static final Task NO_MORE_TASKS = new Task(null, -1, null);
+    private static final Result NO_MORE_RESULTS = new Result(null, -1, null);
+
+    private final Engine engine;
+    private final SolveBudget.Limits limits;
+    private final ResultCache cache;
+    private final StatsSummary stats;
+    private final int parsers;
+    private final int solvers;
+    private final int writers;
+    private final int capacity;
+    private final Path outDir;
+
+    /**
+     * @param engine   Moteur de résolution.
+     * @param limits   Limites de chaque résolution.
+     * @param cache    Cache des résultats partagé par les solveurs, ou null.
+     * @param stats    Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @param parsers  Threads de lecture.
+     * @param solvers  Threads de résolution.
+     * @param writers  Threads d'écriture.
+     * @param capacity Capacité de chacune des deux files (0 = 4 x solveurs).
+     * @param outDir   Répertoire des résultats, ou null pour écrire à côté de chaque entrée.
+     */
+    BatchPipeline(Engine engine, SolveBudget.Limits limits, ResultCache cache, StatsSummary stats, int parsers,
+                  int solvers, int writers, int capacity, Path outDir) {
+        this.engine = engine;
+        this.limits = limits;
+        this.cache = cache;
+        this.stats = stats;
+        this.parsers = parsers;
+        this.solvers = solvers;
+        this.writers = writers;
+        this.capacity = capacity > 0 ? capacity : 4 * solvers;
+        this.outDir = outDir;
+    }
+
+    /**
+     * Résout toutes les entrées désignées, sauf celles dont les résultats existent déjà.
+     *
+     * @param inputs Fichiers, répertoires (parcourus récursivement) ou motifs glob
+     *               ({@code lots/**.txt}).
+     * @return Bilan du lot.
+     * @throws IOException si une entrée ne peut pas être parcourue, ou si deux entrées
+     *                     donneraient le même fichier de résultats.
+     * @throws InterruptedException si le thread appelant est interrompu.
+     */
+    Report run(List<String> inputs) throws IOException, InterruptedException {
+        long begin = System.nanoTime();
+        Report report = new Report();
+        ConcurrentLinkedQueue<FileJob> jobs = new ConcurrentLinkedQueue<>();
+        // Deux entrées sur un même fichier de résultats : l'une écraserait l'autre, et la
+        // relance suivante sauterait celle qui a été perdue
+        Map<Path, Path> claimed = new HashMap<>();
+        for (Source source : discover(inputs)) {
+            report.files++;
+            Path output = outputOf(source);
+            Path other = claimed.putIfAbsent(output.toAbsolutePath().normalize(), source.path);
+            if (other != null) {
+                throw new IOException("Les entrées " + other + " et " + source.path
+                        + " donneraient le même fichier de résultats : " + output);
+            }
+            if (Files.exists(output)) {
+                report.skipped++;
+            } else {
+                jobs.add(new FileJob(source.path, output));
+            }
+        }
+
+        BlockingQueue<Task> tasks = new ArrayBlockingQueue<>(capacity);
+        BlockingQueue<Result> results = new ArrayBlockingQueue<>(capacity);
+        List<Thread> parseThreads = start("batch-parse-", parsers, () -> parse(jobs, tasks, results, report));
+        List<Thread> solveThreads = start("batch-solve-", solvers, () -> solve(tasks, results, report));
+        List<Thread> writeThreads = start("batch-write-", writers, () -> write(results, report));
+
+        // Chaque étage s'arrête quand le précédent a fini : un marqueur de fin par thread
+        join(parseThreads);
+        for (int i = 0; i < solvers; i++) {
+            tasks.put(NO_MORE_TASKS);
+        }
+        join(solveThreads);
+        for (int i = 0; i < writers; i++) {
+            results.put(NO_MORE_RESULTS);
+        }
+        join(writeThreads);
+
+        report.nanos = System.nanoTime() - begin;
+        if (outDir != null) {
+            Files.createDirectories(outDir);
+            Files.write(outDir.resolve(SUMMARY_FILE), report.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return report;
+    }
+
+    /**
+     * Étage de lecture : prend les fichiers un à un et envoie leurs grilles aux solveurs.
+     */
+    private void parse(ConcurrentLinkedQueue<FileJob> jobs, BlockingQueue<Task> tasks,
+                       BlockingQueue<Result> results, Report report) {
+        try {
+            FileJob job;
+            while ((job = jobs.poll()) != null) {
+                long begin = System.nanoTime();
+                long busy = 0;
+                try {
+                    if (BinaryLabyrinthFile.isBinary(job.input)) {
+                        try (BinaryLabyrinthFile file = BinaryLabyrinthFile.open(job.input)) {
+                            int T = file.count();
+                            for (int t = 0; t < T; t++) {
+                                busy += submit(job, t, file.grid(t), tasks);
+                            }
+                        }
+                    } else {
+                        try (LabyrinthReader reader = LabyrinthReader.open(job.input)) {
+                            int T = reader.readInt(); // Nombre de labyrinthes
+                            for (int t = 0; t < T; t++) {
+                                busy += submit(job, t, reader.readGrid(), tasks);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    throw e;
+                } catch (Throwable e) {
+                    // Même une erreur (mémoire épuisée...) fait échouer le fichier, pas le lecteur :
+                    // sans la fin de lecture envoyée plus bas, le fichier ne serait jamais terminé
+                    job.fail(e.getMessage() == null ? e.toString() : e.getMessage());
+                }
+                report.parseNanos.addAndGet(System.nanoTime() - begin - busy);
+                // La lecture compte comme une réponse : le fichier n'est complet qu'après elle
+                results.put(new Result(job, -1, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Envoie une grille aux solveurs.
+     *
+     * @return Temps passé à attendre une place dans la file, en nanosecondes.
+     */
+    private static long submit(FileJob job, int index, Grid grid, BlockingQueue<Task> tasks)
+            throws InterruptedException {
+        job.expect(index);
+        job.pending.incrementAndGet();
+        job.cells += (long) grid.rows * grid.cols;
+        long begin = System.nanoTime();
+        tasks.put(new Task(job, index, grid));
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Étage de résolution.
+     */
+    private void solve(BlockingQueue<Task> tasks, BlockingQueue<Result> results, Report report) {
+        try {
+            while (true) {
+                Task task = tasks.take();
+                if (task == NO_MORE_TASKS) {
+                    return;
+                }
+                long begin = System.nanoTime();
+                Verdict verdict = null;
+                try {
+                    verdict = LabyrinthEscape.solveOne(task.grid, engine, limits, task.index + 1, stats, cache);
+                } catch (Throwable e) {
+                    task.job.fail("labyrinthe " + (task.index + 1) + " : " + e);
+                }
+                report.solveNanos.addAndGet(System.nanoTime() - begin);
+                results.put(new Result(task.job, task.index, verdict));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Étage d'écriture : range chaque réponse, et écrit un fichier dès sa dernière réponse.
+     */
+    private void write(BlockingQueue<Result> results, Report report) {
+        try {
+            while (true) {
+                Result result = results.take();
+                if (result == NO_MORE_RESULTS) {
+                    return;
+                }
+                FileJob job = result.job;
+                if (result.index >= 0) {
+                    job.record(result.index, result.verdict);
+                }
+                if (job.pending.decrementAndGet() == 0) {
+                    long begin = System.nanoTime();
+                    finish(job, report);
+                    report.writeNanos.addAndGet(System.nanoTime() - begin);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Écrit les résultats d'un fichier terminé, ou le compte en échec.
+     */
+    private static void finish(FileJob job, Report report) {
+        String error = job.error;
+        if (error == null) {
+            try {
+                writeResults(job);
+            } catch (IOException e) {
+                error = "écriture de " + job.output + " : " + e.getMessage();
+            }
+        }
+        if (error != null) {
+            report.failed(job.input, error);
+            return;
+        }
+        report.done(job);
+    }
+
+    /**
+     * Écrit les réponses sous un nom temporaire, puis le renomme : un fichier de résultats
+     * visible est toujours complet.
+     */
+    private static void writeResults(FileJob job) throws IOException {
+        Path parent = job.output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = job.output.resolveSibling(job.output.getFileName() + TEMP_SUFFIX);
+        try (Writer out = new BufferedWriter(Files.newBufferedWriter(temp, StandardCharsets.US_ASCII), 1 << 16)) {
+            for (Verdict verdict : job.verdicts()) {
+                out.write(verdict.line);
+                out.write('\n');
+            }
+        }
+        try {
+            Files.move(temp, job.output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, job.output, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return Fichier de résultats d'une entrée.
+     */
+    private Path outputOf(Source source) {
+        return outDir == null
+                ? source.path.resolveSibling(source.path.getFileName() + RESULTS_SUFFIX)
+                : outDir.resolve(source.relative + RESULTS_SUFFIX);
+    }
+
+    /**
+     * Liste les fichiers d'entrée, sans doublon, dans l'ordre des arguments puis des noms.
+     * Les fichiers de résultats, temporaires et bilans sont ignorés.
+     *
+     * @param inputs Fichiers, répertoires ou motifs glob.
+     * @return Fichiers à traiter.
+     * @throws IOException si une entrée est introuvable ou ne peut pas être parcourue.
+     */
+    static List<Source> discover(List<String> inputs) throws IOException {
+        Map<Path, Source> sources = new LinkedHashMap<>();
+        for (String input : inputs) {
+            int glob = firstGlobChar(input);
+            if (glob >= 0) {
+                // Parcourt le plus long préfixe sans motif, et garde ce qui correspond au motif
+                int slash = input.lastIndexOf('/', glob);
+                Path root = Paths.get(slash < 0 ? "." : slash == 0 ? "/" : input.substring(0, slash));
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+                for (Path path : walk(root)) {
+                    Path candidate = slash < 0 ? root.relativize(path) : path;
+                    if (matcher.matches(candidate)) {
+                        add(sources, path, mirror(path));
+                    }
+                }
+            } else {
+                Path path = Paths.get(input);
+                if (Files.isDirectory(path)) {
+                    for (Path file : walk(path)) {
+                        add(sources, file, mirror(file));
+                    }
+                } else if (Files.isRegularFile(path)) {
+                    add(sources, path, mirror(path));
+                } else {
+                    throw new IOException("Entrée introuvable : " + input);
+                }
+            }
+        }
+        return new ArrayList<>(sources.values());
+    }
+
+    /**
+     * @return Fichiers ordinaires sous root, triés.
+     */
+    private static List<Path> walk(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Chemin d'un fichier tel que désigné par les arguments, sans racine ni {@code ..} de tête :
+     * {@code a/x.txt} et {@code b/x.txt} restent distincts sous le répertoire de sortie.
+     */
+    static Path mirror(Path path) {
+        Path normal = path.normalize();
+        Path root = normal.getRoot();
+        if (root != null) {
+            normal = root.relativize(normal);
+        }
+        int first = 0;
+        while (first < normal.getNameCount() - 1 && normal.getName(first).toString().equals("..")) {
+            first++;
+        }
+        return normal.subpath(first, normal.getNameCount());
+    }
+
+    private static void add(Map<Path, Source> sources, Path path, Path relative) {
+        String name = path.getFileName().toString();
+        if (name.endsWith(RESULTS_SUFFIX) || name.endsWith(TEMP_SUFFIX) || name.equals(SUMMARY_FILE)) {
+            return;
+        }
+        sources.putIfAbsent(path.toAbsolutePath().normalize(), new Source(path, relative));
+    }
+
+    private static int firstGlobChar(String input) {
+        for (int i = 0; i < input.length(); i++) {
+            switch (input.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case '{':
+                    return i;
+                default:
+                    break;
+            }
+        }
+        return -1;
+    }
+
+    private static List<Thread> start(String name, int count, Runnable stage) {
+        List<Thread> threads = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Thread thread = new Thread(stage, name + i);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Fichier d'entrée et son chemin tel que désigné par les arguments (nom du fichier de
+     * résultats sous le répertoire de sortie, voir {@link #mirror}).
+     */
+    static final class Source {
+        final Path path;
+        final Path relative;
+
+        Source(Path path, Path relative) {
+            this.path = path;
+            this.relative = relative;
+        }
+    }
+
+    /**
+     * Fichier en cours de traitement.
+     *
+     * {@link #pending} compte les réponses attendues, plus une pour la lecture elle-même : le
+     * fichier est terminé quand il retombe à 0, quel que soit l'ordre d'arrivée. La table des
+     * réponses grandit avec les grilles lues, pas selon le nombre annoncé par l'en-tête (qui
+     * n'est pas fiable) ; le lecteur l'agrandit et les écrivains la remplissent sous le
+     * moniteur du fichier.
+     */
+    private static final class FileJob {
+        final Path input;
+        final Path output;
+        final AtomicInteger pending = new AtomicInteger(1);
+        /** Réponses, une par grille envoyée aux solveurs. */
+        private Verdict[] verdicts = new Verdict[16];
+        /** Grilles envoyées aux solveurs. */
+        private int count;
+        /** Cases lues (écrit par le lecteur seulement). */
+        long cells;
+        /** Première erreur, ou null. */
+        volatile String error;
+
+        FileJob(Path input, Path output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        synchronized void fail(String message) {
+            if (error == null) {
+                error = message;
+            }
+        }
+
+        /** Réserve la réponse de la grille {@code index}, avant son envoi aux solveurs. */
+        synchronized void expect(int index) {
+            if (index >= verdicts.length) {
+                verdicts = Arrays.copyOf(verdicts, Math.max(index + 1, verdicts.length << 1));
+            }
+            count = index + 1;
+        }
+
+        synchronized void record(int index, Verdict verdict) {
+            verdicts[index] = verdict;
+        }
+
+        /** @return Réponses des grilles lues, dans l'ordre du fichier. */
+        synchronized Verdict[] verdicts() {
+            return Arrays.copyOf(verdicts, count);
+        }
+    }
+
+    /** Grille lue, en attente d'un solveur. */
+    private static final class Task {
+        final FileJob job;
+        final int index;
+        final Grid grid;
+
+        Task(FileJob job, int index, Grid grid) {
+            this.job = job;
+            this.index = index;
+            this.grid = grid;
+        }
+    }
+
+    /** Réponse, ou fin de lecture d'un fichier (index -1), en attente d'un écrivain. */
+    private static final class Result {
+        final FileJob job;
+        final int index;
+        final Verdict verdict;
+
+        Result(FileJob job, int index, Verdict verdict) {
+            this.job = job;
+            this.index = index;
+            this.verdict = verdict;
+        }
+    }
+
+    /**
+     * Bilan d'un lot : fichiers, réponses, et temps passé dans chaque étage (hors attente des
+     * files), qui montre l'étage limitant.
+     */
+    static final class Report {
+        /** Fichiers d'entrée trouvés. */
+        int files;
+        /** Fichiers sautés, leurs résultats existant déjà. */
+        int skipped;
+        /** Fichiers résolus et écrits pendant ce lot. */
+        int written;
+        /** Labyrinthes résolus. */
+        long grids;
+        /** Cases lues. */
+        long cells;
+        /** Réponses par catégorie. */
+        long escaped, trapped, timeouts;
+        /** Fichiers en échec et leur erreur. */
+        final Map<Path, String> failures = new LinkedHashMap<>();
+        /** Durée totale, en nanosecondes. */
+        long nanos;
+        final AtomicLong parseNanos = new AtomicLong();
+        final AtomicLong solveNanos = new AtomicLong();
+        final AtomicLong writeNanos = new AtomicLong();
+
+        synchronized void done(FileJob job) {
+            Verdict[] verdicts = job.verdicts();
+            written++;
+            grids += verdicts.length;
+            cells += job.cells;
+            for (Verdict verdict : verdicts) {
+                switch (verdict) {
+                    case ESCAPE:
+                        escaped++;
+                        break;
+                    case TRAPPED:
+                        trapped++;
+                        break;
+                    default:
+                        timeouts++;
+                        break;
+                }
+            }
+        }
+
+        synchronized void failed(Path input, String error) {
+            failures.put(input, error);
+        }
+
+        @Override
+        public synchronized String toString() {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("%d fichiers : %d écrits, %d déjà faits, %d en échec%n",
+                    files, written, skipped, failures.size()));
+            sb.append(String.format("%d labyrinthes (Y %d, N %d, TIMEOUT %d), %d cases en %.3f s : "
+                            + "%.1f labyrinthes/s, %.3e cases/s%n",
+                    grids, escaped, trapped, timeouts, cells, seconds, grids / seconds, cells / seconds));
+            sb.append(String.format("temps des étages : lecture %.3f s, résolution %.3f s, écriture %.3f s%n",
+                    parseNanos.get() / 1e9, solveNanos.get() / 1e9, writeNanos.get() / 1e9));
+            for (Map.Entry<Path, String> failure : failures.entrySet()) {
+                sb.append("échec ").append(failure.getKey()).append(" : ").append(failure.getValue())
+                        .append(System.lineSeparator());
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package Labyrinthe;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Résout les labyrinthes d'un fichier en parallèle tout en écrivant les résultats
+ * dans l'ordre de lecture.
+ *
+ * Le thread appelant lit les grilles et les soumet au pool. Au plus {@code window}
+ * labyrinthes sont en vol : quand la fenêtre est pleine, le lecteur attend le plus ancien
+ * résultat et l'écrit avant de lire la grille suivante.
+ */
+final class BatchSolver implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final int window;
+    private final Engine engine;
+    private final SolveBudget.Limits limits;
+    private final ResultCache cache;
+
+    /**
+     * @param threads        Nombre de threads du pool fork-join (ignoré avec les threads virtuels).
+     * @param virtualThreads Vrai pour utiliser un thread virtuel par labyrinthe.
+     * @param window         Nombre maximal de labyrinthes en vol (0 = 4 x threads).
+     * @param engine         Moteur de résolution.
+     */
+    BatchSolver(int threads, boolean virtualThreads, int window, Engine engine) {
+        this(threads, virtualThreads, window, engine, null);
+    }
+
+    /**
+     * @param threads        Nombre de threads du pool fork-join (ignoré avec les threads virtuels).
+     * @param virtualThreads Vrai pour utiliser un thread virtuel par labyrinthe.
+     * @param window         Nombre maximal de labyrinthes en vol (0 = 4 x threads).
+     * @param engine         Moteur de résolution.
+     * @param cache          Cache des résultats partagé par les tâches, ou null.
+     */
+    BatchSolver(int threads, boolean virtualThreads, int window, Engine engine, ResultCache cache) {
+        this(threads, virtualThreads, window, engine, SolveBudget.Limits.NONE, cache);
+    }
+
+    /**
+     * @param threads        Nombre de threads du pool fork-join (ignoré avec les threads virtuels).
+     * @param virtualThreads Vrai pour utiliser un thread virtuel par labyrinthe.
+     * @param window         Nombre maximal de labyrinthes en vol (0 = 4 x threads).
+     * @param engine         Moteur de résolution.
+     * @param limits         Limites de chaque résolution (le budget démarre quand la tâche
+     *                       commence, pas quand elle est soumise).
+     * @param cache          Cache des résultats partagé par les tâches, ou null.
+     */
+    BatchSolver(int threads, boolean virtualThreads, int window, Engine engine, SolveBudget.Limits limits,
+                ResultCache cache) {
+        this.executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : new ForkJoinPool(threads);
+        this.window = window > 0 ? window : 4 * Math.max(threads, 1);
+        this.engine = engine;
+        this.limits = limits;
+        this.cache = cache;
+    }
+
+    /**
+     * Lit T labyrinthes et écrit "Y" ou "N" (ou "TIMEOUT", voir {@link SolveBudget}) pour
+     * chacun, dans l'ordre de lecture.
+     *
+     * @param reader Lecteur de labyrinthes.
+     * @param out    Destination des résultats.
+     * @return Bilan de débit du lot.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
+     */
+    Report solveAll(LabyrinthReader reader, Writer out) throws IOException {
+        return solveAll(reader, out, null);
+    }
+
+    /**
+     * Lit T labyrinthes et écrit "Y" ou "N" pour chacun, en mesurant chaque résolution.
+     *
+     * @param reader  Lecteur de labyrinthes.
+     * @param out     Destination des résultats.
+     * @param summary Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @return Bilan de débit du lot.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
+     */
+    Report solveAll(LabyrinthReader reader, Writer out, StatsSummary summary) throws IOException {
+        long begin = System.nanoTime();
+        ArrayDeque<Future<Verdict>> inFlight = new ArrayDeque<>(window);
+        long cells = 0;
+
+        int T = reader.readInt(); // Nombre de labyrinthes
+        for (int t = 0; t < T; t++) {
+            if (inFlight.size() >= window) {
+                write(inFlight.poll(), out);
+            }
+            Grid grid = reader.readGrid();
+            cells += (long) grid.rows * grid.cols;
+            int index = t + 1;
+            inFlight.add(executor.submit(() -> LabyrinthEscape.solveOne(grid, engine, limits, index, summary,
+                    cache)));
+        }
+        while (!inFlight.isEmpty()) {
+            write(inFlight.poll(), out);
+        }
+        return new Report(T, cells, System.nanoTime() - begin);
+    }
+
+    /**
+     * Résout les labyrinthes d'un fichier binaire. Grâce à l'index du fichier, chaque tâche
+     * décode elle-même sa grille : le thread appelant ne fait que soumettre et écrire.
+     *
+     * @param file    Fichier binaire ouvert.
+     * @param out     Destination des résultats.
+     * @param summary Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @return Bilan de débit du lot.
+     * @throws IOException si un labyrinthe est illisible ou si l'écriture échoue.
+     */
+    Report solveAll(BinaryLabyrinthFile file, Writer out, StatsSummary summary) throws IOException {
+        long begin = System.nanoTime();
+        ArrayDeque<Future<Verdict>> inFlight = new ArrayDeque<>(window);
+        long cells = 0;
+
+        int T = file.count();
+        for (int t = 0; t < T; t++) {
+            if (inFlight.size() >= window) {
+                write(inFlight.poll(), out);
+            }
+            cells += file.cells(t);
+            int i = t;
+            inFlight.add(executor.submit(() -> LabyrinthEscape.solveOne(file.grid(i), engine, limits, i + 1,
+                    summary, cache)));
+        }
+        while (!inFlight.isEmpty()) {
+            write(inFlight.poll(), out);
+        }
+        return new Report(T, cells, System.nanoTime() - begin);
+    }
+
+    /**
+     * Attend un résultat et l'écrit.
+     */
+    private static void write(Future<Verdict> result, Writer out) throws IOException {
+        try {
+            out.write(result.get().line);
+            out.write('\n');
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Résolution interrompue.", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Erreur de résolution : " + e.getCause(), e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Bilan de débit d'un lot.
+     */
+    static final class Report {
+        /** Nombre de labyrinthes résolus. */
+        final int grids;
+
+        /** Nombre total de cases. */
+        final long cells;
+
+        /** Durée totale (lecture, résolution et écriture), en nanosecondes. */
+        final long nanos;
+
+        Report(int grids, long cells, long nanos) {
+            this.grids = grids;
+            this.cells = cells;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = Math.max(nanos, 1) / 1e9;
+            return String.format("%d labyrinthes, %d cases en %.3f s : %.1f labyrinthes/s, %.3e cases/s",
+                    grids, cells, seconds, grids / seconds, cells / seconds);
+        }
+    }
+}
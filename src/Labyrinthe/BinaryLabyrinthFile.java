@@ -0,0 +1,433 @@
+package Labyrinthe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Format binaire compact des labyrinthes, lu par projection en mémoire et sans analyse de texte.
+ *
+ * Disposition du fichier (petit-boutiste) :
+ * <pre>
+ * en-tête    "LABB" | version (u16) | bits par case (u8, = 2) | réservé (u8) | T (i32)
+ * index      T positions (i64) : début de chaque labyrinthe dans le fichier
+ * labyrinthe N, M, ligne et colonne de D, ligne et colonne de S (-1 si absent),
+ *            nombre de feux F, réservé (8 x i32)
+ *            F positions des feux (i64, ligne * M + colonne, dans l'ordre des lignes)
+ *            N lignes de (M + 3) / 4 octets, 4 cases par octet, bits de poids faible d'abord
+ * </pre>
+ * Codes des cases : 0 vide, 1 mur, 2 feu, 3 départ ou sortie. Seuls le premier 'D' et le
+ * premier 'S' sont conservés (positions de l'en-tête) ; tout autre caractère devient une case
+ * vide, ce qui ne change pas la réponse des moteurs. Les positions de l'en-tête donnent au
+ * chargement le prétraitement de la grille ({@link GridScan}) sans la relire ; elles sont
+ * vérifiées contre les cases.
+ *
+ * L'index permet de lire n'importe quel labyrinthe directement, et donc de répartir un lot
+ * entre plusieurs threads. Un fichier ouvert peut être lu depuis plusieurs threads.
+ */
+final class BinaryLabyrinthFile implements Closeable {
+
+    /** Signature des fichiers binaires : "LABB". */
+    static final int MAGIC = 0x4C414242;
+
+    /** Version du format. */
+    static final int VERSION = 1;
+
+    /** Nombre de bits par case. */
+    static final int BITS_PER_CELL = 2;
+
+    private static final int HEADER_SIZE = 12;
+    private static final int GRID_HEADER_SIZE = 32;
+
+    private static final int CODE_EMPTY = 0;
+    private static final int CODE_WALL = 1;
+    private static final int CODE_FIRE = 2;
+    private static final int CODE_MARK = 3;
+
+    /** Décodage d'un octet : les 4 caractères de ses cases, à l'indice 4 * octet. */
+    private static final byte[] DECODE = new byte[256 * 4];
+
+    /** Cases ouvertes (non murs) d'un octet, un bit par case, comme dans {@link GridScan#open}. */
+    private static final byte[] OPEN_BITS = new byte[256];
+
+    /** Nombre de feux d'un octet. */
+    private static final byte[] FIRE_COUNT = new byte[256];
+
+    static {
+        byte[] chars = {Grid.EMPTY, Grid.WALL, Grid.FIRE, Grid.EMPTY};
+        for (int b = 0; b < 256; b++) {
+            for (int k = 0; k < 4; k++) {
+                int code = (b >>> (2 * k)) & 3;
+                DECODE[4 * b + k] = chars[code];
+                if (code != CODE_WALL) {
+                    OPEN_BITS[b] |= (byte) (1 << k);
+                }
+                if (code == CODE_FIRE) {
+                    FIRE_COUNT[b]++;
+                }
+            }
+        }
+    }
+
+    /** Canal du fichier, ou null pour un contenu déjà en mémoire. */
+    private final FileChannel channel;
+    private final long size;
+    private final long[] offsets;
+
+    /** Fichier entier projeté en mémoire, ou null s'il dépasse 2 Gio. */
+    private final ByteBuffer whole;
+
+    private BinaryLabyrinthFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        int count = checkHeader(size < HEADER_SIZE ? null
+                : channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE), size);
+        this.offsets = new long[count];
+        channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, 8L * count)
+                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(offsets);
+        this.whole = size <= Integer.MAX_VALUE
+                ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN)
+                : null;
+    }
+
+    private BinaryLabyrinthFile(ByteBuffer data) throws IOException {
+        this.channel = null;
+        this.size = data.remaining();
+        this.whole = data.slice().order(ByteOrder.LITTLE_ENDIAN);
+        int count = checkHeader(size < HEADER_SIZE ? null : whole, size);
+        this.offsets = new long[count];
+        whole.slice(HEADER_SIZE, 8 * count).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(offsets);
+    }
+
+    /**
+     * Vérifie l'en-tête et la place de l'index.
+     *
+     * @param header Début du fichier, ou null s'il est plus court que l'en-tête.
+     * @param size   Taille du fichier.
+     * @return Nombre de labyrinthes.
+     */
+    private static int checkHeader(ByteBuffer header, long size) throws IOException {
+        if (header == null) {
+            throw new IOException("Fichier binaire invalide : en-tête incomplet.");
+        }
+        header = header.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Fichier binaire invalide : signature inconnue.");
+        }
+        int version = header.getShort(4) & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Version du format binaire non prise en charge : " + version);
+        }
+        if (header.get(6) != BITS_PER_CELL) {
+            throw new IOException("Fichier binaire invalide : " + header.get(6) + " bits par case.");
+        }
+        int count = header.getInt(8);
+        if (count < 0 || HEADER_SIZE + 8L * count > size) {
+            throw new IOException("Fichier binaire invalide : index incomplet.");
+        }
+        return count;
+    }
+
+    /**
+     * Ouvre un fichier binaire.
+     *
+     * @param path Chemin du fichier.
+     * @return Fichier ouvert.
+     * @throws IOException si le fichier ne peut pas être lu ou n'est pas au format binaire.
+     */
+    static BinaryLabyrinthFile open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new BinaryLabyrinthFile(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Lit un contenu binaire déjà en mémoire (corps d'une requête, par exemple).
+     *
+     * @param data Contenu complet, de la position à la limite du tampon (non modifié).
+     * @return Fichier en mémoire ; le fermer n'a aucun effet.
+     * @throws IOException si le contenu n'est pas au format binaire.
+     */
+    static BinaryLabyrinthFile wrap(ByteBuffer data) throws IOException {
+        return new BinaryLabyrinthFile(data);
+    }
+
+    /**
+     * Vérifie si un contenu commence par la signature du format binaire.
+     *
+     * @param head Premiers octets du contenu.
+     * @param length Nombre d'octets valides dans head.
+     * @return true si les 4 premiers octets sont la signature.
+     */
+    static boolean isBinary(byte[] head, int length) {
+        return length >= 4 && ByteBuffer.wrap(head, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+    }
+
+    /**
+     * Vérifie si un fichier commence par la signature du format binaire.
+     *
+     * @param path Chemin du fichier.
+     * @return true pour un fichier binaire, false pour un fichier texte (ou trop court).
+     * @throws IOException si le fichier ne peut pas être lu.
+     */
+    static boolean isBinary(Path path) throws IOException {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] head = in.readNBytes(4);
+            return isBinary(head, head.length);
+        }
+    }
+
+    /** @return Nombre de labyrinthes du fichier. */
+    int count() {
+        return offsets.length;
+    }
+
+    /**
+     * @param i Numéro du labyrinthe (à partir de 0).
+     * @return Nombre de cases du labyrinthe, lu dans son en-tête.
+     * @throws IOException si le labyrinthe est hors du fichier.
+     */
+    long cells(int i) throws IOException {
+        ByteBuffer record = record(i);
+        return (long) record.getInt(0) * record.getInt(4);
+    }
+
+    /**
+     * Lit un labyrinthe.
+     *
+     * Le prétraitement de la grille ({@link Grid#scan()}) vient de l'en-tête : départ, sortie et
+     * feux y sont déjà, et le masque des cases ouvertes se déduit octet par octet pendant le
+     * décodage ; la grille n'est pas relue.
+     *
+     * @param i Numéro du labyrinthe (à partir de 0).
+     * @return Grille décodée.
+     * @throws IOException si le labyrinthe est incomplet ou si son en-tête ne correspond pas à
+     *                     ses cases.
+     */
+    Grid grid(int i) throws IOException {
+        ByteBuffer record = record(i);
+        int rows = record.getInt(0);
+        int cols = record.getInt(4);
+        int fires = record.getInt(24);
+        long rowBytes = (cols + 3L) >>> 2;
+        if (rows < 0 || cols < 0 || fires < 0
+                || GRID_HEADER_SIZE + 8L * fires + rowBytes * rows > record.capacity()) {
+            throw new IOException("Labyrinthe " + (i + 1) + " incomplet dans le fichier binaire.");
+        }
+
+        Grid grid;
+        try {
+            grid = new Grid(rows, cols);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Labyrinthe " + (i + 1) + " : " + e.getMessage(), e);
+        }
+        GridScan.Builder scan = new GridScan.Builder(rows, cols);
+        byte[] cells = grid.cells;
+        long[] open = scan.open;
+        byte[] packed = new byte[(int) rowBytes];
+        int full = cols >>> 2;
+        int tail = cols & 3;
+        int fireCells = 0;
+        int pos = GRID_HEADER_SIZE + 8 * fires;
+        for (int r = 0; r < rows; r++) {
+            record.get(pos, packed);
+            pos += packed.length;
+            int base = grid.index(r, 0);
+            int word = r * scan.words;
+            for (int b = 0; b < full; b++) {
+                int v = packed[b] & 0xFF;
+                System.arraycopy(DECODE, 4 * v, cells, base + 4 * b, 4);
+                open[word + (b >>> 4)] |= (long) OPEN_BITS[v] << (4 * b);
+                fireCells += FIRE_COUNT[v];
+            }
+            if (tail != 0) {
+                // Les cases de remplissage de l'octet sont ignorées
+                int v = packed[full] & ((1 << (2 * tail)) - 1);
+                System.arraycopy(DECODE, 4 * v, cells, base + 4 * full, tail);
+                open[word + (full >>> 4)] |= (long) (OPEN_BITS[v] & ((1 << tail) - 1)) << (4 * full);
+                fireCells += FIRE_COUNT[v];
+            }
+        }
+
+        // Feux de l'en-tête : dans l'ordre des lignes, chacun sur une case 'F', tous présents
+        long previous = -1;
+        for (int f = 0; f < fires; f++) {
+            long p = record.getLong(GRID_HEADER_SIZE + 8 * f);
+            if (p <= previous || p >= (long) rows * cols
+                    || cells[grid.index((int) (p / cols), (int) (p % cols))] != Grid.FIRE) {
+                throw new IOException("Labyrinthe " + (i + 1) + " : position de feu invalide dans le fichier binaire.");
+            }
+            scan.fire(grid.index((int) (p / cols), (int) (p % cols)));
+            previous = p;
+        }
+        if (fireCells != fires) {
+            throw new IOException("Labyrinthe " + (i + 1) + " : " + fireCells + " feux dans la grille, "
+                    + fires + " dans l'en-tête du fichier binaire.");
+        }
+        scan.start = mark(grid, record.getInt(8), record.getInt(12), Grid.START, i);
+        scan.exit = mark(grid, record.getInt(16), record.getInt(20), Grid.EXIT, i);
+        grid.scan = scan.build();
+        return grid;
+    }
+
+    /**
+     * Place le départ ou la sortie lu dans l'en-tête d'un labyrinthe.
+     *
+     * @param row Ligne lue (-1 si absent, avec col = -1).
+     * @param col Colonne lue.
+     * @param mark {@link Grid#START} ou {@link Grid#EXIT}.
+     * @param i   Numéro du labyrinthe (à partir de 0).
+     * @return Indice de la case, ou -1 si absent.
+     * @throws IOException si la case est hors de la grille ou n'est pas une case vide.
+     */
+    private static int mark(Grid grid, int row, int col, byte mark, int i) throws IOException {
+        if (row == -1 && col == -1) {
+            return -1;
+        }
+        if (row < 0 || row >= grid.rows || col < 0 || col >= grid.cols
+                || grid.cells[grid.index(row, col)] != Grid.EMPTY) {
+            throw new IOException("Labyrinthe " + (i + 1) + " : position de '" + (char) mark
+                    + "' invalide dans le fichier binaire : (" + row + ", " + col + ")");
+        }
+        int idx = grid.index(row, col);
+        grid.cells[idx] = mark;
+        return idx;
+    }
+
+    /**
+     * Zone d'un labyrinthe, de son en-tête jusqu'au début du suivant.
+     */
+    private ByteBuffer record(int i) throws IOException {
+        if (i < 0 || i >= offsets.length) {
+            throw new IOException("Labyrinthe " + (i + 1) + " absent du fichier binaire.");
+        }
+        long start = offsets[i];
+        long end = i + 1 < offsets.length ? offsets[i + 1] : size;
+        if (start < HEADER_SIZE || end > size || end - start < GRID_HEADER_SIZE || end - start > Integer.MAX_VALUE) {
+            throw new IOException("Index du fichier binaire invalide pour le labyrinthe " + (i + 1));
+        }
+        if (whole != null) {
+            return whole.slice((int) start, (int) (end - start)).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Convertit un fichier texte (T puis T labyrinthes) au format binaire.
+     * Les labyrinthes sont lus et écrits un par un ; l'index est écrit à la fin.
+     *
+     * @param reader Lecteur du fichier texte.
+     * @param target Fichier binaire à créer (remplacé s'il existe).
+     * @return Nombre de labyrinthes convertis.
+     * @throws IOException si le fichier texte est mal formé, s'il contient des matériaux (qui ne
+     *                     tiennent pas sur 2 bits) ou si l'écriture échoue.
+     */
+    static int convert(LabyrinthReader reader, Path target) throws IOException {
+        int T = reader.readInt(); // Nombre de labyrinthes
+        if (T < 0) {
+            throw new IOException("Nombre de labyrinthes invalide : " + T);
+        }
+        try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort((short) VERSION).put((byte) BITS_PER_CELL).put((byte) 0).putInt(T);
+            writeFully(out, header.flip(), 0);
+
+            long[] offsets = new long[T];
+            long pos = HEADER_SIZE + 8L * T;
+            for (int t = 0; t < T; t++) {
+                offsets[t] = pos;
+                Grid grid = reader.readGrid();
+                if (grid.isWeighted()) {
+                    throw new IOException("Labyrinthe " + (t + 1) + " : le format binaire ne code pas les matériaux.");
+                }
+                ByteBuffer record = encode(grid);
+                pos += record.remaining();
+                writeFully(out, record, offsets[t]);
+            }
+
+            ByteBuffer index = ByteBuffer.allocate(8 * T).order(ByteOrder.LITTLE_ENDIAN);
+            index.asLongBuffer().put(offsets);
+            writeFully(out, index, HEADER_SIZE);
+        }
+        return T;
+    }
+
+    /**
+     * Encode une grille : en-tête, positions des feux puis cases sur 2 bits.
+     */
+    private static ByteBuffer encode(Grid grid) {
+        int rows = grid.rows;
+        int cols = grid.cols;
+        int rowBytes = (cols + 3) >>> 2;
+        int start = grid.indexOf((char) Grid.START);
+        int exit = grid.indexOf((char) Grid.EXIT);
+
+        long[] fires = new long[16];
+        int fireCount = 0;
+        byte[] packed = new byte[rowBytes * rows];
+        byte[] cells = grid.cells;
+        for (int r = 0; r < rows; r++) {
+            int base = grid.index(r, 0);
+            for (int c = 0; c < cols; c++) {
+                int code;
+                switch (cells[base + c]) {
+                    case Grid.WALL:
+                        code = CODE_WALL;
+                        break;
+                    case Grid.FIRE:
+                        code = CODE_FIRE;
+                        if (fireCount == fires.length) {
+                            fires = Arrays.copyOf(fires, fireCount << 1);
+                        }
+                        fires[fireCount++] = (long) r * cols + c;
+                        break;
+                    case Grid.START:
+                    case Grid.EXIT:
+                        code = CODE_MARK;
+                        break;
+                    default:
+                        code = CODE_EMPTY;
+                        break;
+                }
+                packed[r * rowBytes + (c >>> 2)] |= (byte) (code << (2 * (c & 3)));
+            }
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(GRID_HEADER_SIZE + 8 * fireCount + packed.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(rows).putInt(cols)
+                .putInt(start < 0 ? -1 : grid.row(start)).putInt(start < 0 ? -1 : grid.col(start))
+                .putInt(exit < 0 ? -1 : grid.row(exit)).putInt(exit < 0 ? -1 : grid.col(exit))
+                .putInt(fireCount).putInt(0);
+        for (int f = 0; f < fireCount; f++) {
+            record.putLong(fires[f]);
+        }
+        record.put(packed);
+        return record.flip();
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += out.write(buffer, position);
+        }
+    }
+}
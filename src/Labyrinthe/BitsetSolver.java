@@ -0,0 +1,188 @@
+package Labyrinthe;
+
+/**
+ * Moteur de décision (Y/N) par propagation bit à bit.
+ *
+ * Chaque ligne de la grille est un tableau de mots de 64 bits : un bit par case. Les cases
+ * ouvertes, les cases brûlées et les cases atteintes par le prisonnier sont trois bitsets.
+ * Un pas de temps se calcule alors avec quelques décalages, ET et OU par mot, soit 64 cases
+ * à la fois :
+ * <pre>
+ *   feu'   = feu   | (voisins(feu)   &amp; ouvert)
+ *   atteint' = atteint | (voisins(atteint) &amp; ouvert &amp; ~feu')
+ * </pre>
+ * Le prisonnier entre dans une case au temps t + 1 seulement si le feu ne l'a pas atteinte
+ * au temps t + 1 : c'est la contrainte de {@link LabyrinthEscape#aStarWithFire}. Garder les
+ * cases déjà atteintes dans l'ensemble ne change pas le résultat : une case encore intacte
+ * voisine d'une ancienne case atteinte aurait déjà été atteinte plus tôt.
+ *
+ * Seules les lignes où le feu (ou le prisonnier) peut se trouver sont mises à jour.
+ */
+final class BitsetSolver {
+
+    private BitsetSolver() {
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe avant que le feu n'atteigne la sortie.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(Grid grid) {
+        return canEscape(grid, null);
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe sous l'observation d'un moniteur,
+     * consulté à la fin d'un pas dès que {@link SolveMonitor#INTERVAL} mots de plus ont été
+     * calculés (aucun front n'est transmis : les fronts sont des bitsets).
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return true si une évasion est possible, sinon false.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static boolean canEscape(Grid grid, SolveMonitor monitor) {
+        return canEscape(grid, grid.scan(), monitor);
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe à partir du prétraitement de la
+     * grille, dont le masque des cases ouvertes est déjà dans la disposition des bitsets.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param scan    Prétraitement de la grille.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return true si une évasion est possible, sinon false.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static boolean canEscape(Grid grid, GridScan scan, SolveMonitor monitor) {
+        int start = scan.start;
+        int end = scan.exit;
+        if (start < 0 || end < 0) {
+            return false;
+        }
+
+        int N = grid.rows;
+        int W = scan.words; // mots par ligne
+
+        long[] open = scan.open; // lu seulement
+        long[] fire = new long[N * W];
+        long[] nextFire = new long[N * W];
+        long[] reach = new long[N * W];
+        long[] nextReach = new long[N * W];
+
+        // Les sources sont dans l'ordre des lignes
+        int fireLo = N;
+        int fireHi = -1;
+        for (int i = 0; i < scan.fireCount; i++) {
+            int idx = scan.fires[i];
+            int r = grid.row(idx);
+            int c = grid.col(idx);
+            fire[r * W + (c >>> 6)] |= 1L << c;
+            fireLo = Math.min(fireLo, r);
+            fireHi = r;
+        }
+
+        int startRow = grid.row(start);
+        int startCol = grid.col(start);
+        reach[startRow * W + (startCol >>> 6)] |= 1L << startCol;
+        int reachLo = startRow;
+        int reachHi = startRow;
+
+        int endRow = grid.row(end);
+        int endCol = grid.col(end);
+        int endWord = endRow * W + (endCol >>> 6);
+        long endBit = 1L << endCol;
+
+        // Mots calculés, pour le moniteur
+        long words = 0;
+        long nextCheck = SolveMonitor.INTERVAL;
+        int[] noFrontier = new int[0];
+
+        while (true) {
+            // 1) Le feu avance d'un pas
+            if (fireHi >= 0) {
+                fireLo = Math.max(fireLo - 1, 0);
+                fireHi = Math.min(fireHi + 1, N - 1);
+                for (int r = fireLo; r <= fireHi; r++) {
+                    step(fire, nextFire, open, null, r, N, W);
+                }
+                long[] tmp = fire;
+                fire = nextFire;
+                nextFire = tmp;
+                words += (long) (fireHi - fireLo + 1) * W;
+            }
+
+            // 2) Le prisonnier avance d'un pas vers les cases intactes
+            reachLo = Math.max(reachLo - 1, 0);
+            reachHi = Math.min(reachHi + 1, N - 1);
+            boolean changed = false;
+            for (int r = reachLo; r <= reachHi; r++) {
+                changed |= step(reach, nextReach, open, fire, r, N, W);
+            }
+            long[] tmp = reach;
+            reach = nextReach;
+            nextReach = tmp;
+
+            if ((reach[endWord] & endBit) != 0) {
+                return true;
+            }
+            if (!changed) {
+                // Plus aucune case nouvelle : le prisonnier est encerclé
+                return false;
+            }
+
+            words += (long) (reachHi - reachLo + 1) * W;
+            if (monitor != null && words >= nextCheck) {
+                nextCheck = words + SolveMonitor.INTERVAL;
+                monitor.checkpoint(SolveMonitor.Stage.SEARCH, words, noFrontier, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Calcule la ligne r de {@code dst = src | (voisins(src) & open & ~blocked)}.
+     *
+     * @param src     Ensemble au temps t.
+     * @param dst     Ensemble au temps t + 1 (écrit).
+     * @param open    Cases ouvertes.
+     * @param blocked Cases interdites au temps t + 1, ou null.
+     * @param r       Ligne à calculer.
+     * @param N       Nombre de lignes.
+     * @param W       Nombre de mots par ligne.
+     * @return true si la ligne a gagné au moins une case.
+     */
+    private static boolean step(long[] src, long[] dst, long[] open, long[] blocked, int r, int N, int W) {
+        int base = r * W;
+        int up = r > 0 ? base - W : -1;
+        int down = r < N - 1 ? base + W : -1;
+        boolean changed = false;
+        for (int w = 0; w < W; w++) {
+            int i = base + w;
+            long cur = src[i];
+            long spread = (cur << 1) | (cur >>> 1);
+            if (w > 0) {
+                spread |= src[i - 1] >>> 63;
+            }
+            if (w < W - 1) {
+                spread |= src[i + 1] << 63;
+            }
+            if (up >= 0) {
+                spread |= src[up + w];
+            }
+            if (down >= 0) {
+                spread |= src[down + w];
+            }
+            spread &= open[i];
+            if (blocked != null) {
+                spread &= ~blocked[i];
+            }
+            long next = cur | spread;
+            changed |= next != cur;
+            dst[i] = next;
+        }
+        return changed;
+    }
+}
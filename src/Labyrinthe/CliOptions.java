@@ -0,0 +1,299 @@
+package Labyrinthe;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Options de la ligne de commande de {@link LabyrinthEscape#main}.
+ */
+final class CliOptions {
+
+    /** Résumé des options, affiché en cas d'erreur. */
+    static final String USAGE =
+            "Usage : java Labyrinthe.LabyrinthEscape [options] [fichier | -]\n"
+            + "        java Labyrinthe.LabyrinthEscape --batch [options] entrée...\n"
+            + "  --engine E    moteur de résolution : astar (défaut), lockstep, bitset, jps\n"
+            + "  --threads N   résout les labyrinthes en parallèle sur N threads\n"
+            + "                (avec --serve : résolutions simultanées, défaut : nombre de processeurs)\n"
+            + "  --virtual     utilise un thread virtuel par labyrinthe\n"
+            + "  --window N    nombre maximal de labyrinthes en mémoire (défaut : 4 x threads)\n"
+            + "  --stats       affiche sur la sortie d'erreur les statistiques de résolution\n"
+            + "  --timeout MS  durée maximale de chaque résolution ; au-delà, la réponse est TIMEOUT\n"
+            + "  --budget N    nombre maximal d'itérations (cases brûlées, nœuds développés) par résolution\n"
+            + "  --escalate    avec --timeout ou --budget : essaie d'abord lockstep sur la moitié du budget,\n"
+            + "                puis le moteur choisi avec ce qui reste\n"
+            + "  --offheap     range grille, feu et recherche dans des fichiers projetés en mémoire\n"
+            + "                (répertoire : java.io.tmpdir), pour les cartes plus grandes que le tas\n"
+            + "  --convert F   convertit le fichier texte au format binaire F, sans résoudre\n"
+            + "  --margins     écrit pour chaque labyrinthe le départ au plus tard de D (\"Y t\", \"Y INF\"\n"
+            + "                si le feu n'atteint jamais le chemin, \"N\"), voir SafetyMap\n"
+            + "  --serve P     démarre le service HTTP de résolution sur le port P (voir SolveServer)\n"
+            + "  --queue N     avec --serve : requêtes en attente au-delà desquelles le service\n"
+            + "                répond 503 (défaut : 4 x résolutions simultanées)\n"
+            + "  --cache       garde les résultats en mémoire, indexés par le contenu des grilles\n"
+            + "  --cache-file F  journal des résultats sur disque (relu au démarrage, implique --cache)\n"
+            + "  --cache-mb N  budget mémoire du cache en Mio (défaut : 256)\n"
+            + "  --verify-cache  recalcule chaque résultat trouvé dans le cache et compte les divergences\n"
+            + "  --batch       résout des fichiers, répertoires ou motifs glob : un fichier .results par\n"
+            + "                entrée ; les entrées dont les résultats existent sont sautées (voir BatchPipeline)\n"
+            + "  --out D       avec --batch : répertoire des résultats (défaut : à côté de chaque entrée)\n"
+            + "  --parsers N   avec --batch : threads de lecture (défaut : 2) ; --threads donne les solveurs\n"
+            + "                (défaut : nombre de processeurs), --window la capacité des files\n"
+            + "  --writers N   avec --batch : threads d'écriture (défaut : 1)\n"
+            + "Un fichier binaire (voir --convert) est reconnu automatiquement.";
+
+    /** Fichier d'entrée, "-" pour l'entrée standard, null pour la ressource du JAR. */
+    String input;
+
+    /** Moteur de résolution. */
+    Engine engine = Engine.ASTAR;
+
+    /** Nombre de threads de résolution (0 = non précisé, séquentiel hors service HTTP). */
+    int threads;
+
+    /** Vrai pour résoudre sur des threads virtuels. */
+    boolean virtualThreads;
+
+    /** Nombre maximal de labyrinthes lus mais pas encore écrits (0 = valeur par défaut). */
+    int window;
+
+    /** Vrai pour mesurer chaque résolution et afficher un résumé. */
+    boolean stats;
+
+    /** Durée maximale d'une résolution en millisecondes (0 = sans limite). */
+    long timeoutMillis;
+
+    /** Nombre maximal d'itérations d'une résolution (0 = sans limite). */
+    long budget;
+
+    /** Vrai pour essayer d'abord le moteur de décision rapide. */
+    boolean escalate;
+
+    /** Vrai pour résoudre hors tas ({@link OffHeapSolver}). */
+    boolean offHeap;
+
+    /** Fichier binaire à écrire (conversion seule), ou null. */
+    String convert;
+
+    /** Vrai pour écrire les marges de sécurité au lieu de Y/N ({@link SafetyMap}). */
+    boolean margins;
+
+    /** Port du service HTTP ({@link SolveServer}), ou -1 pour résoudre un fichier. */
+    int serve = -1;
+
+    /** Requêtes en attente admises par le service HTTP (0 = valeur par défaut). */
+    int queue;
+
+    /** Vrai pour passer par un {@link ResultCache}. */
+    boolean cache;
+
+    /** Journal du cache, ou null pour un cache en mémoire seulement. */
+    String cacheFile;
+
+    /** Budget mémoire du cache, en octets. */
+    long cacheBudget = ResultCache.DEFAULT_BUDGET;
+
+    /** Vrai pour contrôler chaque résultat trouvé dans le cache. */
+    boolean verifyCache;
+
+    /** Vrai pour résoudre des fichiers et répertoires entiers ({@link BatchPipeline}). */
+    boolean batch;
+
+    /** Entrées du lot : fichiers, répertoires ou motifs glob. */
+    final List<String> inputs = new ArrayList<>();
+
+    /** Répertoire des résultats du lot, ou null pour écrire à côté de chaque entrée. */
+    String outDir;
+
+    /** Threads de lecture du lot. */
+    int parsers = 2;
+
+    /** Threads d'écriture du lot. */
+    int writers = 1;
+
+    /**
+     * Analyse les arguments.
+     *
+     * @param args Arguments de la ligne de commande.
+     * @return Options lues.
+     * @throws IllegalArgumentException si un argument est inconnu ou mal formé.
+     */
+    static CliOptions parse(String[] args) {
+        CliOptions options = new CliOptions();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--engine":
+                    if (++i >= args.length) {
+                        throw new IllegalArgumentException("Valeur manquante pour " + arg);
+                    }
+                    options.engine = Engine.parse(args[i]);
+                    break;
+                case "--threads":
+                    options.threads = positiveInt(args, ++i, arg);
+                    break;
+                case "--virtual":
+                    options.virtualThreads = true;
+                    break;
+                case "--window":
+                    options.window = positiveInt(args, ++i, arg);
+                    break;
+                case "--stats":
+                    options.stats = true;
+                    break;
+                case "--timeout":
+                    options.timeoutMillis = positiveInt(args, ++i, arg);
+                    break;
+                case "--budget":
+                    options.budget = positiveInt(args, ++i, arg);
+                    break;
+                case "--escalate":
+                    options.escalate = true;
+                    break;
+                case "--offheap":
+                    options.offHeap = true;
+                    break;
+                case "--convert":
+                    if (++i >= args.length) {
+                        throw new IllegalArgumentException("Valeur manquante pour " + arg);
+                    }
+                    options.convert = args[i];
+                    break;
+                case "--margins":
+                    options.margins = true;
+                    break;
+                case "--serve":
+                    options.serve = positiveInt(args, ++i, arg);
+                    break;
+                case "--queue":
+                    options.queue = positiveInt(args, ++i, arg);
+                    break;
+                case "--cache":
+                    options.cache = true;
+                    break;
+                case "--cache-file":
+                    if (++i >= args.length) {
+                        throw new IllegalArgumentException("Valeur manquante pour " + arg);
+                    }
+                    options.cacheFile = args[i];
+                    options.cache = true;
+                    break;
+                case "--cache-mb":
+                    options.cacheBudget = (long) positiveInt(args, ++i, arg) << 20;
+                    options.cache = true;
+                    break;
+                case "--verify-cache":
+                    options.verifyCache = true;
+                    options.cache = true;
+                    break;
+                case "--batch":
+                    options.batch = true;
+                    break;
+                case "--out":
+                    if (++i >= args.length) {
+                        throw new IllegalArgumentException("Valeur manquante pour " + arg);
+                    }
+                    options.outDir = args[i];
+                    break;
+                case "--parsers":
+                    options.parsers = positiveInt(args, ++i, arg);
+                    break;
+                case "--writers":
+                    options.writers = positiveInt(args, ++i, arg);
+                    break;
+                default:
+                    if (arg.startsWith("--")) {
+                        throw new IllegalArgumentException("Argument inconnu : " + arg);
+                    }
+                    options.inputs.add(arg);
+                    break;
+            }
+        }
+        if (options.batch) {
+            if (options.inputs.isEmpty()) {
+                throw new IllegalArgumentException("--batch demande au moins une entrée");
+            }
+            if (options.offHeap || options.convert != null || options.margins || options.serve > 0
+                    || options.virtualThreads) {
+                throw new IllegalArgumentException(
+                        "--batch ne se combine pas avec --offheap, --convert, --margins, --serve ou --virtual");
+            }
+        } else {
+            if (options.inputs.size() > 1) {
+                throw new IllegalArgumentException("Argument inconnu : " + options.inputs.get(1));
+            }
+            if (options.outDir != null) {
+                throw new IllegalArgumentException("--out demande --batch");
+            }
+            options.input = options.inputs.isEmpty() ? null : options.inputs.get(0);
+        }
+        if (options.offHeap && options.parallel()) {
+            throw new IllegalArgumentException("--offheap ne se combine pas avec --threads ou --virtual");
+        }
+        if (options.cache && options.offHeap) {
+            throw new IllegalArgumentException("--offheap ne se combine pas avec le cache");
+        }
+        if (options.escalate && options.timeoutMillis == 0 && options.budget == 0) {
+            throw new IllegalArgumentException("--escalate demande --timeout ou --budget");
+        }
+        if (options.offHeap && options.limits().bounded()) {
+            throw new IllegalArgumentException("--offheap ne se combine pas avec --timeout ou --budget");
+        }
+        if (options.margins && (options.offHeap || options.convert != null || options.serve > 0 || options.cache
+                || options.parallel() || options.limits().bounded())) {
+            throw new IllegalArgumentException("--margins ne se combine qu'avec un fichier d'entrée");
+        }
+        if (options.serve > 0 && (options.input != null || options.offHeap || options.convert != null)) {
+            throw new IllegalArgumentException("--serve ne se combine pas avec un fichier, --offheap ou --convert");
+        }
+        return options;
+    }
+
+    /**
+     * Ouvre le cache demandé.
+     *
+     * @return Cache, ou null si aucun cache n'est demandé.
+     * @throws IOException si le journal ne peut pas être ouvert.
+     */
+    ResultCache openCache() throws IOException {
+        if (!cache) {
+            return null;
+        }
+        return cacheFile == null
+                ? ResultCache.inMemory(cacheBudget, false, verifyCache)
+                : ResultCache.open(Paths.get(cacheFile), cacheBudget, false, verifyCache);
+    }
+
+    /** @return Limites de chaque résolution. */
+    SolveBudget.Limits limits() {
+        if (timeoutMillis == 0 && budget == 0) {
+            return SolveBudget.Limits.NONE;
+        }
+        return new SolveBudget.Limits(timeoutMillis * 1_000_000L, budget, escalate);
+    }
+
+    /** @return Vrai si la résolution doit passer par {@link BatchSolver}. */
+    boolean parallel() {
+        return threads > 1 || virtualThreads;
+    }
+
+    /**
+     * Lit la valeur entière strictement positive d'une option.
+     */
+    private static int positiveInt(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Valeur manquante pour " + option);
+        }
+        try {
+            int value = Integer.parseInt(args[i]);
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // message commun ci-dessous
+        }
+        throw new IllegalArgumentException("Valeur invalide pour " + option + " : " + args[i]);
+    }
+}
@@ -0,0 +1,615 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Abstraction hiérarchique (à la HPA*) d'une grille, pour les très grandes cartes.
+ *
+ * La grille est découpée en clusters carrés. Sur chaque frontière entre deux clusters, chaque
+ * segment de cases ouvertes des deux côtés donne une entrée (au milieu) ou deux (aux extrémités
+ * si le segment est long). Les distances entre les entrées d'un même cluster sont calculées une
+ * fois pour toutes par BFS à l'intérieur du cluster, et l'on retient pour chaque cluster les
+ * temps du feu minimal et maximal de ses cases.
+ *
+ * Une requête commence par écarter les clusters morts : ceux dont la dernière case brûle avant
+ * que le prisonnier ne puisse y arriver (distance de Manhattan au départ). Elle cherche ensuite
+ * un chemin dans le graphe des entrées sans jamais entrer dans un cluster mort ni atteindre une
+ * entrée après le feu (les bornes du cluster tranchent d'abord, sans lire la table du feu de
+ * toute la grille), puis affine ce chemin par l'A* avec contrainte de feu limité aux
+ * clusters traversés. Sans matériaux, les temps du feu de deux cases voisines diffèrent d'au
+ * plus 1 : un chemin qui arrive à la sortie avant le feu est sûr sur toute sa longueur,
+ * l'affinage réussit donc toujours (sur une grille à matériaux, il peut échouer). Le chemin
+ * abstrait n'étant pas forcément le plus court, un échec de l'une ou l'autre recherche ne
+ * prouve rien : on se rabat alors sur l'A* sur toute la grille, sans les clusters morts. La réponse Y/N est ainsi
+ * toujours celle de l'A* ; le chemin renvoyé est sûr mais peut être un peu plus long.
+ *
+ * L'index est immuable et peut être interrogé depuis plusieurs threads, comme le
+ * {@link FireIndex} sur lequel il repose.
+ */
+public final class ClusterIndex {
+
+    /** Côté des clusters par défaut. */
+    static final int DEFAULT_CLUSTER_SIZE = 32;
+
+    /** Un segment d'entrée au moins aussi long reçoit deux entrées, à ses extrémités. */
+    private static final int LONG_ENTRANCE = 6;
+
+    /** Représente une valeur très grande pour l'initialisation. */
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final FireIndex fire;
+    private final Grid grid;
+    private final int size;
+    private final int clusterRows;
+    private final int clusterCols;
+
+    /** Temps du feu minimal et maximal des cases ouvertes de chaque cluster. */
+    private final int[] minFire;
+    private final int[] maxFire;
+
+    /** Case de chaque entrée ; les entrées sont triées par cluster puis par case. */
+    private final int[] nodeCell;
+    private final int[] nodeCluster;
+
+    /** Entrées du cluster k : [clusterNodes[k], clusterNodes[k + 1]). */
+    private final int[] clusterNodes;
+
+    /** Arêtes du graphe abstrait, au format CSR. */
+    private final int[] edgeStart;
+    private final int[] edgeTarget;
+    private final int[] edgeCost;
+
+    private ClusterIndex(FireIndex fire, int size) {
+        this.fire = fire;
+        this.grid = fire.grid();
+        this.size = size;
+        this.clusterRows = (grid.rows + size - 1) / size;
+        this.clusterCols = (grid.cols + size - 1) / size;
+        int clusters = clusterRows * clusterCols;
+
+        // 1) Entrées sur les frontières entre clusters
+        IntList pairs = new IntList();
+        for (int cr = 1; cr < clusterRows; cr++) {
+            int r = cr * size - 1;
+            scanBorder(grid.index(r, 0), grid.stride, 1, grid.cols, pairs);
+        }
+        for (int cc = 1; cc < clusterCols; cc++) {
+            int c = cc * size - 1;
+            scanBorder(grid.index(0, c), 1, grid.stride, grid.rows, pairs);
+        }
+        long[] keys = new long[pairs.size];
+        for (int i = 0; i < pairs.size; i++) {
+            keys[i] = (long) clusterOf(pairs.data[i]) << 32 | pairs.data[i];
+        }
+        Arrays.sort(keys);
+        int nodes = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (i == 0 || keys[i] != keys[i - 1]) {
+                keys[nodes++] = keys[i];
+            }
+        }
+        keys = Arrays.copyOf(keys, nodes);
+        this.nodeCell = new int[nodes];
+        this.nodeCluster = new int[nodes];
+        this.clusterNodes = new int[clusters + 1];
+        for (int i = 0; i < nodes; i++) {
+            nodeCell[i] = (int) keys[i];
+            nodeCluster[i] = (int) (keys[i] >>> 32);
+            clusterNodes[nodeCluster[i] + 1]++;
+        }
+        for (int k = 0; k < clusters; k++) {
+            clusterNodes[k + 1] += clusterNodes[k];
+        }
+
+        // 2) Distances internes et bornes du feu, cluster par cluster
+        this.minFire = new int[clusters];
+        this.maxFire = new int[clusters];
+        int[][] intra = new int[clusters][];
+        int[] fireTime = fire.fireTimes();
+        IntStream.range(0, clusters).parallel().forEach(k -> {
+            fireBounds(k, fireTime);
+            intra[k] = intraEdges(k);
+        });
+
+        // 3) Assemblage CSR : arêtes internes, plus les arêtes de coût 1 entre les deux
+        //    côtés de chaque entrée
+        int edges = pairs.size;
+        for (int[] list : intra) {
+            edges += list.length / 3;
+        }
+        int[] src = new int[edges];
+        int[] dst = new int[edges];
+        int[] cost = new int[edges];
+        int e = 0;
+        for (int i = 0; i < pairs.size; i += 2) {
+            int a = Arrays.binarySearch(keys, (long) clusterOf(pairs.data[i]) << 32 | pairs.data[i]);
+            int b = Arrays.binarySearch(keys, (long) clusterOf(pairs.data[i + 1]) << 32 | pairs.data[i + 1]);
+            src[e] = a; dst[e] = b; cost[e++] = 1;
+            src[e] = b; dst[e] = a; cost[e++] = 1;
+        }
+        for (int[] list : intra) {
+            for (int i = 0; i < list.length; i += 3) {
+                src[e] = list[i]; dst[e] = list[i + 1]; cost[e++] = list[i + 2];
+            }
+        }
+        this.edgeStart = new int[nodes + 1];
+        for (int i = 0; i < edges; i++) {
+            edgeStart[src[i] + 1]++;
+        }
+        for (int i = 0; i < nodes; i++) {
+            edgeStart[i + 1] += edgeStart[i];
+        }
+        this.edgeTarget = new int[edges];
+        this.edgeCost = new int[edges];
+        int[] fill = Arrays.copyOf(edgeStart, nodes);
+        for (int i = 0; i < edges; i++) {
+            int at = fill[src[i]]++;
+            edgeTarget[at] = dst[i];
+            edgeCost[at] = cost[i];
+        }
+    }
+
+    /**
+     * Construit l'abstraction avec des clusters de {@value #DEFAULT_CLUSTER_SIZE} cases de côté.
+     *
+     * @param fire Index du feu de la grille.
+     * @return Index hiérarchique de la grille.
+     */
+    public static ClusterIndex build(FireIndex fire) {
+        return build(fire, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * Construit l'abstraction.
+     *
+     * @param fire        Index du feu de la grille.
+     * @param clusterSize Côté des clusters, en cases (au moins 2).
+     * @return Index hiérarchique de la grille.
+     * @throws IllegalArgumentException si la taille des clusters est trop petite.
+     */
+    public static ClusterIndex build(FireIndex fire, int clusterSize) {
+        if (clusterSize < 2) {
+            throw new IllegalArgumentException("Taille de cluster invalide : " + clusterSize);
+        }
+        return new ClusterIndex(fire, clusterSize);
+    }
+
+    /** @return Index du feu sous-jacent. */
+    public FireIndex fireIndex() {
+        return fire;
+    }
+
+    /** @return Nombre d'entrées du graphe abstrait. */
+    int nodeCount() {
+        return nodeCell.length;
+    }
+
+    /**
+     * Vérifie si un prisonnier placé en (startRow, startCol) peut atteindre la sortie donnée.
+     *
+     * @param startRow Ligne de départ.
+     * @param startCol Colonne de départ.
+     * @param exitRow  Ligne de la sortie.
+     * @param exitCol  Colonne de la sortie.
+     * @return true si une évasion est possible, sinon false.
+     */
+    public boolean canEscape(int startRow, int startCol, int exitRow, int exitCol) {
+        return findPath(startRow, startCol, new int[][]{{exitRow, exitCol}}) != null;
+    }
+
+    /**
+     * Cherche un chemin sécurisé vers l'une des sorties.
+     *
+     * @param startRow Ligne de départ.
+     * @param startCol Colonne de départ.
+     * @param exits    Sorties acceptées, chacune sous la forme {ligne, colonne}.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws IllegalArgumentException si une case est hors de la grille ou si aucune sortie n'est donnée.
+     */
+    public List<Node> findPath(int startRow, int startCol, int[][] exits) {
+        fire.checkCell(startRow, startCol);
+        if (exits.length == 0) {
+            throw new IllegalArgumentException("Aucune sortie demandée.");
+        }
+        int[] exitIdx = new int[exits.length];
+        for (int e = 0; e < exits.length; e++) {
+            fire.checkCell(exits[e][0], exits[e][1]);
+            exitIdx[e] = grid.index(exits[e][0], exits[e][1]);
+        }
+        return findPath(grid.index(startRow, startCol), exitIdx, null);
+    }
+
+    /**
+     * Cherche un chemin sécurisé entre deux indices de la grille.
+     *
+     * @param startIdx Indice de la case de départ.
+     * @param exitIdx  Indices des sorties acceptées.
+     * @param stats    Statistiques de l'A* final (affinage ou repli), ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    List<Node> findPath(int startIdx, int[] exitIdx, SolveStats stats) {
+        int[] fireTime = fire.fireTimes();
+        boolean[] alive = aliveClusters(startIdx);
+        boolean[] corridor = abstractSearch(startIdx, exitIdx, fireTime, alive);
+        if (corridor != null) {
+            List<Node> path = PrimitiveAStar.aStarWithFire(grid, startIdx, exitIdx, fireTime,
+                    clusterMask(corridor), stats);
+            if (path != null) {
+                return path;
+            }
+        }
+
+        // Repli : toute la grille sauf les clusters morts
+        return PrimitiveAStar.aStarWithFire(grid, startIdx, exitIdx, fireTime, clusterMask(alive), stats);
+    }
+
+    /**
+     * Repère les clusters que le prisonnier peut encore traverser : il ne peut pas arriver dans
+     * le cluster k avant sa distance de Manhattan au cluster, et au-delà de maxFire[k] toutes
+     * ses cases brûlent.
+     *
+     * @param startIdx Indice de la case de départ.
+     * @return Vrai pour chaque cluster dont une case au moins peut être atteinte avant le feu.
+     */
+    private boolean[] aliveClusters(int startIdx) {
+        boolean[] alive = new boolean[maxFire.length];
+        int sr = grid.row(startIdx);
+        int sc = grid.col(startIdx);
+        for (int k = 0; k < alive.length; k++) {
+            int r0 = (k / clusterCols) * size;
+            int c0 = (k % clusterCols) * size;
+            int dr = Math.max(0, Math.max(r0 - sr, sr - (r0 + size - 1)));
+            int dc = Math.max(0, Math.max(c0 - sc, sc - (c0 + size - 1)));
+            alive[k] = maxFire[k] > dr + dc;
+        }
+        return alive;
+    }
+
+    /**
+     * Recherche dans le graphe des entrées, complété par le départ et les sorties, limitée aux
+     * clusters vivants.
+     *
+     * @param alive Clusters vivants ({@link #aliveClusters}).
+     * @return Clusters traversés par le chemin abstrait trouvé, ou null si aucun.
+     */
+    private boolean[] abstractSearch(int startIdx, int[] exitIdx, int[] fireTime, boolean[] alive) {
+        int nodes = nodeCell.length;
+        int start = nodes;
+        int firstExit = nodes + 1;
+        int total = firstExit + exitIdx.length;
+
+        // Distances, dans son cluster, du départ et de chaque sortie
+        int startCluster = clusterOf(startIdx);
+        int[] startDist = localBfs(startIdx);
+        int[] exitCluster = new int[exitIdx.length];
+        int[][] exitDist = new int[exitIdx.length][];
+        int[] exitX = new int[exitIdx.length];
+        int[] exitY = new int[exitIdx.length];
+        for (int e = 0; e < exitIdx.length; e++) {
+            exitCluster[e] = clusterOf(exitIdx[e]);
+            exitDist[e] = localBfs(exitIdx[e]);
+            exitX[e] = grid.row(exitIdx[e]);
+            exitY[e] = grid.col(exitIdx[e]);
+        }
+
+        int[] bestG = new int[total];
+        Arrays.fill(bestG, INF);
+        int[] parent = new int[total];
+        boolean[] closed = new boolean[total];
+        long[] heap = new long[64];
+        int heapSize = 0;
+        bestG[start] = 0;
+        parent[start] = -1;
+        heap[heapSize++] = (long) heuristic(startIdx, exitX, exitY) << 32 | start;
+
+        while (heapSize > 0) {
+            int u = (int) heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            if (closed[u]) {
+                continue;
+            }
+            closed[u] = true;
+            if (u >= firstExit) {
+                boolean[] corridor = new boolean[minFire.length];
+                for (int v = u; v >= 0; v = parent[v]) {
+                    corridor[clusterOf(cellOf(v, startIdx, exitIdx))] = true;
+                }
+                return corridor;
+            }
+
+            int g = bestG[u];
+            int cluster;
+            if (u == start) {
+                cluster = startCluster;
+                for (int v = clusterNodes[cluster]; v < clusterNodes[cluster + 1]; v++) {
+                    int d = startDist[local(nodeCell[v])];
+                    if (d >= 0) {
+                        heapSize = relax(u, v, g + d, nodeCell[v], nodeCluster[v], bestG, parent, closed,
+                                fireTime, alive, heap, heapSize, exitX, exitY);
+                        heap = growIfFull(heap, heapSize);
+                    }
+                }
+            } else {
+                cluster = nodeCluster[u];
+                for (int i = edgeStart[u]; i < edgeStart[u + 1]; i++) {
+                    int v = edgeTarget[i];
+                    heapSize = relax(u, v, g + edgeCost[i], nodeCell[v], nodeCluster[v], bestG, parent, closed,
+                            fireTime, alive, heap, heapSize, exitX, exitY);
+                    heap = growIfFull(heap, heapSize);
+                }
+            }
+            for (int e = 0; e < exitIdx.length; e++) {
+                if (exitCluster[e] != cluster) {
+                    continue;
+                }
+                int d = u == start ? startDist[local(exitIdx[e])] : exitDist[e][local(nodeCell[u])];
+                if (d >= 0) {
+                    heapSize = relax(u, firstExit + e, g + d, exitIdx[e], exitCluster[e], bestG, parent, closed,
+                            fireTime, alive, heap, heapSize, exitX, exitY);
+                    heap = growIfFull(heap, heapSize);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Met à jour un nœud abstrait si le nouveau coût est meilleur et atteint la case avant le feu.
+     * Les bornes du cluster de la case tranchent d'abord sans lire la table du feu : une arrivée
+     * dans un cluster mort ou après sa dernière case brûlée est écartée, une arrivée avant sa
+     * première case brûlée est sûre.
+     *
+     * @return Nouvelle taille du tas.
+     */
+    private int relax(int u, int v, int ng, int cell, int cluster, int[] bestG, int[] parent, boolean[] closed,
+                      int[] fireTime, boolean[] alive, long[] heap, int heapSize, int[] exitX, int[] exitY) {
+        if (closed[v] || ng >= bestG[v] || !alive[cluster] || ng >= maxFire[cluster]
+                || ng >= minFire[cluster] && ng >= fireTime[cell]) {
+            return heapSize;
+        }
+        bestG[v] = ng;
+        parent[v] = u;
+        heap[heapSize] = (long) (ng + heuristic(cell, exitX, exitY)) << 32 | v;
+        siftUp(heap, heapSize);
+        return heapSize + 1;
+    }
+
+    private static long[] growIfFull(long[] heap, int heapSize) {
+        return heapSize == heap.length ? Arrays.copyOf(heap, heapSize << 1) : heap;
+    }
+
+    /**
+     * Case d'un nœud de la recherche abstraite (entrée, départ ou sortie).
+     */
+    private int cellOf(int v, int startIdx, int[] exitIdx) {
+        int nodes = nodeCell.length;
+        return v < nodes ? nodeCell[v] : v == nodes ? startIdx : exitIdx[v - nodes - 1];
+    }
+
+    /**
+     * Repère les segments ouverts des deux côtés d'une frontière et y place les entrées.
+     *
+     * @param first  Première case du côté intérieur de la frontière.
+     * @param across Décalage vers la case de l'autre côté.
+     * @param along  Décalage le long de la frontière.
+     * @param length Longueur de la frontière.
+     * @param pairs  Reçoit les paires (case, case de l'autre côté) de chaque entrée.
+     */
+    private void scanBorder(int first, int across, int along, int length, IntList pairs) {
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            int a = first + i * along;
+            boolean open = i < length && open(a) && open(a + across);
+            if (open && runStart < 0) {
+                runStart = i;
+            } else if (!open && runStart >= 0) {
+                int runEnd = i - 1;
+                if (runEnd - runStart + 1 >= LONG_ENTRANCE) {
+                    addEntrance(first + runStart * along, across, pairs);
+                    addEntrance(first + runEnd * along, across, pairs);
+                } else {
+                    addEntrance(first + ((runStart + runEnd) >>> 1) * along, across, pairs);
+                }
+                runStart = -1;
+            }
+        }
+    }
+
+    private static void addEntrance(int cell, int across, IntList pairs) {
+        pairs.add(cell);
+        pairs.add(cell + across);
+    }
+
+    /**
+     * Calcule les temps du feu minimal et maximal des cases ouvertes d'un cluster.
+     */
+    private void fireBounds(int k, int[] fireTime) {
+        int r0 = (k / clusterCols) * size;
+        int c0 = (k % clusterCols) * size;
+        int rows = Math.min(size, grid.rows - r0);
+        int cols = Math.min(size, grid.cols - c0);
+        int min = INF;
+        int max = 0;
+        for (int r = 0; r < rows; r++) {
+            int base = grid.index(r0 + r, c0);
+            for (int c = 0; c < cols; c++) {
+                if (open(base + c)) {
+                    min = Math.min(min, fireTime[base + c]);
+                    max = Math.max(max, fireTime[base + c]);
+                }
+            }
+        }
+        minFire[k] = min;
+        maxFire[k] = max;
+    }
+
+    /**
+     * Calcule les distances entre les entrées d'un cluster.
+     *
+     * @return Triplets (entrée, entrée, distance).
+     */
+    private int[] intraEdges(int k) {
+        int from = clusterNodes[k];
+        int to = clusterNodes[k + 1];
+        IntList edges = new IntList();
+        for (int u = from; u < to; u++) {
+            int[] dist = localBfs(nodeCell[u]);
+            for (int v = from; v < to; v++) {
+                int d = dist[local(nodeCell[v])];
+                if (v != u && d >= 0) {
+                    edges.add(u);
+                    edges.add(v);
+                    edges.add(d);
+                }
+            }
+        }
+        return Arrays.copyOf(edges.data, edges.size);
+    }
+
+    /**
+     * BFS limité au cluster d'une case.
+     *
+     * @param source Case de départ.
+     * @return Distances indexées par {@link #local(int)}, -1 pour les cases non atteintes.
+     */
+    private int[] localBfs(int source) {
+        int k = clusterOf(source);
+        int r0 = (k / clusterCols) * size;
+        int c0 = (k % clusterCols) * size;
+        int rows = Math.min(size, grid.rows - r0);
+        int cols = Math.min(size, grid.cols - c0);
+        int[] dist = new int[size * size];
+        Arrays.fill(dist, -1);
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        int sl = local(source);
+        dist[sl] = 0;
+        queue[tail++] = sl;
+        while (head < tail) {
+            int l = queue[head++];
+            int lr = l / size;
+            int lc = l - lr * size;
+            int d = dist[l] + 1;
+            int cell = grid.index(r0 + lr, c0 + lc);
+            if (lr > 0 && dist[l - size] < 0 && open(cell - grid.stride)) {
+                dist[l - size] = d;
+                queue[tail++] = l - size;
+            }
+            if (lr + 1 < rows && dist[l + size] < 0 && open(cell + grid.stride)) {
+                dist[l + size] = d;
+                queue[tail++] = l + size;
+            }
+            if (lc > 0 && dist[l - 1] < 0 && open(cell - 1)) {
+                dist[l - 1] = d;
+                queue[tail++] = l - 1;
+            }
+            if (lc + 1 < cols && dist[l + 1] < 0 && open(cell + 1)) {
+                dist[l + 1] = d;
+                queue[tail++] = l + 1;
+            }
+        }
+        return dist;
+    }
+
+    /**
+     * Bitset des cases des clusters retenus, indexé comme la grille.
+     */
+    private long[] clusterMask(boolean[] keep) {
+        long[] mask = new long[(grid.cells.length + 63) >>> 6];
+        for (int k = 0; k < keep.length; k++) {
+            if (!keep[k]) {
+                continue;
+            }
+            int r0 = (k / clusterCols) * size;
+            int c0 = (k % clusterCols) * size;
+            int rows = Math.min(size, grid.rows - r0);
+            int cols = Math.min(size, grid.cols - c0);
+            for (int r = 0; r < rows; r++) {
+                int base = grid.index(r0 + r, c0);
+                for (int idx = base; idx < base + cols; idx++) {
+                    mask[idx >>> 6] |= 1L << idx;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private boolean open(int idx) {
+        byte c = grid.cells[idx];
+        return c != Grid.WALL && c != Grid.FIRE;
+    }
+
+    private int clusterOf(int idx) {
+        return (grid.row(idx) / size) * clusterCols + grid.col(idx) / size;
+    }
+
+    /**
+     * Indice d'une case dans son cluster : (ligne % size) * size + colonne % size.
+     */
+    private int local(int idx) {
+        return (grid.row(idx) % size) * size + grid.col(idx) % size;
+    }
+
+    private int heuristic(int idx, int[] exitX, int[] exitY) {
+        int x = grid.row(idx);
+        int y = grid.col(idx);
+        int h = Math.abs(x - exitX[0]) + Math.abs(y - exitY[0]);
+        for (int e = 1; e < exitX.length; e++) {
+            h = Math.min(h, Math.abs(x - exitX[e]) + Math.abs(y - exitY[e]));
+        }
+        return h;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long key = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heap[p] <= key) {
+                break;
+            }
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long key = heap[0];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int c = 2 * i + 1;
+            if (c + 1 < size && heap[c + 1] < heap[c]) {
+                c++;
+            }
+            if (key <= heap[c]) {
+                break;
+            }
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = key;
+    }
+
+    /**
+     * Liste d'entiers extensible.
+     */
+    private static final class IntList {
+        int[] data = new int[16];
+        int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size << 1);
+            }
+            data[size++] = value;
+        }
+    }
+}
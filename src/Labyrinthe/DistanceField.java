@@ -0,0 +1,238 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+
+/**
+ * Table de distances (temps du feu, coûts g) indexée comme une {@link Grid}, rangée sur la
+ * plus petite largeur suffisante.
+ *
+ * La table commence sur 16 bits ({@code char}, 0xFFFF représentant l'infini) : sur presque
+ * toutes les cartes, aucune distance n'atteint 65 535 et la table occupe deux fois moins de
+ * mémoire (et de cache) qu'un {@code int[]}. La première distance trop grande fait passer
+ * toute la table sur 32 bits jusqu'à la fin du remplissage. Une grille de moins de 65 535 cases ne
+ * peut pas y arriver : un plus court chemin passe au plus une fois par chaque case.
+ *
+ * Une table réutilisable ({@link #reusable()}, voir {@link SolverWorkspace}) porte en plus un
+ * tampon de génération par case : une case dont le tampon n'est pas celui de la génération
+ * courante vaut l'infini, et {@link #reset} remet toute la table à l'infini en O(1). Elle
+ * garde ses deux tableaux et repart sur 16 bits à chaque remise à zéro : une grande grille
+ * élargie une fois n'impose pas les 32 bits aux petites qui la suivent.
+ *
+ * Une seule classe, sans sous-classes : les boucles des moteurs restent monomorphes et le
+ * choix de la largeur se réduit à un test prévisible. Pas thread-safe pendant le remplissage ;
+ * une table qui n'est plus modifiée peut être lue depuis plusieurs threads.
+ */
+final class DistanceField {
+
+    /** Distance infinie, telle que renvoyée par {@link #get}. */
+    static final int INF = Integer.MAX_VALUE;
+
+    /** Valeur stockée pour l'infini dans la table sur 16 bits. */
+    private static final char NARROW_INF = 0xFFFF;
+
+    /** Table sur 16 bits, ou null une fois la table élargie. */
+    private char[] narrow;
+    /** Table sur 32 bits, ou null tant que la table est étroite. */
+    private int[] wide;
+
+    /** Tableaux gardés d'une génération à l'autre (table réutilisable), ou null. */
+    private char[] narrowBuffer;
+    private int[] wideBuffer;
+
+    /** Génération de chaque case (table réutilisable), ou null. */
+    private char[] stamps;
+    /** Génération courante : seules les cases qui la portent sont renseignées. */
+    private char generation;
+    /** Nombre de cases utilisées (la capacité peut être plus grande). */
+    private int size;
+
+    private DistanceField(char[] narrow, int[] wide, int size) {
+        this.narrow = narrow;
+        this.wide = wide;
+        this.size = size;
+    }
+
+    /**
+     * Crée une table remplie d'infini, sur 16 bits.
+     *
+     * @param size Nombre de cases.
+     * @return Table vide.
+     */
+    static DistanceField infinite(int size) {
+        char[] narrow = new char[size];
+        Arrays.fill(narrow, NARROW_INF);
+        return new DistanceField(narrow, null, size);
+    }
+
+    /**
+     * Enveloppe une table d'entiers existante (partagée, sans copie).
+     *
+     * @param values Distances, Integer.MAX_VALUE pour l'infini.
+     * @return Table sur 32 bits.
+     */
+    static DistanceField of(int[] values) {
+        return new DistanceField(null, values, values.length);
+    }
+
+    /**
+     * Crée une table réutilisable, vide ; {@link #reset} la dimensionne avant chaque usage.
+     *
+     * @return Table réutilisable de taille nulle.
+     */
+    static DistanceField reusable() {
+        DistanceField field = new DistanceField(new char[0], null, 0);
+        field.narrowBuffer = field.narrow;
+        field.stamps = new char[0];
+        field.generation = 1;
+        return field;
+    }
+
+    /**
+     * Remet une table réutilisable à l'infini sur {@code size} cases, sur 16 bits. Sans
+     * agrandissement, seule la génération change ; les tampons ne sont effacés qu'une fois
+     * toutes les 65 535 remises à zéro.
+     *
+     * @param size Nombre de cases.
+     * @throws IllegalStateException si la table n'a pas été créée par {@link #reusable()}.
+     */
+    void reset(int size) {
+        if (stamps == null) {
+            throw new IllegalStateException("Table de distances non réutilisable.");
+        }
+        this.size = size;
+        if (stamps.length < size) {
+            // Les nouveaux tampons sont à 0 : aucune case n'appartient à la génération 1
+            stamps = new char[size];
+            narrowBuffer = new char[size];
+            wideBuffer = null;
+            generation = 1;
+        } else if (++generation == 0) {
+            Arrays.fill(stamps, (char) 0);
+            generation = 1;
+        }
+        // Les valeurs d'une génération passée, sur l'un ou l'autre tableau, sont masquées
+        narrow = narrowBuffer;
+        wide = null;
+    }
+
+    /**
+     * @param idx Indice de la case.
+     * @return Distance de la case, ou {@link #INF}.
+     */
+    int get(int idx) {
+        char[] s = stamps;
+        if (s != null && s[idx] != generation) {
+            return INF;
+        }
+        char[] n = narrow;
+        if (n != null) {
+            int v = n[idx];
+            return v == NARROW_INF ? INF : v;
+        }
+        return wide[idx];
+    }
+
+    /**
+     * @param idx   Indice de la case.
+     * @param value Distance positive, ou {@link #INF}.
+     */
+    void set(int idx, int value) {
+        char[] s = stamps;
+        if (s != null) {
+            s[idx] = generation;
+        }
+        char[] n = narrow;
+        if (n != null) {
+            if (value < NARROW_INF) {
+                n[idx] = (char) value;
+                return;
+            }
+            if (value == INF) {
+                n[idx] = NARROW_INF;
+                return;
+            }
+            widen();
+        }
+        wide[idx] = value;
+    }
+
+    /**
+     * Abaisse la distance d'une case si la nouvelle valeur est strictement plus petite
+     * (relaxation d'un BFS ou d'un A*, en une seule lecture de la table).
+     *
+     * @param idx   Indice de la case.
+     * @param value Distance positive proposée.
+     * @return true si la distance a été abaissée.
+     */
+    boolean lower(int idx, int value) {
+        char[] s = stamps;
+        if (s != null && s[idx] != generation) {
+            // Case encore à l'infini pour cette génération
+            set(idx, value);
+            return true;
+        }
+        char[] n = narrow;
+        if (n != null) {
+            int current = n[idx];
+            if (value < current) {
+                // current vaut au plus NARROW_INF : value tient sur 16 bits
+                n[idx] = (char) value;
+                return true;
+            }
+            if (value < NARROW_INF || current != NARROW_INF) {
+                return false;
+            }
+            widen();
+        }
+        if (value < wide[idx]) {
+            wide[idx] = value;
+            return true;
+        }
+        return false;
+    }
+
+    /** @return Nombre de cases. */
+    int size() {
+        return size;
+    }
+
+    /** @return Octets par case (2 ou 4, plus 2 pour le tampon d'une table réutilisable). */
+    int bytesPerEntry() {
+        return (narrow != null ? Character.BYTES : Integer.BYTES) + (stamps != null ? Character.BYTES : 0);
+    }
+
+    /**
+     * @return Distances sous forme d'entiers : la table elle-même si elle est sur 32 bits et
+     *         n'est pas réutilisable (partagée, ne pas modifier), sinon une copie.
+     */
+    int[] toIntArray() {
+        if (wide != null && stamps == null) {
+            return wide;
+        }
+        int[] values = new int[size];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = get(i);
+        }
+        return values;
+    }
+
+    /**
+     * Passe la table sur 32 bits. Les cases d'une génération passée sont recopiées telles
+     * quelles : leur tampon les masque toujours. Une table réutilisable reprend son tableau
+     * sur 32 bits s'il est assez grand.
+     */
+    private void widen() {
+        char[] n = narrow;
+        int[] values = wideBuffer != null && wideBuffer.length >= n.length
+                ? wideBuffer : new int[n.length];
+        if (stamps != null) {
+            wideBuffer = values;
+        }
+        for (int i = 0; i < values.length; i++) {
+            int v = n[i];
+            values[i] = v == NARROW_INF ? INF : v;
+        }
+        wide = values;
+        narrow = null;
+    }
+}
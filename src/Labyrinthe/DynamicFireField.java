@@ -0,0 +1,310 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Temps d'arrivée du feu maintenus à jour quand la carte change.
+ *
+ * Au lieu de relancer {@link LabyrinthEscape#computeFireTime(Grid)} sur toute la grille,
+ * chaque modification ne répare que la zone touchée :
+ * <ul>
+ *   <li>{@link #addFire} et {@link #removeWall} ne peuvent que diminuer des temps : un BFS
+ *       partant de la case modifiée s'arrête dès qu'il n'améliore plus rien ;</li>
+ *   <li>{@link #addWall} peut augmenter des temps : les cases qui n'ont plus de voisin au
+ *       temps t - 1 sont invalidées de proche en proche, puis recalculées à partir de la
+ *       frontière de la zone invalidée.</li>
+ * </ul>
+ * Ces réparations supposent que le feu avance d'une case par unité de temps. Sur une grille à
+ * matériaux ({@link Grid#isWeighted()}), chaque modification relance la propagation complète.
+ *
+ * La structure garde sa propre copie de la grille. Elle n'est pas thread-safe.
+ */
+final class DynamicFireField {
+
+    /** Représente une valeur très grande pour l'initialisation. */
+    private static final int INF = Integer.MAX_VALUE;
+
+    private final Grid grid;
+    private final int[] offsets;
+    private final int[] fireTime;
+    /** Grille à matériaux : pas de réparation locale. */
+    private final boolean weighted;
+
+    /** Indices courants du départ et de la sortie (-1 si recouverts). */
+    private int start;
+    private int exit;
+
+    /** Nombre de cases relues ou modifiées par la dernière mise à jour. */
+    private int lastRepairSize;
+
+    /** File réutilisée par les réparations (valeurs et indices compactés). */
+    private long[] queue = new long[64];
+
+    /**
+     * Calcule la propagation complète une première fois.
+     *
+     * @param grid Grille de départ (copiée).
+     */
+    DynamicFireField(Grid grid) {
+        this.grid = grid.copy();
+        this.offsets = this.grid.neighbourOffsets();
+        this.fireTime = LabyrinthEscape.computeFireTime(this.grid);
+        this.weighted = this.grid.isWeighted();
+        this.start = this.grid.indexOf('D');
+        this.exit = this.grid.indexOf('S');
+    }
+
+    /**
+     * @param row Ligne.
+     * @param col Colonne.
+     * @return Temps d'arrivée du feu, ou Integer.MAX_VALUE s'il ne l'atteint jamais.
+     */
+    int fireTime(int row, int col) {
+        return fireTime[grid.index(row, col)];
+    }
+
+    /** @return Nombre de cases touchées par la dernière mise à jour. */
+    int lastRepairSize() {
+        return lastRepairSize;
+    }
+
+    /** @return Copie de la grille dans son état courant. */
+    Grid grid() {
+        return grid.copy();
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe dans son état courant.
+     *
+     * @return true si une évasion est possible, sinon false.
+     */
+    boolean canEscape() {
+        return findPath() != null;
+    }
+
+    /**
+     * Cherche un chemin sécurisé de 'D' à 'S' dans l'état courant.
+     *
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    List<Node> findPath() {
+        if (start < 0 || exit < 0) {
+            return null;
+        }
+        return PrimitiveAStar.aStarWithFire(grid, start, exit, fireTime);
+    }
+
+    /**
+     * Allume une nouvelle source de feu.
+     *
+     * @param row Ligne.
+     * @param col Colonne.
+     */
+    void addFire(int row, int col) {
+        int idx = grid.index(row, col);
+        lastRepairSize = 0;
+        if (grid.cells[idx] == Grid.FIRE) {
+            return;
+        }
+        setCell(idx, Grid.FIRE);
+        if (weighted) {
+            recompute();
+            return;
+        }
+        fireTime[idx] = 0;
+        relaxFrom(idx);
+    }
+
+    /**
+     * Ouvre un mur : la case devient vide.
+     *
+     * @param row Ligne.
+     * @param col Colonne.
+     */
+    void removeWall(int row, int col) {
+        int idx = grid.index(row, col);
+        lastRepairSize = 0;
+        if (grid.cells[idx] != Grid.WALL) {
+            return;
+        }
+        setCell(idx, Grid.EMPTY);
+        if (weighted) {
+            recompute();
+            return;
+        }
+        int best = INF;
+        for (int k = 0; k < 4; k++) {
+            best = Math.min(best, fireTime[idx + offsets[k]]);
+        }
+        if (best != INF) {
+            fireTime[idx] = best + 1;
+            relaxFrom(idx);
+        }
+    }
+
+    /**
+     * Ferme une case par un mur (une source de feu recouverte s'éteint).
+     *
+     * @param row Ligne.
+     * @param col Colonne.
+     */
+    void addWall(int row, int col) {
+        int idx = grid.index(row, col);
+        lastRepairSize = 0;
+        if (grid.cells[idx] == Grid.WALL) {
+            return;
+        }
+        setCell(idx, Grid.WALL);
+        if (weighted) {
+            recompute();
+            return;
+        }
+        int old = fireTime[idx];
+        fireTime[idx] = INF;
+        if (old == INF) {
+            return;
+        }
+
+        // 1) Invalidation : une case au temps t n'est plus valide si aucun voisin n'est au temps t - 1.
+        //    Les candidats sont traités par temps croissants, donc leurs appuis sont déjà à jour.
+        int[] candidates = new int[16];
+        int head = 0;
+        int tail = 0;
+        int[] invalid = new int[16];
+        int invalidSize = 0;
+        for (int k = 0; k < 4; k++) {
+            int n = idx + offsets[k];
+            if (fireTime[n] == old + 1) {
+                candidates = push(candidates, tail++, n);
+            }
+        }
+        while (head < tail) {
+            int n = candidates[head++];
+            int t = fireTime[n];
+            if (t == INF || t == 0 || isSupported(n, t)) {
+                continue;
+            }
+            fireTime[n] = INF;
+            invalid = push(invalid, invalidSize++, n);
+            for (int k = 0; k < 4; k++) {
+                int m = n + offsets[k];
+                if (fireTime[m] == t + 1) {
+                    candidates = push(candidates, tail++, m);
+                }
+            }
+        }
+        lastRepairSize = tail;
+
+        // 2) Réparation : chaque case invalidée repart de ses voisins encore valides
+        long[] seeds = new long[invalidSize];
+        int seedCount = 0;
+        for (int i = 0; i < invalidSize; i++) {
+            int n = invalid[i];
+            int best = INF;
+            for (int k = 0; k < 4; k++) {
+                best = Math.min(best, fireTime[n + offsets[k]]);
+            }
+            if (best != INF) {
+                seeds[seedCount++] = ((long) (best + 1) << 32) | n;
+            }
+        }
+        Arrays.sort(seeds, 0, seedCount);
+        propagate(seeds, seedCount);
+    }
+
+    /**
+     * Relance la propagation complète (grille à matériaux).
+     */
+    private void recompute() {
+        int[] fresh = LabyrinthEscape.computeFireTime(grid);
+        System.arraycopy(fresh, 0, fireTime, 0, fresh.length);
+        lastRepairSize = grid.rows * grid.cols;
+    }
+
+    /**
+     * Indique si une case au temps t a encore un voisin au temps t - 1.
+     */
+    private boolean isSupported(int idx, int t) {
+        for (int k = 0; k < 4; k++) {
+            if (fireTime[idx + offsets[k]] == t - 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Propage une baisse du temps de la case idx vers ses voisins.
+     */
+    private void relaxFrom(int idx) {
+        propagate(new long[]{((long) fireTime[idx] << 32) | idx}, 1);
+    }
+
+    /**
+     * Dijkstra à coûts unitaires depuis des graines triées par temps croissant.
+     * Les graines et la file FIFO sont fusionnées : les deux sont triées, on prend toujours
+     * la plus petite tête.
+     *
+     * @param seeds     Graines (temps << 32 | indice), triées.
+     * @param seedCount Nombre de graines.
+     */
+    private void propagate(long[] seeds, int seedCount) {
+        byte[] cells = grid.cells;
+        int s = 0;
+        int head = 0;
+        int tail = 0;
+        while (s < seedCount || head < tail) {
+            long entry = (head == tail || (s < seedCount && seeds[s] <= queue[head]))
+                    ? seeds[s++]
+                    : queue[head++];
+            int t = (int) (entry >>> 32);
+            int idx = (int) entry;
+            if (t > fireTime[idx]) {
+                continue;
+            }
+            fireTime[idx] = t;
+            lastRepairSize++;
+            for (int k = 0; k < 4; k++) {
+                int n = idx + offsets[k];
+                if (cells[n] != Grid.WALL && fireTime[n] > t + 1) {
+                    fireTime[n] = t + 1;
+                    if (tail == queue.length) {
+                        if (head > 0) {
+                            System.arraycopy(queue, head, queue, 0, tail - head);
+                            tail -= head;
+                            head = 0;
+                        } else {
+                            queue = Arrays.copyOf(queue, queue.length << 1);
+                        }
+                    }
+                    queue[tail++] = ((long) (t + 1) << 32) | n;
+                }
+            }
+        }
+    }
+
+    /**
+     * Modifie une case en tenant à jour les positions du départ et de la sortie.
+     */
+    private void setCell(int idx, byte value) {
+        grid.cells[idx] = value;
+        if (idx == start) {
+            start = -1;
+        }
+        if (idx == exit) {
+            exit = -1;
+        }
+    }
+
+    /**
+     * Ajoute une valeur à un tableau en l'agrandissant si nécessaire.
+     */
+    private static int[] push(int[] array, int size, int value) {
+        if (size == array.length) {
+            array = Arrays.copyOf(array, size << 1);
+        }
+        array[size] = value;
+        return array;
+    }
+}
@@ -0,0 +1,36 @@
+package Labyrinthe;
+
+import java.util.Locale;
+
+/**
+ * Moteurs de résolution disponibles pour {@link LabyrinthEscape#canEscape(Grid, Engine)}.
+ */
+enum Engine {
+
+    /** BFS multi-source du feu puis A* ({@link PrimitiveAStar}). Moteur par défaut. */
+    ASTAR,
+
+    /** Propagation simultanée du feu et du prisonnier, réponse Y/N seulement ({@link LockstepSolver}). */
+    LOCKSTEP,
+
+    /** Propagation bit à bit, 64 cases par opération ({@link BitsetSolver}). */
+    BITSET,
+
+    /** BFS multi-source du feu puis recherche par points de saut ({@link JumpPointSearch}). */
+    JPS;
+
+    /**
+     * Lit le nom d'un moteur, sans tenir compte de la casse.
+     *
+     * @param name Nom du moteur ("astar", "lockstep"...).
+     * @return Moteur correspondant.
+     * @throws IllegalArgumentException si le nom est inconnu.
+     */
+    static Engine parse(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Moteur inconnu : " + name);
+        }
+    }
+}
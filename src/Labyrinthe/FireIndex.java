@@ -0,0 +1,231 @@
+package Labyrinthe;
+
+import java.util.List;
+
+/**
+ * Temps d'arrivée du feu d'une grille, calculés une seule fois et partagés entre
+ * autant de requêtes que nécessaire.
+ *
+ * L'index est immuable et peut être interrogé depuis plusieurs threads en même temps :
+ * chaque requête ne fait que lire la grille et la table du feu, et n'alloue que son propre
+ * état de recherche. La grille ne doit plus être modifiée après la construction de l'index.
+ */
+public final class FireIndex {
+
+    private final Grid grid;
+    private final DistanceField fireTime;
+    /** Grille à matériaux : la recherche par points de saut ne s'y applique pas. */
+    private final boolean weighted;
+    /** Table du feu sur 32 bits, copiée à la première demande de {@link #fireTimes()}. */
+    private volatile int[] wideFireTime;
+
+    private FireIndex(Grid grid, DistanceField fireTime, boolean weighted) {
+        this.grid = grid;
+        this.fireTime = fireTime;
+        this.weighted = weighted;
+    }
+
+    /**
+     * Calcule la propagation du feu sur une grille.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return Index du feu de cette grille.
+     */
+    public static FireIndex build(Grid grid) {
+        return build(grid, null);
+    }
+
+    /**
+     * Calcule la propagation du feu sur une grille en mesurant sa durée.
+     *
+     * @param grid  Grille du labyrinthe.
+     * @param stats Statistiques à remplir, ou null.
+     * @return Index du feu de cette grille.
+     */
+    static FireIndex build(Grid grid, SolveStats stats) {
+        return build(grid, stats, null);
+    }
+
+    /**
+     * Calcule la propagation du feu sur une grille sous l'observation d'un moniteur.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param stats   Statistiques à remplir, ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Index du feu de cette grille.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static FireIndex build(Grid grid, SolveStats stats, SolveMonitor monitor) {
+        return build(grid, grid.scan(), stats, monitor);
+    }
+
+    /**
+     * Calcule la propagation du feu sur une grille déjà analysée.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param scan    Prétraitement de la grille.
+     * @param stats   Statistiques à remplir, ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Index du feu de cette grille.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static FireIndex build(Grid grid, GridScan scan, SolveStats stats, SolveMonitor monitor) {
+        long begin = stats == null ? 0 : System.nanoTime();
+        DistanceField fireTime = LabyrinthEscape.computeFireField(grid, scan, stats, monitor);
+        if (stats != null) {
+            stats.fireNanos = System.nanoTime() - begin;
+        }
+        return new FireIndex(grid, fireTime, scan.weighted);
+    }
+
+    /** @return Grille indexée. */
+    public Grid grid() {
+        return grid;
+    }
+
+    /**
+     * @param row Ligne.
+     * @param col Colonne.
+     * @return Temps d'arrivée du feu sur la case, ou Integer.MAX_VALUE s'il ne l'atteint jamais.
+     */
+    public int fireTime(int row, int col) {
+        checkCell(row, col);
+        return fireTime.get(grid.index(row, col));
+    }
+
+    /** @return Table des temps du feu, indexée comme la grille (partagée, ne pas modifier). */
+    DistanceField fireField() {
+        return fireTime;
+    }
+
+    /**
+     * Table des temps du feu sur 32 bits, pour les moteurs qui lisent un {@code int[]}
+     * (points de saut, hiérarchie de clusters). Elle n'est construite qu'à la première demande.
+     *
+     * @return Table des temps du feu, indexée comme la grille (partagée, ne pas modifier).
+     */
+    int[] fireTimes() {
+        int[] wide = wideFireTime;
+        if (wide == null) {
+            // Deux threads peuvent faire la copie en même temps : elles sont identiques
+            wide = fireTime.toIntArray();
+            wideFireTime = wide;
+        }
+        return wide;
+    }
+
+    /**
+     * Vérifie si un prisonnier placé en (startRow, startCol) peut atteindre la sortie donnée.
+     *
+     * @param startRow Ligne de départ.
+     * @param startCol Colonne de départ.
+     * @param exitRow  Ligne de la sortie.
+     * @param exitCol  Colonne de la sortie.
+     * @return true si une évasion est possible, sinon false.
+     */
+    public boolean canEscape(int startRow, int startCol, int exitRow, int exitCol) {
+        return findPath(startRow, startCol, new int[][]{{exitRow, exitCol}}) != null;
+    }
+
+    /**
+     * Vérifie si un prisonnier placé en (startRow, startCol) peut atteindre l'une des sorties.
+     *
+     * @param startRow Ligne de départ.
+     * @param startCol Colonne de départ.
+     * @param exits    Sorties acceptées, chacune sous la forme {ligne, colonne}.
+     * @return true si une évasion est possible, sinon false.
+     */
+    public boolean canEscape(int startRow, int startCol, int[][] exits) {
+        return findPath(startRow, startCol, exits) != null;
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé vers la plus proche des sorties.
+     *
+     * @param startRow Ligne de départ.
+     * @param startCol Colonne de départ.
+     * @param exits    Sorties acceptées, chacune sous la forme {ligne, colonne}.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws IllegalArgumentException si une case est hors de la grille ou si aucune sortie n'est donnée.
+     */
+    public List<Node> findPath(int startRow, int startCol, int[][] exits) {
+        checkCell(startRow, startCol);
+        if (exits.length == 0) {
+            throw new IllegalArgumentException("Aucune sortie demandée.");
+        }
+        int[] exitIdx = new int[exits.length];
+        for (int e = 0; e < exits.length; e++) {
+            checkCell(exits[e][0], exits[e][1]);
+            exitIdx[e] = grid.index(exits[e][0], exits[e][1]);
+        }
+        return findPath(grid.index(startRow, startCol), exitIdx);
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé entre deux indices de la grille.
+     *
+     * @param startIdx Indice de la case de départ.
+     * @param exitIdx  Indices des sorties acceptées.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    List<Node> findPath(int startIdx, int[] exitIdx) {
+        return findPath(startIdx, exitIdx, null);
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé en mesurant la recherche.
+     *
+     * @param startIdx Indice de la case de départ.
+     * @param exitIdx  Indices des sorties acceptées.
+     * @param stats    Statistiques à remplir, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    List<Node> findPath(int startIdx, int[] exitIdx, SolveStats stats) {
+        return findPath(startIdx, exitIdx, Engine.ASTAR, stats);
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé avec l'algorithme de recherche choisi.
+     *
+     * @param startIdx Indice de la case de départ.
+     * @param exitIdx  Indices des sorties acceptées.
+     * @param engine   {@link Engine#JPS} pour la recherche par points de saut, A* sinon.
+     * @param stats    Statistiques à remplir, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    List<Node> findPath(int startIdx, int[] exitIdx, Engine engine, SolveStats stats) {
+        return findPath(startIdx, exitIdx, engine, stats, null);
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé sous l'observation d'un moniteur. Sur une grille
+     * à matériaux, la recherche se fait toujours par l'A*.
+     *
+     * @param startIdx Indice de la case de départ.
+     * @param exitIdx  Indices des sorties acceptées.
+     * @param engine   {@link Engine#JPS} pour la recherche par points de saut, A* sinon.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    List<Node> findPath(int startIdx, int[] exitIdx, Engine engine, SolveStats stats, SolveMonitor monitor) {
+        long begin = stats == null ? 0 : System.nanoTime();
+        List<Node> path = engine == Engine.JPS && !weighted
+                ? JumpPointSearch.findPath(grid, startIdx, exitIdx, fireTime, stats, monitor)
+                : PrimitiveAStar.aStarWithFire(grid, startIdx, exitIdx, fireTime, null, stats, monitor);
+        if (stats != null) {
+            stats.searchNanos = System.nanoTime() - begin;
+        }
+        return path;
+    }
+
+    /**
+     * Vérifie qu'une case est dans la grille.
+     */
+    void checkCell(int row, int col) {
+        if (row < 0 || row >= grid.rows || col < 0 || col >= grid.cols) {
+            throw new IllegalArgumentException("Case hors de la grille : (" + row + ", " + col + ")");
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+
+/**
+ * Grille de labyrinthe stockée dans un unique tableau d'octets contigu.
+ *
+ * Chaque case contient le caractère lu dans le fichier ('#', 'F', 'D', 'S', '.'...).
+ * La grille est entourée d'une bordure de murs : une case (r, c) est rangée à l'indice
+ * (r + 1) * stride + (c + 1), avec stride = cols + 2. Les quatre voisins d'un indice
+ * s'obtiennent donc par simple addition de {@link #neighbourOffsets()}, sans test de bornes.
+ *
+ * Certaines cases ouvertes sont faites de matériaux qui brûlent lentement : le feu met
+ * {@link #spreadCost} unités de temps à gagner une telle case depuis un voisin en feu (1 pour
+ * une case ordinaire). Le prisonnier, lui, les traverse toujours en un pas.
+ */
+public final class Grid {
+
+    /** Caractère d'un mur. */
+    static final byte WALL = '#';
+
+    /** Caractère d'une source de feu. */
+    static final byte FIRE = 'F';
+
+    /** Caractère du départ du prisonnier. */
+    static final byte START = 'D';
+
+    /** Caractère de la sortie. */
+    static final byte EXIT = 'S';
+
+    /** Caractère d'une case vide. */
+    static final byte EMPTY = '.';
+
+    /** Caractère d'une case de béton : le feu met 5 unités de temps à la gagner. */
+    static final byte CONCRETE = 'B';
+
+    /** Caractère d'une porte coupe-feu : le feu met 20 unités de temps à la franchir. */
+    static final byte FIRE_DOOR = 'P';
+
+    /** Plus grand délai de propagation d'une case ({@link #spreadCost}). */
+    static final int MAX_SPREAD_COST = 20;
+
+    /** Plus grand tableau de cases, bordure comprise (limite des tableaux Java). */
+    static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    /** Délai de propagation de chaque caractère (1 sauf pour les matériaux). */
+    private static final byte[] SPREAD_COST = new byte[256];
+
+    static {
+        Arrays.fill(SPREAD_COST, (byte) 1);
+        SPREAD_COST[CONCRETE] = 5;
+        SPREAD_COST[FIRE_DOOR] = MAX_SPREAD_COST;
+    }
+
+    /** Nombre de lignes (hors bordure). */
+    final int rows;
+
+    /** Nombre de colonnes (hors bordure). */
+    final int cols;
+
+    /** Pas entre deux lignes consécutives dans {@link #cells}. */
+    final int stride;
+
+    /** Cases de la grille, bordure de murs comprise. */
+    final byte[] cells;
+
+    /**
+     * Prétraitement fait à la lecture ({@link LabyrinthReader}), ou null. Seul
+     * {@link #setRow} l'invalide : une grille modifiée par écriture directe dans
+     * {@link #cells} ne doit pas en porter.
+     */
+    GridScan scan;
+
+    /**
+     * Crée une grille vide (cases '.') entourée de murs.
+     *
+     * @param rows Nombre de lignes.
+     * @param cols Nombre de colonnes.
+     * @throws IllegalArgumentException si les dimensions sont négatives ou trop grandes.
+     */
+    public Grid(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = cols + 2;
+        this.cells = new byte[paddedSize(rows, cols)];
+        Arrays.fill(cells, WALL);
+        for (int r = 0; r < rows; r++) {
+            Arrays.fill(cells, index(r, 0), index(r, 0) + cols, EMPTY);
+        }
+    }
+
+    /**
+     * Taille du tableau de cases d'une grille, bordure comprise, calculée sans débordement.
+     *
+     * @param rows Nombre de lignes.
+     * @param cols Nombre de colonnes.
+     * @return (rows + 2) * (cols + 2).
+     * @throws IllegalArgumentException si les dimensions sont négatives ou trop grandes.
+     */
+    static int paddedSize(long rows, long cols) {
+        if (rows < 0 || cols < 0) {
+            throw new IllegalArgumentException("Dimensions invalides : " + rows + " x " + cols);
+        }
+        // Facteurs bornés d'abord : le produit tient alors dans un long
+        if (rows + 2 > MAX_CELLS || cols + 2 > MAX_CELLS || (rows + 2) * (cols + 2) > MAX_CELLS) {
+            throw new IllegalArgumentException("Grille trop grande : " + rows + " x " + cols);
+        }
+        return (int) ((rows + 2) * (cols + 2));
+    }
+
+    /**
+     * Crée une grille à partir d'un tableau de cases déjà bordé de murs.
+     */
+    private Grid(int rows, int cols, byte[] cells) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = cols + 2;
+        this.cells = cells;
+    }
+
+    /**
+     * @return Copie indépendante de la grille.
+     */
+    public Grid copy() {
+        return new Grid(rows, cols, cells.clone());
+    }
+
+    /**
+     * Adaptateur depuis l'ancienne représentation en tableau de caractères.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return Grille équivalente.
+     */
+    public static Grid of(char[][] grid) {
+        Grid result = new Grid(grid.length, grid.length == 0 ? 0 : grid[0].length);
+        for (int r = 0; r < result.rows; r++) {
+            result.setRow(r, new String(grid[r]));
+        }
+        return result;
+    }
+
+    /**
+     * Adaptateur vers l'ancienne représentation en tableau de caractères.
+     *
+     * @return Copie de la grille sous forme de tableau 2D.
+     */
+    public char[][] toCharArray() {
+        char[][] grid = new char[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            int base = index(r, 0);
+            for (int c = 0; c < cols; c++) {
+                grid[r][c] = (char) (cells[base + c] & 0xFF);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Copie les M premiers caractères d'une ligne lue dans la ligne r de la grille.
+     *
+     * @param r    Indice de la ligne.
+     * @param line Ligne lue (au moins cols caractères).
+     */
+    public void setRow(int r, CharSequence line) {
+        scan = null;
+        int base = index(r, 0);
+        for (int c = 0; c < cols; c++) {
+            cells[base + c] = (byte) line.charAt(c);
+        }
+    }
+
+    /**
+     * Copie cols octets bruts dans la ligne r de la grille.
+     *
+     * @param r   Indice de la ligne.
+     * @param src Octets de la ligne.
+     * @param off Position du premier octet dans src.
+     */
+    public void setRow(int r, byte[] src, int off) {
+        scan = null;
+        System.arraycopy(src, off, cells, index(r, 0), cols);
+    }
+
+    /** @return Nombre de lignes. */
+    public int rows() {
+        return rows;
+    }
+
+    /** @return Nombre de colonnes. */
+    public int cols() {
+        return cols;
+    }
+
+    /** @return Taille du tableau de cases, bordure comprise. */
+    int size() {
+        return cells.length;
+    }
+
+    /**
+     * @param r Ligne.
+     * @param c Colonne.
+     * @return Indice de la case (r, c) dans {@link #cells}.
+     */
+    int index(int r, int c) {
+        return (r + 1) * stride + c + 1;
+    }
+
+    /**
+     * @param idx Indice d'une case.
+     * @return Ligne de la case.
+     */
+    int row(int idx) {
+        return idx / stride - 1;
+    }
+
+    /**
+     * @param idx Indice d'une case.
+     * @return Colonne de la case.
+     */
+    int col(int idx) {
+        return idx % stride - 1;
+    }
+
+    /**
+     * Décalages des voisins dans l'ordre Haut, Droite, Bas, Gauche.
+     *
+     * @return Nouveau tableau de quatre décalages.
+     */
+    int[] neighbourOffsets() {
+        return new int[]{-stride, 1, stride, -1};
+    }
+
+    /**
+     * @param r Ligne.
+     * @param c Colonne.
+     * @return Caractère de la case (r, c).
+     */
+    public char charAt(int r, int c) {
+        return (char) (cells[index(r, c)] & 0xFF);
+    }
+
+    /**
+     * @param cell Caractère d'une case ouverte.
+     * @return Temps que met le feu à gagner la case depuis un voisin en feu (1 à
+     *         {@link #MAX_SPREAD_COST}).
+     */
+    static int spreadCost(byte cell) {
+        return SPREAD_COST[cell & 0xFF];
+    }
+
+    /**
+     * Indique si la grille contient des matériaux : le feu ne s'y propage plus d'un pas par
+     * unité de temps, et seuls les moteurs à base d'A* s'y appliquent.
+     *
+     * @return true si une case a un délai de propagation supérieur à 1.
+     */
+    boolean isWeighted() {
+        for (int r = 0; r < rows; r++) {
+            int base = index(r, 0);
+            for (int idx = base; idx < base + cols; idx++) {
+                if (SPREAD_COST[cells[idx] & 0xFF] > 1) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Départ, sortie, sources de feu, matériaux et cases ouvertes en un seul passage : celui
+     * fait à la lecture s'il existe, sinon un nouveau (non conservé, la grille pouvant encore
+     * être modifiée).
+     *
+     * @return Prétraitement de la grille.
+     */
+    GridScan scan() {
+        GridScan result = scan;
+        return result != null ? result : GridScan.of(this);
+    }
+
+    /**
+     * Retrouve l'indice de la première case contenant un caractère donné.
+     *
+     * @param target Caractère à rechercher ('D', 'S', etc.).
+     * @return Indice de la case, ou -1 si introuvable.
+     */
+    int indexOf(char target) {
+        byte b = (byte) target;
+        for (int r = 0; r < rows; r++) {
+            int base = index(r, 0);
+            for (int idx = base; idx < base + cols; idx++) {
+                if (cells[idx] == b) {
+                    return idx;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,233 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+
+/**
+ * Résultat du prétraitement d'une grille, obtenu en un seul passage sur ses cases : départ,
+ * sortie, sources de feu, présence de matériaux et masque des cases ouvertes.
+ *
+ * Les moteurs en avaient chacun leur propre balayage (indexOf('D'), indexOf('S'), recherche
+ * des 'F', {@link Grid#isWeighted()}, bitset des cases ouvertes) : la grille était relue
+ * jusqu'à cinq fois avant le premier pas. {@link LabyrinthReader} remplit ce résultat ligne par
+ * ligne, juste après avoir copié chaque ligne (encore en cache), et le range dans la grille
+ * ({@link Grid#scan()}).
+ *
+ * Chaque ligne est analysée par un {@link RowScanner} : celui de l'API Vector
+ * ({@code jdk.incubator.vector}, voir {@link VectorRowScanner}) compare 16 à 64 octets par
+ * instruction quand le module est chargé ({@code --add-modules jdk.incubator.vector}), sinon
+ * une boucle scalaire donne le même résultat.
+ *
+ * Le résultat est immuable ; les tableaux exposés ne doivent pas être modifiés.
+ */
+final class GridScan {
+
+    /** Analyseur de lignes choisi au chargement de la classe. */
+    private static final RowScanner SCANNER = loadScanner();
+
+    /** Indice du départ 'D' (premier dans l'ordre des lignes), ou -1. */
+    final int start;
+
+    /** Indice de la sortie 'S' (première dans l'ordre des lignes), ou -1. */
+    final int exit;
+
+    /** Indices des sources de feu, dans l'ordre des lignes ({@link #fireCount} premiers). */
+    final int[] fires;
+
+    /** Nombre de sources de feu. */
+    final int fireCount;
+
+    /** Vrai si la grille contient des matériaux ({@link Grid#isWeighted()}). */
+    final boolean weighted;
+
+    /**
+     * Cases ouvertes (complément des murs), un bit par case : la ligne r occupe les
+     * {@link #words} mots à partir de r * words, la colonne c étant le bit c &amp; 63 du mot
+     * c &gt;&gt;&gt; 6. C'est la disposition de {@link BitsetSolver}.
+     */
+    final long[] open;
+
+    /** Mots de 64 bits par ligne de {@link #open}. */
+    final int words;
+
+    private GridScan(Builder builder) {
+        this.start = builder.start;
+        this.exit = builder.exit;
+        this.fires = builder.fires;
+        this.fireCount = builder.fireCount;
+        this.weighted = builder.weighted;
+        this.open = builder.open;
+        this.words = builder.words;
+    }
+
+    /**
+     * Analyse toutes les lignes d'une grille.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return Résultat du prétraitement.
+     */
+    static GridScan of(Grid grid) {
+        Builder builder = new Builder(grid.rows, grid.cols);
+        for (int r = 0; r < grid.rows; r++) {
+            builder.row(r, grid.cells, grid.index(r, 0));
+        }
+        return builder.build();
+    }
+
+    /** @return Nom de l'analyseur de lignes utilisé ("vector" ou "scalar"). */
+    static String scannerName() {
+        return SCANNER.name();
+    }
+
+    /**
+     * Charge l'analyseur de l'API Vector si le module est présent, l'analyseur scalaire sinon.
+     * La classe vectorielle n'est jamais chargée sans le module : elle ne pourrait pas être liée.
+     */
+    private static RowScanner loadScanner() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (RowScanner) Class.forName("Labyrinthe.VectorRowScanner")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Module présent mais inutilisable : repli scalaire
+            }
+        }
+        return new ScalarRowScanner();
+    }
+
+    /**
+     * Analyse d'une ligne de cases : met à jour le constructeur avec ses murs, feux, départ,
+     * sortie et matériaux.
+     */
+    interface RowScanner {
+
+        /**
+         * @param cells Cases de la grille.
+         * @param base  Indice de la première case de la ligne.
+         * @param cols  Nombre de cases de la ligne.
+         * @param word  Indice du premier mot de la ligne dans {@link Builder#open}.
+         * @param out   Constructeur à mettre à jour.
+         */
+        void scan(byte[] cells, int base, int cols, int word, Builder out);
+
+        /** @return Nom court de l'analyseur. */
+        String name();
+    }
+
+    /**
+     * Accumule l'analyse d'une grille ligne par ligne.
+     */
+    static final class Builder {
+
+        int start = -1;
+        int exit = -1;
+        int[] fires = new int[16];
+        int fireCount;
+        boolean weighted;
+        final long[] open;
+        final int words;
+        private final int cols;
+
+        /**
+         * @param rows Nombre de lignes de la grille.
+         * @param cols Nombre de colonnes de la grille.
+         */
+        Builder(int rows, int cols) {
+            this.cols = cols;
+            this.words = (cols + 63) >>> 6;
+            this.open = new long[rows * words];
+        }
+
+        /**
+         * Analyse la ligne r, rangée à partir de cells[base].
+         *
+         * @param r     Indice de la ligne.
+         * @param cells Cases de la grille.
+         * @param base  Indice de la première case de la ligne.
+         */
+        void row(int r, byte[] cells, int base) {
+            SCANNER.scan(cells, base, cols, r * words, this);
+        }
+
+        /**
+         * Ajoute une source de feu.
+         *
+         * @param idx Indice de la case.
+         */
+        void fire(int idx) {
+            if (fireCount == fires.length) {
+                fires = Arrays.copyOf(fires, fireCount << 1);
+            }
+            fires[fireCount++] = idx;
+        }
+
+        /** @return Résultat de l'analyse. */
+        GridScan build() {
+            return new GridScan(this);
+        }
+    }
+
+    /**
+     * Analyse case par case, sans dépendance : le repli quand l'API Vector est absente, et la
+     * fin de ligne (moins d'un vecteur) de l'analyseur vectoriel.
+     */
+    static final class ScalarRowScanner implements RowScanner {
+
+        @Override
+        public void scan(byte[] cells, int base, int cols, int word, Builder out) {
+            scanRange(cells, base, 0, cols, word, out);
+        }
+
+        /**
+         * Analyse les colonnes [from, to) d'une ligne. Les bits des cases ouvertes sont
+         * accumulés sans branchement et écrits une fois par mot ; seules les cases autres que
+         * '#' et '.', rares, passent par {@link #rare}.
+         */
+        static void scanRange(byte[] cells, int base, int from, int to, int word, Builder out) {
+            long[] open = out.open;
+            long bits = 0;
+            for (int c = from; c < to; c++) {
+                byte cell = cells[base + c];
+                bits |= (long) (cell != Grid.WALL ? 1 : 0) << c;
+                // '&' plutôt que '&&' : un seul branchement, presque jamais pris
+                if (cell != Grid.EMPTY & cell != Grid.WALL) {
+                    rare(base + c, cell, out);
+                }
+                if ((c & 63) == 63) {
+                    open[word + (c >>> 6)] |= bits;
+                    bits = 0;
+                }
+            }
+            if (from < to) {
+                open[word + ((to - 1) >>> 6)] |= bits;
+            }
+        }
+
+        /**
+         * Prend en compte une case qui n'est ni un mur ni une case vide.
+         *
+         * @param idx  Indice de la case.
+         * @param cell Caractère de la case.
+         * @param out  Constructeur à mettre à jour.
+         */
+        static void rare(int idx, byte cell, Builder out) {
+            if (cell == Grid.FIRE) {
+                out.fire(idx);
+            } else if (cell == Grid.START) {
+                if (out.start < 0) {
+                    out.start = idx;
+                }
+            } else if (cell == Grid.EXIT) {
+                if (out.exit < 0) {
+                    out.exit = idx;
+                }
+            } else if (Grid.spreadCost(cell) > 1) {
+                out.weighted = true;
+            }
+        }
+
+        @Override
+        public String name() {
+            return "scalar";
+        }
+    }
+}
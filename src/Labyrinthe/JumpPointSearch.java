@@ -0,0 +1,454 @@
+package Labyrinthe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recherche par points de saut (JPS) en 4-connexité, avec la même contrainte de feu que
+ * {@link PrimitiveAStar} : le prisonnier n'entre dans une case au temps t que si
+ * {@code t < fireTime}.
+ *
+ * Parmi les plus courts chemins, seuls les chemins « horizontaux d'abord » sont explorés :
+ * un saut horizontal lance à chaque case deux balayages verticaux et s'arrête dès que l'un
+ * d'eux trouve un point de saut ; un saut vertical s'arrête sur une sortie ou sur un voisin
+ * forcé (case latérale ouverte alors que la case latérale précédente est bloquée). Seuls les
+ * points de saut passent par la file de priorité, ce qui réduit fortement le nombre de nœuds
+ * sur les grandes grilles ouvertes.
+ *
+ * Le feu se propage d'un pas par unité de temps : les temps du feu de deux cases voisines
+ * diffèrent d'au plus 1. La marge {@code fireTime - t} du prisonnier ne peut donc que
+ * diminuer le long d'un chemin : le long d'un saut, le feu ne peut que commencer à bloquer,
+ * jamais cesser de bloquer. Un saut s'arrête ainsi à la première case atteinte trop tard,
+ * comme devant un mur, et tous les plus courts chemins vers une case y arrivent avec la même
+ * marge : le chemin canonique est sûr dès qu'un plus court chemin l'est, et les longueurs
+ * trouvées sont exactement celles de l'A*.
+ *
+ * Sur une grille à matériaux ({@link Grid#isWeighted()}), les temps du feu de deux voisines
+ * peuvent différer de plus de 1 et ce raisonnement tombe : les appelants utilisent l'A*.
+ *
+ * Comme pour l'A*, les coûts g, l'ensemble fermé et le parent de chaque point de saut sont
+ * empruntés à la réserve de tables ({@link SolverWorkspace}) : une recherche n'alloue ni ne
+ * parcourt de table de la taille de la grille.
+ */
+final class JumpPointSearch {
+
+    private final byte[] cells;
+    private final DistanceField fireTime;
+    private final int stride;
+    private final int[] exits;
+
+    private JumpPointSearch(Grid grid, int[] exits, DistanceField fireTime) {
+        this.cells = grid.cells;
+        this.fireTime = fireTime;
+        this.stride = grid.stride;
+        this.exits = exits;
+    }
+
+    /**
+     * Cherche un chemin sécurisé vers la plus proche de plusieurs sorties.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> findPath(Grid grid, int startIdx, int[] exits, int[] fireTime) {
+        return findPath(grid, startIdx, exits, fireTime, null);
+    }
+
+    /**
+     * Cherche un chemin sécurisé vers la plus proche de plusieurs sorties, en comptant
+     * les points de saut ajoutés et retirés de la file.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param stats    Statistiques à remplir, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> findPath(Grid grid, int startIdx, int[] exits, int[] fireTime, SolveStats stats) {
+        return findPath(grid, startIdx, exits, fireTime, stats, null);
+    }
+
+    /**
+     * Cherche un chemin sécurisé sous l'observation d'un moniteur (le front transmis est le
+     * tas des points de saut).
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    static List<Node> findPath(Grid grid, int startIdx, int[] exits, int[] fireTime, SolveStats stats,
+                               SolveMonitor monitor) {
+        return findPath(grid, startIdx, exits, DistanceField.of(fireTime), stats, monitor);
+    }
+
+    /**
+     * Cherche un chemin sécurisé à partir d'une table du feu de largeur quelconque.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    static List<Node> findPath(Grid grid, int startIdx, int[] exits, DistanceField fireTime, SolveStats stats,
+                               SolveMonitor monitor) {
+        JumpPointSearch search = new JumpPointSearch(grid, exits, fireTime);
+        SolverWorkspace workspace = SolverWorkspace.acquire();
+        try {
+            DistanceField bestG = workspace.bestG(grid.cells.length);
+            int exit = search.search(startIdx, stats, monitor, workspace, bestG);
+            if (exit < 0) {
+                return null;
+            }
+            return search.reconstructPath(grid, exit, bestG.get(exit) + 1, workspace.parents(grid.cells.length));
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Vérifie seulement qu'un chemin sécurisé existe, sans construire de nœuds.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return true si une sortie est atteinte avant le feu.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    static boolean reachesExit(Grid grid, int startIdx, int[] exits, DistanceField fireTime, SolveStats stats,
+                               SolveMonitor monitor) {
+        SolverWorkspace workspace = SolverWorkspace.acquire();
+        try {
+            return new JumpPointSearch(grid, exits, fireTime).search(startIdx, stats, monitor, workspace,
+                    workspace.bestG(grid.cells.length)) >= 0;
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Cœur de la recherche. Au retour, le coût g de chaque point de saut atteint
+     * ({@code bestG}, remise à l'infini par l'appelant) et son parent restent dans les tables
+     * du {@code workspace}, jusqu'à sa prochaine utilisation.
+     *
+     * @return Indice de la sortie atteinte, ou -1 si aucun chemin.
+     */
+    private int search(int startIdx, SolveStats stats, SolveMonitor monitor, SolverWorkspace workspace,
+                       DistanceField bestG) {
+        int[] exitX = new int[exits.length];
+        int[] exitY = new int[exits.length];
+        for (int e = 0; e < exits.length; e++) {
+            exitX[e] = exits[e] / stride;
+            exitY[e] = exits[e] % stride;
+        }
+
+        // Parent valable seulement pour les points de saut dont bestG est renseigné
+        int[] parent = workspace.parents(cells.length);
+        char[] closed = workspace.closed(cells.length);
+        char closedMark = workspace.closedMark();
+
+        // Tas binaire : clé (fCost << 32 | hCost) et indice de la case. À fCost égal, le point
+        // de saut le plus proche de la sortie passe en premier.
+        long[] keys = new long[64];
+        int[] heap = new int[64];
+        int size = 0;
+
+        bestG.set(startIdx, 0);
+        parent[startIdx] = -1;
+        int h0 = heuristic(startIdx, exitX, exitY);
+        keys[0] = (long) h0 << 32 | h0;
+        heap[size++] = startIdx;
+
+        // Compteurs pour SolveStats
+        long pushed = 1;
+        long popped = 0;
+        long stale = 0;
+        long peak = 1;
+
+        int[] successors = new int[4];
+        while (size > 0) {
+            if (monitor != null && (popped & (SolveMonitor.INTERVAL - 1)) == 0) {
+                monitor.checkpoint(SolveMonitor.Stage.SEARCH, popped, heap, 0, size);
+            }
+            int idx = heap[0];
+            size--;
+            keys[0] = keys[size];
+            heap[0] = heap[size];
+            siftDown(keys, heap, size);
+            popped++;
+
+            if (closed[idx] == closedMark) {
+                stale++;
+                continue;
+            }
+            closed[idx] = closedMark;
+
+            int g = bestG.get(idx);
+            if (isExit(idx)) {
+                record(stats, pushed, popped, stale, peak, g);
+                return idx;
+            }
+
+            int count = successors(idx, parent[idx], g, successors);
+            for (int s = 0; s < count; s++) {
+                int jp = successors[s];
+                int ng = g + distance(idx, jp);
+                if (closed[jp] != closedMark && bestG.lower(jp, ng)) {
+                    parent[jp] = idx;
+                    if (size == heap.length) {
+                        keys = Arrays.copyOf(keys, size << 1);
+                        heap = Arrays.copyOf(heap, size << 1);
+                    }
+                    int h = heuristic(jp, exitX, exitY);
+                    keys[size] = (long) (ng + h) << 32 | h;
+                    heap[size] = jp;
+                    siftUp(keys, heap, size++);
+                    pushed++;
+                    peak = Math.max(peak, size);
+                }
+            }
+        }
+        // Impossible de trouver un chemin sans être rattrapé par le feu
+        record(stats, pushed, popped, stale, peak, -1);
+        return -1;
+    }
+
+    /**
+     * Calcule les points de saut atteignables depuis un point de saut.
+     *
+     * @param idx    Point de saut courant.
+     * @param from   Point de saut précédent, ou -1 pour le départ.
+     * @param g      Temps d'arrivée sur {@code idx}.
+     * @param result Tableau recevant les points de saut trouvés.
+     * @return Nombre de points de saut trouvés.
+     */
+    private int successors(int idx, int from, int g, int[] result) {
+        int count = 0;
+        int jp;
+        if (from < 0) {
+            // Départ : les quatre directions
+            int[] dirs = {1, -1, stride, -stride};
+            for (int d : dirs) {
+                jp = d == 1 || d == -1 ? jumpHorizontal(idx, g, d) : jumpVertical(idx, g, d);
+                if (jp >= 0) {
+                    result[count++] = jp;
+                }
+            }
+        } else if (Math.abs(idx - from) < stride) {
+            // Arrivée horizontale : on continue tout droit ou on tourne
+            int dh = idx > from ? 1 : -1;
+            if ((jp = jumpHorizontal(idx, g, dh)) >= 0) {
+                result[count++] = jp;
+            }
+            if ((jp = jumpVertical(idx, g, stride)) >= 0) {
+                result[count++] = jp;
+            }
+            if ((jp = jumpVertical(idx, g, -stride)) >= 0) {
+                result[count++] = jp;
+            }
+        } else {
+            // Arrivée verticale : tout droit, plus les voisins forcés
+            int dv = idx > from ? stride : -stride;
+            if ((jp = jumpVertical(idx, g, dv)) >= 0) {
+                result[count++] = jp;
+            }
+            for (int side = -1; side <= 1; side += 2) {
+                if (open(idx + side) && !open(idx - dv + side)
+                        && (jp = jumpHorizontal(idx, g, side)) >= 0) {
+                    result[count++] = jp;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Saute horizontalement depuis {@code idx}, atteint au temps {@code t}.
+     *
+     * @return Point de saut trouvé, ou -1 si le saut bute sur un mur ou sur le feu.
+     */
+    private int jumpHorizontal(int idx, int t, int dh) {
+        while (true) {
+            idx += dh;
+            t++;
+            if (blocked(idx, t)) {
+                return -1;
+            }
+            if (isExit(idx) || jumpVertical(idx, t, stride) >= 0 || jumpVertical(idx, t, -stride) >= 0) {
+                return idx;
+            }
+        }
+    }
+
+    /**
+     * Saute verticalement depuis {@code idx}, atteint au temps {@code t}.
+     *
+     * @return Point de saut trouvé, ou -1 si le saut bute sur un mur ou sur le feu.
+     */
+    private int jumpVertical(int idx, int t, int dv) {
+        while (true) {
+            idx += dv;
+            t++;
+            if (blocked(idx, t)) {
+                return -1;
+            }
+            if (isExit(idx)
+                    || (open(idx - 1) && !open(idx - dv - 1))
+                    || (open(idx + 1) && !open(idx - dv + 1))) {
+                return idx;
+            }
+        }
+    }
+
+    /**
+     * @return true si la case n'est ni un mur ni un foyer (la bordure est faite de murs).
+     */
+    private boolean open(int idx) {
+        byte c = cells[idx];
+        return c != Grid.WALL && c != Grid.FIRE;
+    }
+
+    /**
+     * @return true si la case est fermée, ou si le feu y arrive au plus tard au temps t.
+     */
+    private boolean blocked(int idx, int t) {
+        return !open(idx) || t >= fireTime.get(idx);
+    }
+
+    private boolean isExit(int idx) {
+        // Presque toujours une seule sortie : une comparaison plutôt qu'un masque par recherche
+        for (int e : exits) {
+            if (e == idx) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Distance entre deux cases alignées.
+     */
+    private int distance(int a, int b) {
+        int d = Math.abs(a - b);
+        return d < stride ? d : d / stride;
+    }
+
+    /**
+     * Calcule l'heuristique Manhattan vers la sortie la plus proche.
+     */
+    private int heuristic(int idx, int[] exitX, int[] exitY) {
+        int x = idx / stride;
+        int y = idx - x * stride;
+        int h = Math.abs(x - exitX[0]) + Math.abs(y - exitY[0]);
+        for (int e = 1; e < exitX.length; e++) {
+            h = Math.min(h, Math.abs(x - exitX[e]) + Math.abs(y - exitY[e]));
+        }
+        return h;
+    }
+
+    private static void siftUp(long[] keys, int[] heap, int i) {
+        long key = keys[i];
+        int idx = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (keys[p] <= key) {
+                break;
+            }
+            keys[i] = keys[p];
+            heap[i] = heap[p];
+            i = p;
+        }
+        keys[i] = key;
+        heap[i] = idx;
+    }
+
+    private static void siftDown(long[] keys, int[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long key = keys[0];
+        int idx = heap[0];
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int c = 2 * i + 1;
+            if (c + 1 < size && keys[c + 1] < keys[c]) {
+                c++;
+            }
+            if (key <= keys[c]) {
+                break;
+            }
+            keys[i] = keys[c];
+            heap[i] = heap[c];
+            i = c;
+        }
+        keys[i] = key;
+        heap[i] = idx;
+    }
+
+    /**
+     * Recopie les compteurs d'une recherche dans les statistiques, si elles sont demandées.
+     */
+    private static void record(SolveStats stats, long pushed, long popped, long stale, long peak, long pathLength) {
+        if (stats != null) {
+            stats.nodesPushed = pushed;
+            stats.nodesPopped = popped;
+            stats.stalePops = stale;
+            stats.peakQueue = peak;
+            stats.pathLength = pathLength;
+        }
+    }
+
+    /**
+     * Reconstruit le chemin case par case en remontant les points de saut depuis la sortie.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param endIdx Indice de la sortie.
+     * @param length Nombre de cases du chemin (gCost de la sortie + 1).
+     * @param parent Point de saut précédent de chaque point de saut.
+     * @return Liste des nœuds constituant le chemin, de départ à arrivée.
+     */
+    private List<Node> reconstructPath(Grid grid, int endIdx, int length, int[] parent) {
+        int[] path = new int[length];
+        int g = length - 1;
+        int idx = endIdx;
+        while (parent[idx] >= 0) {
+            int from = parent[idx];
+            int step = Math.abs(idx - from) < stride ? Integer.signum(idx - from) : Integer.signum(idx - from) * stride;
+            for (int c = idx; c != from; c -= step) {
+                path[g--] = c;
+            }
+            idx = from;
+        }
+        path[0] = idx;
+
+        int endX = grid.row(endIdx);
+        int endY = grid.col(endIdx);
+        List<Node> nodes = new ArrayList<>(length);
+        Node prev = null;
+        for (int i = 0; i < length; i++) {
+            int x = grid.row(path[i]);
+            int y = grid.col(path[i]);
+            Node node = new Node(x, y, i, Math.abs(x - endX) + Math.abs(y - endY), prev);
+            nodes.add(node);
+            prev = node;
+        }
+        return nodes;
+    }
+}
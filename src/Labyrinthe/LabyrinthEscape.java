@@ -4,228 +4,716 @@
  */
 package Labyrinthe;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.BufferedWriter;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 /**
- * Représente un nœud (case) dans la grille utilisée pour le calcul du chemin.
- * Chaque nœud contient sa position, son coût, et une référence à son parent pour reconstruire le chemin.
+ * Classe principale pour résoudre le problème du labyrinthe.
+ * Lit un fichier contenant des labyrinthes, calcule le temps de propagation du feu
+ * et détermine si le chemin est possible avant que le feu n'atteigne la sortie.
  */
-class Node implements Comparable<Node> {
-    /** Coordonnée x de la case. */
-    int x;
+public class LabyrinthEscape {
 
-    /** Coordonnée y de la case. */
-    int y;
+    /** Déplacements possibles : Haut, Droite, Bas, Gauche. */
+    private static final int[] dx = {-1, 0, 1, 0};
+    private static final int[] dy = {0, 1, 0, -1};
 
-    /** Coût du chemin depuis le point de départ. */
-    int gCost;
+    /** Représente une valeur très grande pour l'initialisation. */
+    private static final int INF = Integer.MAX_VALUE;
+    /**
+     * Méthode principale du programme.
+     *
+     * Usage : {@code java Labyrinthe.LabyrinthEscape [options] [fichier | -]} (voir {@link CliOptions}).
+     * Sans fichier, lit la ressource /Labyrinthe/input.txt du JAR ; "-" lit l'entrée standard.
+     * Les résultats sont écrits au fil de l'eau, dans l'ordre des labyrinthes. Avec --batch,
+     * chaque fichier d'entrée reçoit son propre fichier de résultats (voir {@link BatchPipeline}).
+     *
+     * @param args Arguments de la ligne de commande.
+     */
+    public static void main(String[] args) {
+        CliOptions options;
+        try {
+            options = CliOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(CliOptions.USAGE);
+            return;
+        }
+        if (options.serve > 0) {
+            try {
+                serve(options);
+            } catch (IOException | InterruptedException e) {
+                System.err.println("Une erreur est survenue : " + e.getMessage());
+            }
+            return;
+        }
+        if (options.batch) {
+            try {
+                batch(options);
+            } catch (IOException | InterruptedException e) {
+                System.err.println("Une erreur est survenue : " + e.getMessage());
+            }
+            return;
+        }
 
-    /** Estimation heuristique de la distance au point de sortie. */
-    int hCost;
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII), 1 << 16);
+        try {
+            if (options.convert != null) {
+                try (LabyrinthReader reader = openInput(options.input)) {
+                    if (reader == null) {
+                        System.err.println("Resource /Labyrinthe/input.txt introuvable dans le JAR.");
+                        return;
+                    }
+                    int count = BinaryLabyrinthFile.convert(reader, Paths.get(options.convert));
+                    System.err.println(count + " labyrinthes écrits dans " + options.convert);
+                }
+                return;
+            }
+            if (options.margins) {
+                margins(options.input, out);
+                return;
+            }
+            StatsSummary summary = options.stats ? new StatsSummary() : null;
+            try (ResultCache cache = options.openCache()) {
+                if (options.input != null && !options.input.equals("-")
+                        && BinaryLabyrinthFile.isBinary(Paths.get(options.input))) {
+                    if (options.offHeap) {
+                        System.err.println("--offheap attend un fichier texte.");
+                        return;
+                    }
+                    try (BinaryLabyrinthFile file = BinaryLabyrinthFile.open(Paths.get(options.input))) {
+                        solveBinary(file, out, options, summary, cache);
+                    }
+                } else {
+                    try (LabyrinthReader reader = openInput(options.input)) {
+                        if (reader == null) {
+                            System.err.println("Resource /Labyrinthe/input.txt introuvable dans le JAR.");
+                            return;
+                        }
+                        solveText(reader, out, options, summary, cache);
+                    }
+                }
+                if (summary != null) {
+                    out.flush();
+                    System.err.print(summary);
+                }
+                if (cache != null) {
+                    out.flush();
+                    System.err.println(cache);
+                }
+            }
+        } catch (Exception e) {
+            System.err.println("Une erreur est survenue : " + e.getMessage());
+            e.printStackTrace();
+        } finally {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                System.err.println("Une erreur est survenue : " + e.getMessage());
+            }
+        }
+    }
 
-    /** Référence au parent de ce nœud, utilisée pour reconstruire le chemin. */
-    Node parent;
+    /**
+     * Résout un lot de fichiers en pipeline ; le bilan, puis les statistiques et le cache s'ils
+     * sont demandés, sont affichés sur la sortie d'erreur.
+     */
+    private static void batch(CliOptions options) throws IOException, InterruptedException {
+        int solvers = options.threads > 0 ? options.threads : Runtime.getRuntime().availableProcessors();
+        StatsSummary summary = options.stats ? new StatsSummary() : null;
+        try (ResultCache cache = options.openCache()) {
+            BatchPipeline pipeline = new BatchPipeline(options.engine, options.limits(), cache, summary,
+                    options.parsers, solvers, options.writers, options.window,
+                    options.outDir == null ? null : Paths.get(options.outDir));
+            System.err.print(pipeline.run(options.inputs));
+            if (summary != null) {
+                System.err.print(summary);
+            }
+            if (cache != null) {
+                System.err.println(cache);
+            }
+        }
+    }
 
     /**
-     * Constructeur de Node.
+     * Démarre le service HTTP et attend l'arrêt du programme ; les compteurs du service sont
+     * affichés sur la sortie d'erreur à l'arrêt.
+     */
+    private static void serve(CliOptions options) throws IOException, InterruptedException {
+        int workers = options.threads > 0 ? options.threads : Runtime.getRuntime().availableProcessors();
+        ResultCache cache = options.openCache();
+        SolveServer server = new SolveServer(new InetSocketAddress(options.serve), workers, options.queue,
+                options.engine, options.limits(), cache);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            System.err.print(server);
+            if (cache != null) {
+                try {
+                    cache.close();
+                } catch (IOException e) {
+                    System.err.println("Une erreur est survenue : " + e.getMessage());
+                }
+            }
+        }));
+        server.start();
+        System.err.println("Service de résolution sur http://localhost:" + server.address().getPort()
+                + "/ (" + workers + " résolutions simultanées)");
+        new CountDownLatch(1).await();
+    }
+
+    /**
+     * Résout un fichier texte avec le mode choisi (hors tas, parallèle ou séquentiel).
+     */
+    private static void solveText(LabyrinthReader reader, Writer out, CliOptions options, StatsSummary summary,
+                                  ResultCache cache) throws IOException {
+        if (options.offHeap) {
+            try (OffHeapSolver solver = new OffHeapSolver(Paths.get(System.getProperty("java.io.tmpdir")))) {
+                solver.solveAll(reader, out, summary);
+            }
+        } else if (options.parallel()) {
+            try (BatchSolver batch = new BatchSolver(options.threads, options.virtualThreads, options.window, options.engine,
+                    options.limits(), cache)) {
+                BatchSolver.Report report = batch.solveAll(reader, out, summary);
+                out.flush();
+                System.err.println(report);
+            }
+        } else {
+            solveAll(reader, out, options.engine, options.limits(), summary, cache);
+        }
+    }
+
+    /**
+     * Résout un fichier binaire, en parallèle ou en séquentiel.
+     */
+    private static void solveBinary(BinaryLabyrinthFile file, Writer out, CliOptions options, StatsSummary summary,
+                                    ResultCache cache) throws IOException {
+        if (options.parallel()) {
+            try (BatchSolver batch = new BatchSolver(options.threads, options.virtualThreads, options.window, options.engine,
+                    options.limits(), cache)) {
+                BatchSolver.Report report = batch.solveAll(file, out, summary);
+                out.flush();
+                System.err.println(report);
+            }
+            return;
+        }
+        SolveBudget.Limits limits = options.limits();
+        for (int t = 0; t < file.count(); t++) {
+            out.write(solveOne(file.grid(t), options.engine, limits, t + 1, summary, cache).line);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Écrit la marge de sécurité du départ de chaque labyrinthe d'un fichier texte ou binaire.
+     */
+    private static void margins(String input, Writer out) throws IOException {
+        if (input != null && !input.equals("-") && BinaryLabyrinthFile.isBinary(Paths.get(input))) {
+            try (BinaryLabyrinthFile file = BinaryLabyrinthFile.open(Paths.get(input))) {
+                for (int t = 0; t < file.count(); t++) {
+                    out.write(marginLine(file.grid(t)));
+                    out.write('\n');
+                }
+            }
+            return;
+        }
+        try (LabyrinthReader reader = openInput(input)) {
+            if (reader == null) {
+                System.err.println("Resource /Labyrinthe/input.txt introuvable dans le JAR.");
+                return;
+            }
+            marginsAll(reader, out);
+        }
+    }
+
+    /**
+     * Lit T labyrinthes et écrit pour chacun le dernier instant auquel le prisonnier peut
+     * quitter 'D' et s'échapper encore : "Y t", "Y INF" si le feu ne peut jamais l'en
+     * empêcher, "N" si l'évasion est impossible même en partant tout de suite.
      *
-     * @param x       Coordonnée x de la case.
-     * @param y       Coordonnée y de la case.
-     * @param gCost   Coût parcouru depuis le départ.
-     * @param hCost   Estimation heuristique de la distance au point de sortie.
-     * @param parent  Référence au parent de ce nœud.
+     * @param reader Lecteur de labyrinthes.
+     * @param out    Destination des résultats.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
      */
-    public Node(int x, int y, int gCost, int hCost, Node parent) {
-        this.x = x;
-        this.y = y;
-        this.gCost = gCost;
-        this.hCost = hCost;
-        this.parent = parent;
+    static void marginsAll(LabyrinthReader reader, Writer out) throws IOException {
+        int T = reader.readInt(); // Nombre de labyrinthes
+        for (int t = 0; t < T; t++) {
+            out.write(marginLine(reader.readGrid()));
+            out.write('\n');
+        }
     }
 
     /**
-     * Calcule le coût total (fCost) de ce nœud.
-     * fCost = gCost + hCost
+     * Marge de sécurité du départ d'un labyrinthe, lue dans sa {@link SafetyMap}.
      *
-     * @return Coût total du nœud.
+     * @param grid Grille du labyrinthe.
+     * @return "Y t", "Y INF" ou "N".
      */
-    public int fCost() {
-        return gCost + hCost;
+    static String marginLine(Grid grid) {
+        GridScan scan = grid.scan();
+        if (scan.start < 0 || scan.exit < 0) {
+            return "N";
+        }
+        int latest = SafetyMap.build(grid).latestAt(scan.start);
+        if (latest == SafetyMap.NEVER) {
+            return "N";
+        }
+        return latest == SafetyMap.ALWAYS ? "Y INF" : "Y " + latest;
     }
 
     /**
-     * Compare deux nœuds en fonction de leur coût total (fCost).
+     * Ouvre l'entrée désignée par la ligne de commande.
      *
-     * @param other L'autre nœud à comparer.
-     * @return Résultat de la comparaison.
+     * @param input Chemin du fichier, "-" pour l'entrée standard, null pour la ressource du JAR.
+     * @return Lecteur ouvert, ou null si la ressource par défaut est introuvable.
+     * @throws IOException si le fichier ne peut pas être ouvert.
      */
-    @Override
-    public int compareTo(Node other) {
-        return Integer.compare(this.fCost(), other.fCost());
+    private static LabyrinthReader openInput(String input) throws IOException {
+        if (input == null) {
+            // Charger input.txt en tant que ressource depuis le JAR
+            InputStream is = LabyrinthEscape.class.getResourceAsStream("/Labyrinthe/input.txt");
+            return is == null ? null : LabyrinthReader.of(is);
+        }
+        if (input.equals("-")) {
+            return LabyrinthReader.of(System.in);
+        }
+        return LabyrinthReader.open(Paths.get(input));
     }
+
     /**
-     * Vérifie si deux nœuds sont égaux en comparant leurs coordonnées.
+     * Lit T labyrinthes et écrit "Y" ou "N" pour chacun, dans l'ordre de lecture.
      *
-     * @param o Objet à comparer.
-     * @return true si les nœuds sont égaux, sinon false.
+     * @param reader Lecteur de labyrinthes.
+     * @param out    Destination des résultats.
+     * @param engine Moteur de résolution.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
      */
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Node)) return false;
-        Node n = (Node) o;
-        return this.x == n.x && this.y == n.y;
+    static void solveAll(LabyrinthReader reader, Writer out, Engine engine) throws IOException {
+        solveAll(reader, out, engine, null);
     }
+
     /**
-     * Calcule le code de hachage pour le nœud.
+     * Lit T labyrinthes et écrit "Y" ou "N" pour chacun, en mesurant chaque résolution.
      *
-     * @return Code de hachage basé sur les coordonnées.
+     * @param reader  Lecteur de labyrinthes.
+     * @param out     Destination des résultats.
+     * @param engine  Moteur de résolution.
+     * @param summary Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
      */
-    @Override
-    public int hashCode() {
-        // Combinaison simple des coordonnées
-        return 31 * x + y;
+    static void solveAll(LabyrinthReader reader, Writer out, Engine engine, StatsSummary summary)
+            throws IOException {
+        solveAll(reader, out, engine, summary, null);
     }
-}
-/**
- * Classe principale pour résoudre le problème du labyrinthe.
- * Lit un fichier contenant des labyrinthes, calcule le temps de propagation du feu
- * et détermine si le chemin est possible avant que le feu n'atteigne la sortie.
- */
-public class LabyrinthEscape {
 
-    /** Déplacements possibles : Haut, Droite, Bas, Gauche. */
-    private static final int[] dx = {-1, 0, 1, 0};
-    private static final int[] dy = {0, 1, 0, -1};
+    /**
+     * Lit T labyrinthes et écrit "Y" ou "N" pour chacun, en passant par un cache de résultats.
+     *
+     * @param reader  Lecteur de labyrinthes.
+     * @param out     Destination des résultats.
+     * @param engine  Moteur de résolution.
+     * @param summary Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @param cache   Cache des résultats, ou null.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
+     */
+    static void solveAll(LabyrinthReader reader, Writer out, Engine engine, StatsSummary summary,
+                         ResultCache cache) throws IOException {
+        solveAll(reader, out, engine, SolveBudget.Limits.NONE, summary, cache);
+    }
 
-    /** Représente une valeur très grande pour l'initialisation. */
-    private static final int INF = Integer.MAX_VALUE;
     /**
-     * Méthode principale du programme.
+     * Lit T labyrinthes et écrit pour chacun "Y", "N", ou "TIMEOUT" si sa résolution dépasse
+     * les limites ; le lot continue avec le labyrinthe suivant.
      *
-     * @param args Arguments de la ligne de commande.
+     * @param reader  Lecteur de labyrinthes.
+     * @param out     Destination des résultats.
+     * @param engine  Moteur de résolution.
+     * @param limits  Limites de chaque résolution.
+     * @param summary Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @param cache   Cache des résultats, ou null.
+     * @throws IOException si le fichier est mal formé ou si l'écriture échoue.
      */
-    public static void main(String[] args) {
-        Scanner scanner = null;
-        try {
-            // Charger input.txt en tant que ressource depuis le JAR
-            InputStream is = LabyrinthEscape.class.getResourceAsStream("/Labyrinthe/input.txt");
-            if (is == null) {
-                System.err.println("Resource /Labyrinthe/input.txt introuvable dans le JAR.");
-                return;
-            }
-            scanner = new Scanner(is);
+    static void solveAll(LabyrinthReader reader, Writer out, Engine engine, SolveBudget.Limits limits,
+                         StatsSummary summary, ResultCache cache) throws IOException {
+        int T = reader.readInt(); // Nombre de labyrinthes
+        for (int t = 0; t < T; t++) {
+            Verdict verdict = solveOne(reader.readGrid(), engine, limits, t + 1, summary, cache);
+            out.write(verdict.line);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Résout un labyrinthe d'un lot, en le mesurant si un résumé est demandé et en passant par
+     * le cache s'il y en a un.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param engine  Moteur de résolution.
+     * @param limits  Limites de la résolution.
+     * @param index   Numéro du labyrinthe dans le lot (à partir de 1).
+     * @param summary Résumé qui reçoit les statistiques du labyrinthe, ou null.
+     * @param cache   Cache des résultats, ou null.
+     * @return Réponse de la résolution.
+     */
+    static Verdict solveOne(Grid grid, Engine engine, SolveBudget.Limits limits, int index, StatsSummary summary,
+                            ResultCache cache) {
+        SolveStats stats = summary == null ? null : new SolveStats();
+        Verdict verdict = cache != null
+                ? cache.solve(grid, engine, limits, stats)
+                : solve(grid, engine, limits, stats);
+        if (summary != null) {
+            summary.add(index, stats);
+        }
+        return verdict;
+    }
 
-            int T = scanner.nextInt();    // Nombre de labyrinthes
-            List<String> results = new ArrayList<>();
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe avant que le feu n'atteigne la sortie.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(char[][] grid) {
+        return canEscape(Grid.of(grid));
+    }
 
-            for (int t = 0; t < T; t++) {
-                int N = scanner.nextInt(); // Nombre de lignes
-                int M = scanner.nextInt(); // Nombre de colonnes
-                scanner.nextLine(); // Consomme la fin de ligne
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe avant que le feu n'atteigne la sortie.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(Grid grid) {
+        return canEscape(grid, Engine.ASTAR);
+    }
 
-                char[][] grid = new char[N][M];
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe avec le moteur choisi.
+     * Si un enregistrement JFR est actif, la résolution est mesurée et publiée ({@link SolveEvent}).
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur de résolution.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(Grid grid, Engine engine) {
+        return canEscape(grid, engine, SolveEvent.recording() ? new SolveStats() : null);
+    }
 
-                for (int i = 0; i < N; i++) {
-                    if (scanner.hasNextLine()) {
-                        String line = scanner.nextLine();
-                        if (line.length() < M) {
-                            System.out.println("Ligne " + (i + 1) + " trop courte.");
-                            return;
-                        }
-                        grid[i] = line.substring(0, M).toCharArray();
-                    } else {
-                        System.out.println("Fichier de carte incomplet.");
-                        return;
-                    }
-                }
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe avec le moteur choisi,
+     * en remplissant éventuellement les statistiques de la résolution. Une grille à matériaux
+     * ({@link Grid#isWeighted()}) est toujours résolue par l'A*.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur de résolution.
+     * @param stats  Statistiques à remplir, ou null.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(Grid grid, Engine engine, SolveStats stats) {
+        return canEscape(grid, engine, stats, null);
+    }
 
-                results.add(canEscape(grid) ? "Y" : "N");
-            }
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe sous l'observation d'un moniteur,
+     * que tous les moteurs consultent régulièrement.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param engine  Moteur de résolution.
+     * @param stats   Statistiques à remplir, ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return true si une évasion est possible, sinon false.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la résolution.
+     */
+    static boolean canEscape(Grid grid, Engine engine, SolveStats stats, SolveMonitor monitor) {
+        // Départ, sortie, feux et matériaux en un seul passage, partagé par tous les moteurs
+        GridScan scan = grid.scan();
+        if (engine != Engine.ASTAR && scan.weighted) {
+            // Les autres moteurs supposent que le feu avance d'une case par unité de temps
+            engine = Engine.ASTAR;
+        }
+        boolean escaped;
+        switch (engine) {
+            case LOCKSTEP:
+                escaped = LockstepSolver.canEscape(grid, scan, stats, monitor);
+                break;
+            case BITSET:
+                long begin = stats == null ? 0 : System.nanoTime();
+                escaped = BitsetSolver.canEscape(grid, scan, monitor);
+                if (stats != null) {
+                    stats.searchNanos = System.nanoTime() - begin;
+                }
+                break;
+            case JPS:
+            case ASTAR:
+            default:
+                escaped = canEscapeSearch(grid, scan, engine, stats, monitor);
+                break;
+        }
+        if (stats != null) {
+            stats.engine = engine;
+            stats.cells = (long) grid.rows * grid.cols;
+            stats.escaped = escaped;
+            stats.commitEvent();
+        }
+        return escaped;
+    }
 
-            // Affiche tous les résultats
-            for (String result : results) {
-                System.out.println(result);
+    /**
+     * Résout un labyrinthe dans les limites données : la réponse est {@link Verdict#TIMEOUT}
+     * si le budget s'épuise avant. Avec {@link SolveBudget.Limits#escalate}, le moteur de
+     * décision rapide ({@link Engine#LOCKSTEP}) essaie d'abord sur la moitié du budget, et le
+     * moteur choisi ne reprend qu'avec ce qui reste.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur de résolution.
+     * @param limits Limites de la résolution.
+     * @param stats  Statistiques à remplir (celles de la dernière tentative), ou null.
+     * @return Réponse de la résolution.
+     */
+    static Verdict solve(Grid grid, Engine engine, SolveBudget.Limits limits, SolveStats stats) {
+        if (!limits.bounded()) {
+            return Verdict.of(stats == null ? canEscape(grid, engine) : canEscape(grid, engine, stats));
+        }
+        SolveBudget budget = limits.start();
+        if (limits.escalate && engine != Engine.LOCKSTEP) {
+            SolveBudget first = budget.share(0.5);
+            Verdict fast = solve(grid, Engine.LOCKSTEP, first, stats);
+            budget.charge(first);
+            if (fast != Verdict.TIMEOUT || budget.exhausted()) {
+                return fast;
             }
+        }
+        return solve(grid, engine, budget, stats);
+    }
 
-        } catch (Exception e) { // Remplacez FileNotFoundException par Exception
-            System.err.println("Une erreur est survenue : " + e.getMessage());
-            e.printStackTrace();
-        } finally {
-            if (scanner != null) {
-                scanner.close();
+    /**
+     * Résout un labyrinthe sous un budget déjà démarré.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur de résolution.
+     * @param budget Budget de la résolution.
+     * @param stats  Statistiques à remplir, ou null.
+     * @return Réponse de la résolution, ou {@link Verdict#TIMEOUT} si le budget s'épuise.
+     */
+    static Verdict solve(Grid grid, Engine engine, SolveBudget budget, SolveStats stats) {
+        long begin = stats == null ? 0 : System.nanoTime();
+        if (stats != null) {
+            stats.fireNanos = 0;
+            stats.timedOut = false;
+        }
+        try {
+            return Verdict.of(canEscape(grid, engine, stats, budget));
+        } catch (CancellationException e) {
+            if (stats != null) {
+                // Le temps passé compte, même sans réponse
+                stats.searchNanos = System.nanoTime() - begin - stats.fireNanos;
+                stats.engine = engine;
+                stats.cells = (long) grid.rows * grid.cols;
+                stats.escaped = false;
+                stats.timedOut = true;
             }
+            return Verdict.TIMEOUT;
         }
     }
+
     /**
-     * Vérifie s'il est possible d'échapper au labyrinthe avant que le feu n'atteigne la sortie.
+     * BFS du feu puis recherche de chemin : A* (le moteur historique) ou points de saut.
      *
-     * @param grid Grille du labyrinthe.
+     * @param grid    Grille du labyrinthe.
+     * @param scan    Prétraitement de la grille.
+     * @param engine  {@link Engine#ASTAR} ou {@link Engine#JPS}.
+     * @param stats   Statistiques à remplir, ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
      * @return true si une évasion est possible, sinon false.
      */
-    static boolean canEscape(char[][] grid) {
-        int[] start = findPosition(grid, 'D');
-        int[] end = findPosition(grid, 'S');
+    private static boolean canEscapeSearch(Grid grid, GridScan scan, Engine engine, SolveStats stats,
+                                           SolveMonitor monitor) {
+        int start = scan.start;
+        int end = scan.exit;
 
-        if (start == null || end == null) {
+        if (start < 0 || end < 0) {
             // Si pas de D ou pas de S, échec direct
             return false;
         }
 
-        int[][] fireTime = computeFireTime(grid);
-        List<Node> path = aStarWithFire(grid, start, end, fireTime);
-
-        return (path != null && !path.isEmpty());
+        // Le feu et la recherche restent dans des tables empruntées, sans allocation ; sur une
+        // grille à matériaux, JPS laisse la place à l'A*
+        SolverWorkspace workspace = SolverWorkspace.acquire();
+        try {
+            long begin = stats == null ? 0 : System.nanoTime();
+            DistanceField fireTime = workspace.fireField(grid.cells.length);
+            fillFireField(grid, scan, fireTime, workspace.queue(grid.rows * grid.cols), stats, monitor);
+            long fired = stats == null ? 0 : System.nanoTime();
+            int[] exits = {end};
+            boolean escaped = engine == Engine.JPS && !scan.weighted
+                    ? JumpPointSearch.reachesExit(grid, start, exits, fireTime, stats, monitor)
+                    : PrimitiveAStar.reachesExit(grid, start, exits, fireTime, stats, monitor);
+            if (stats != null) {
+                stats.fireNanos = fired - begin;
+                stats.searchNanos = System.nanoTime() - fired;
+            }
+            return escaped;
+        } finally {
+            workspace.release();
+        }
     }
 
     /**
      * Calcule, via un BFS multi-source, le temps d'arrivée du feu dans chaque case.
+     * Adaptateur vers {@link #computeFireTime(Grid)} pour l'ancienne représentation.
+     *
      * @param grid Grille du labyrinthe.
      * @return Tableau des temps d'arrivée du feu pour chaque case.
      */
     static int[][] computeFireTime(char[][] grid) {
-        int N = grid.length;
-        int M = grid[0].length;
-
-        int[][] fireTime = new int[N][M];
-        for (int i = 0; i < N; i++) {
-            Arrays.fill(fireTime[i], INF);
+        Grid g = Grid.of(grid);
+        int[] flat = computeFireTime(g);
+        int[][] fireTime = new int[g.rows][g.cols];
+        for (int i = 0; i < g.rows; i++) {
+            System.arraycopy(flat, g.index(i, 0), fireTime[i], 0, g.cols);
         }
+        return fireTime;
+    }
+
+    /**
+     * Calcule, via un BFS multi-source, le temps d'arrivée du feu dans chaque case.
+     * Chaque case n'est enfilée qu'une fois : la file est un simple tableau d'indices.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return Temps d'arrivée du feu pour chaque case, indexé comme la grille.
+     */
+    static int[] computeFireTime(Grid grid) {
+        return computeFireTime(grid, null);
+    }
+
+    /**
+     * Calcule, via un BFS multi-source, le temps d'arrivée du feu dans chaque case.
+     *
+     * @param grid  Grille du labyrinthe.
+     * @param stats Statistiques à remplir (cases visitées), ou null.
+     * @return Temps d'arrivée du feu pour chaque case, indexé comme la grille.
+     */
+    static int[] computeFireTime(Grid grid, SolveStats stats) {
+        return computeFireTime(grid, stats, null);
+    }
+
+    /**
+     * Calcule, via un BFS multi-source, le temps d'arrivée du feu dans chaque case, sous
+     * l'observation d'un moniteur (le front transmis est la partie non traitée de la file).
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param stats   Statistiques à remplir (cases visitées), ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Temps d'arrivée du feu pour chaque case, indexé comme la grille.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static int[] computeFireTime(Grid grid, SolveStats stats, SolveMonitor monitor) {
+        return computeFireField(grid, stats, monitor).toIntArray();
+    }
+
+    /**
+     * Calcule, via un BFS multi-source, le temps d'arrivée du feu dans chaque case, dans une
+     * table sur 16 bits tant que les temps y tiennent (voir {@link DistanceField}).
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param stats   Statistiques à remplir (cases visitées), ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Temps d'arrivée du feu pour chaque case, indexé comme la grille.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static DistanceField computeFireField(Grid grid, SolveStats stats, SolveMonitor monitor) {
+        return computeFireField(grid, grid.scan(), stats, monitor);
+    }
+
+    /**
+     * Calcule le temps d'arrivée du feu dans chaque case d'une grille déjà analysée.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param scan    Prétraitement de la grille (sources de feu, matériaux).
+     * @param stats   Statistiques à remplir (cases visitées), ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Temps d'arrivée du feu pour chaque case, indexé comme la grille.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static DistanceField computeFireField(Grid grid, GridScan scan, SolveStats stats, SolveMonitor monitor) {
+        DistanceField fireTime = DistanceField.infinite(grid.cells.length);
+        fillFireField(grid, scan, fireTime, new int[grid.rows * grid.cols], stats, monitor);
+        return fireTime;
+    }
 
-        Queue<int[]> queue = new LinkedList<>();
+    /**
+     * BFS multi-source du feu dans une table fournie, déjà à l'infini (par exemple celle d'un
+     * {@link SolverWorkspace}). Sur une grille à matériaux, la propagation passe par
+     * {@link WeightedFireField}.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param fireTime Table à remplir, indexée comme la grille.
+     * @param queue    File de travail d'au moins rows x cols cases.
+     * @param stats    Statistiques à remplir (cases visitées), ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static void fillFireField(Grid grid, DistanceField fireTime, int[] queue, SolveStats stats,
+                              SolveMonitor monitor) {
+        fillFireField(grid, grid.scan(), fireTime, queue, stats, monitor);
+    }
+
+    /**
+     * BFS multi-source du feu depuis les sources relevées par le prétraitement, sans relire
+     * la grille.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param scan     Prétraitement de la grille (sources de feu, matériaux).
+     * @param fireTime Table à remplir, à l'infini, indexée comme la grille.
+     * @param queue    File de travail d'au moins rows x cols cases.
+     * @param stats    Statistiques à remplir (cases visitées), ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static void fillFireField(Grid grid, GridScan scan, DistanceField fireTime, int[] queue, SolveStats stats,
+                              SolveMonitor monitor) {
+        byte[] cells = grid.cells;
+        int[] offsets = grid.neighbourOffsets();
 
         // Enfile toutes les positions 'F' (feu) avec temps = 0
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < M; j++) {
-                if (grid[i][j] == 'F') {
-                    fireTime[i][j] = 0;
-                    queue.offer(new int[]{i, j});
-                }
-            }
+        int head = 0;
+        int tail = scan.fireCount;
+        System.arraycopy(scan.fires, 0, queue, 0, tail);
+        for (int i = 0; i < tail; i++) {
+            fireTime.set(queue[i], 0);
+        }
+        if (scan.weighted) {
+            // Délais de propagation variables : file à seaux au lieu de la file FIFO
+            WeightedFireField.fill(grid, fireTime, queue, tail, stats, monitor);
+            return;
         }
 
         // Parcours BFS pour calculer la propagation du feu
-        while (!queue.isEmpty()) {
-            int[] current = queue.poll();
-            int x = current[0];
-            int y = current[1];
-            int t = fireTime[x][y];
+        while (head < tail) {
+            if (monitor != null && (head & (SolveMonitor.INTERVAL - 1)) == 0) {
+                monitor.checkpoint(SolveMonitor.Stage.FIRE, head, queue, head, tail);
+            }
+            int idx = queue[head++];
+            int t = fireTime.get(idx) + 1;
 
             for (int k = 0; k < 4; k++) {
-                int nx = x + dx[k];
-                int ny = y + dy[k];
-
-                if (isValid(nx, ny, grid)) {
-                    if (fireTime[nx][ny] > t + 1) {
-                        fireTime[nx][ny] = t + 1;
-                        queue.offer(new int[]{nx, ny});
-                    }
+                int n = idx + offsets[k];
+                // La bordure de murs évite tout test de bornes
+                if (cells[n] != Grid.WALL && fireTime.lower(n, t)) {
+                    queue[tail++] = n;
                 }
             }
         }
-        return fireTime;
+        if (stats != null) {
+            stats.fireCellsVisited = tail;
+        }
     }
 
     /**
@@ -5,21 +5,57 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Interface graphique qui lit T labyrinthes depuis input.txt,
  * puis permet de les afficher un par un et de résoudre chacun avec LabyrinthEscape.
+ *
+ * Les résolutions ne tournent jamais sur le thread Swing : "Resoudre" lance un
+ * {@link SwingWorker} qui publie sa progression (au plus {@link #PUBLISH_NANOS} fois par
+ * seconde) et s'arrête proprement sur "Annuler". Les labyrinthes voisins du labyrinthe affiché
+ * sont résolus à l'avance sur des threads virtuels, pour que leur résultat soit immédiat.
+ * "Marges" superpose la carte des départs au plus tard ({@link SafetyMap}) du labyrinthe
+ * affiché, calculée elle aussi hors du thread Swing.
  */
 public class LabyrinthGUI extends JFrame {
 
-    private List<char[][]> labyrinths;  // liste des labyrinthes lus
+    /** Intervalle minimal entre deux publications de progression (50 ms). */
+    private static final long PUBLISH_NANOS = 50_000_000L;
+
+    /** Nombre maximal de cases du front transmises au panel à chaque publication. */
+    private static final int MAX_FRONTIER = 50_000;
+
+    /** Moniteur des pré-résolutions : elles s'arrêtent quand leur thread est interrompu. */
+    private static final SolveMonitor INTERRUPTIBLE = (stage, work, frontier, from, to) -> {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException();
+        }
+    };
+
+    private List<Grid> labyrinths;      // liste des labyrinthes lus
     private int currentIndex;           // indice du labyrinthe en cours d'affichage
 
+    /** Résultats terminés ou en cours de pré-résolution, par labyrinthe (thread Swing seulement). */
+    private final Map<Integer, Future<Solution>> solutions = new HashMap<>();
+    /** Threads des pré-résolutions. */
+    private final ExecutorService background = Executors.newVirtualThreadPerTaskExecutor();
+    /** Résolution au premier plan en cours, ou null. */
+    private SolveWorker worker;
+
     private LabyrinthPanel labyrinthPanel;  // panel pour dessiner la grille + chemin
     private JLabel infoLabel;               // label pour infos : "Labyrinthe 1/3", etc.
-    private JButton prevButton, nextButton, solveButton;
+    private JButton prevButton, nextButton, solveButton, cancelButton, zoomInButton, zoomOutButton;
+    private JToggleButton marginsButton;
 
     public LabyrinthGUI() {
         super("Labyrinth Escape GUI");
@@ -30,9 +66,13 @@ public class LabyrinthGUI extends JFrame {
         labyrinths = new ArrayList<>();
         currentIndex = 0;
 
-        // Panel d'affichage graphique
+        // Panel d'affichage graphique, dans une zone défilante (seule la partie visible est dessinée)
         labyrinthPanel = new LabyrinthPanel();
-        add(labyrinthPanel, BorderLayout.CENTER);
+        JScrollPane scrollPane = new JScrollPane(labyrinthPanel);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        scrollPane.getHorizontalScrollBar().setUnitIncrement(16);
+        add(scrollPane, BorderLayout.CENTER);
+        add(new LabyrinthPanel.Legend(), BorderLayout.EAST);
 
         // Label d'info en haut
         infoLabel = new JLabel("Aucun labyrinthe charge.");
@@ -43,11 +83,20 @@ public class LabyrinthGUI extends JFrame {
         JPanel buttonPanel = new JPanel();
         prevButton  = new JButton("<< Precedent");
         solveButton = new JButton("Resoudre");
+        cancelButton = new JButton("Annuler");
+        cancelButton.setEnabled(false);
         nextButton  = new JButton("Suivant >>");
+        zoomOutButton = new JButton("Zoom -");
+        zoomInButton  = new JButton("Zoom +");
+        marginsButton = new JToggleButton("Marges");
 
         buttonPanel.add(prevButton);
         buttonPanel.add(solveButton);
+        buttonPanel.add(cancelButton);
         buttonPanel.add(nextButton);
+        buttonPanel.add(zoomOutButton);
+        buttonPanel.add(zoomInButton);
+        buttonPanel.add(marginsButton);
 
         add(buttonPanel, BorderLayout.SOUTH);
 
@@ -55,6 +104,10 @@ public class LabyrinthGUI extends JFrame {
         prevButton.addActionListener(e -> showPreviousLabyrinth());
         nextButton.addActionListener(e -> showNextLabyrinth());
         solveButton.addActionListener(e -> solveCurrentLabyrinth());
+        cancelButton.addActionListener(e -> cancelSolve());
+        zoomInButton.addActionListener(e -> labyrinthPanel.zoomIn());
+        zoomOutButton.addActionListener(e -> labyrinthPanel.zoomOut());
+        marginsButton.addActionListener(e -> showMargins());
 
         // On charge tout de suite input.txt en tant que ressource
         loadLabyrinths();
@@ -64,6 +117,11 @@ public class LabyrinthGUI extends JFrame {
      * Charge T labyrinthes depuis le fichier input.txt inclus dans le JAR.
      */
     private void loadLabyrinths() {
+        cancelSolve();
+        for (Future<Solution> solution : solutions.values()) {
+            solution.cancel(true);
+        }
+        solutions.clear();
         labyrinths.clear();
         currentIndex = 0;
 
@@ -93,7 +151,7 @@ public class LabyrinthGUI extends JFrame {
                 int M = sc.nextInt(); // Nombre de colonnes
                 sc.nextLine(); // consomme la fin de ligne
 
-                char[][] grid = new char[N][M];
+                Grid grid = new Grid(N, M);
                 for (int r = 0; r < N; r++) {
                     if (sc.hasNextLine()) {
                         String line = sc.nextLine();
@@ -101,7 +159,7 @@ public class LabyrinthGUI extends JFrame {
                             infoLabel.setText("Ligne " + (r + 1) + " trop courte dans le labyrinthe " + (i + 1));
                             return;
                         }
-                        grid[r] = line.substring(0, M).toCharArray();
+                        grid.setRow(r, line);
                     } else {
                         infoLabel.setText("Fichier de carte incomplet pour le labyrinthe " + (i + 1));
                         return;
@@ -118,6 +176,8 @@ public class LabyrinthGUI extends JFrame {
         if (!labyrinths.isEmpty()) {
             infoLabel.setText("Labyrinthes chargés : " + labyrinths.size() + " (affiche le #1)");
             labyrinthPanel.setGrid(labyrinths.get(0));
+            prefetchAround(0);
+            showMargins();
         } else {
             infoLabel.setText("Aucun labyrinthe dans le fichier.");
         }
@@ -128,10 +188,68 @@ public class LabyrinthGUI extends JFrame {
      */
     private void showLabyrinth(int index) {
         if (index < 0 || index >= labyrinths.size()) return;
+        // La résolution au premier plan ne concerne que le labyrinthe affiché
+        cancelSolve();
         currentIndex = index;
         labyrinthPanel.setGrid(labyrinths.get(currentIndex));
         infoLabel.setText("Labyrinthes : " + labyrinths.size()
                 + "  (Labyrinthe #" + (currentIndex+1) + ")");
+        prefetchAround(currentIndex);
+        showMargins();
+    }
+
+    /**
+     * Affiche la carte des marges du labyrinthe courant si "Marges" est enfoncé, la retire
+     * sinon. Le calcul (feu puis parcours à rebours) se fait hors du thread Swing ; le
+     * résultat est ignoré si l'utilisateur a changé de labyrinthe entre-temps.
+     */
+    private void showMargins() {
+        if (!marginsButton.isSelected() || labyrinths.isEmpty()) {
+            labyrinthPanel.setSafetyMap(null);
+            return;
+        }
+        int index = currentIndex;
+        Grid grid = labyrinths.get(index);
+        CompletableFuture.supplyAsync(() -> SafetyMap.build(grid), background)
+                .whenComplete((map, error) -> SwingUtilities.invokeLater(() -> {
+                    if (index != currentIndex || !marginsButton.isSelected()) {
+                        return;
+                    }
+                    if (error != null) {
+                        infoLabel.setText("Erreur lors du calcul des marges : " + error.getCause());
+                        return;
+                    }
+                    labyrinthPanel.setSafetyMap(map);
+                    int start = grid.indexOf('D');
+                    int latest = start < 0 ? SafetyMap.NEVER : map.latestAt(start);
+                    infoLabel.setText("Labyrinthe #" + (index + 1) + " : " + map.escapableCells()
+                            + " cases permettent de s'echapper ; depart de D au plus tard : "
+                            + (latest == SafetyMap.NEVER ? "impossible"
+                            : latest == SafetyMap.ALWAYS ? "sans limite" : "t = " + latest));
+                }));
+    }
+
+    /**
+     * Lance la résolution en arrière-plan des voisins (précédent et suivant) du labyrinthe
+     * affiché, et abandonne les pré-résolutions encore en cours des autres labyrinthes.
+     * Les résultats terminés sont gardés.
+     */
+    private void prefetchAround(int index) {
+        int n = labyrinths.size();
+        int previous = (index - 1 + n) % n;
+        int next = (index + 1) % n;
+        solutions.entrySet().removeIf(e -> {
+            int k = e.getKey();
+            return k != index && k != previous && k != next && e.getValue().cancel(true);
+        });
+        for (int k : new int[]{next, previous}) {
+            Grid grid = labyrinths.get(k);
+            int start = grid.indexOf('D');
+            int end = grid.indexOf('S');
+            if (!solutions.containsKey(k) && start >= 0 && end >= 0) {
+                solutions.put(k, background.submit(() -> solve(grid, start, end, INTERRUPTIBLE)));
+            }
+        }
     }
 
     private void showPreviousLabyrinth() {
@@ -155,6 +273,10 @@ public class LabyrinthGUI extends JFrame {
     /**
      * Appelle l'algorithme LabyrinthEscape pour résoudre le labyrinthe courant,
      * et affiche le chemin en bleu (si trouvé).
+     *
+     * Un résultat déjà calculé (ou pré-calculé) s'affiche immédiatement. Sinon, la résolution
+     * part en arrière-plan ; une pré-résolution encore en cours est alors abandonnée au profit
+     * d'une résolution qui montre sa progression.
      */
     private void solveCurrentLabyrinth() {
         if (labyrinths.isEmpty()) {
@@ -164,13 +286,16 @@ public class LabyrinthGUI extends JFrame {
                     JOptionPane.INFORMATION_MESSAGE);
             return;
         }
+        if (worker != null) {
+            return;
+        }
         // Récupère la grille
-        char[][] grid = labyrinths.get(currentIndex);
+        Grid grid = labyrinths.get(currentIndex);
 
         // 1) Trouve start/end
-        int[] start = LabyrinthEscape.findPosition(grid, 'D');
-        int[] end   = LabyrinthEscape.findPosition(grid, 'S');
-        if (start == null || end == null) {
+        int start = grid.indexOf('D');
+        int end   = grid.indexOf('S');
+        if (start < 0 || end < 0) {
             JOptionPane.showMessageDialog(this,
                     "Pas de D ou de S dans ce labyrinthe.",
                     "Resultat",
@@ -178,14 +303,50 @@ public class LabyrinthGUI extends JFrame {
             return;
         }
 
-        // 2) Calcul du temps de feu
-        int[][] fireTime = LabyrinthEscape.computeFireTime(grid);
+        // 2) Résultat déjà connu ?
+        Future<Solution> known = solutions.remove(currentIndex);
+        if (known != null && known.isDone() && !known.isCancelled()) {
+            try {
+                Solution solution = known.get();
+                solutions.put(currentIndex, known);
+                showSolution(solution);
+                return;
+            } catch (ExecutionException | InterruptedException e) {
+                // On recalcule au premier plan
+            }
+        } else if (known != null) {
+            known.cancel(true);
+        }
 
-        // 3) Appel A*
-        List<Node> path = LabyrinthEscape.aStarWithFire(grid, start, end, fireTime);
-        boolean canEscape = (path != null && !path.isEmpty());
+        // 3) Calcul du feu puis A*, hors du thread Swing
+        worker = new SolveWorker(currentIndex, grid, start, end);
+        setSolving(true);
+        worker.execute();
+    }
 
-        // 4) Affiche le résultat
+    /**
+     * Demande l'arrêt de la résolution au premier plan, s'il y en a une.
+     */
+    private void cancelSolve() {
+        if (worker != null) {
+            worker.cancel(true);
+            worker = null;
+            setSolving(false);
+            labyrinthPanel.setFrontier(null);
+        }
+    }
+
+    private void setSolving(boolean solving) {
+        solveButton.setEnabled(!solving);
+        cancelButton.setEnabled(solving);
+    }
+
+    /**
+     * Affiche le résultat d'une résolution du labyrinthe courant.
+     */
+    private void showSolution(Solution solution) {
+        List<Node> path = solution.path;
+        boolean canEscape = (path != null && !path.isEmpty());
         if (canEscape) {
             labyrinthPanel.setPath(path); // dessine le chemin en bleu
             JOptionPane.showMessageDialog(this,
@@ -199,6 +360,129 @@ public class LabyrinthGUI extends JFrame {
         }
     }
 
+    /**
+     * Propagation du feu puis A*, sous l'observation d'un moniteur.
+     *
+     * @throws CancellationException si le moniteur interrompt la résolution.
+     */
+    private static Solution solve(Grid grid, int start, int end, SolveMonitor monitor) {
+        FireIndex fireIndex = FireIndex.build(grid, null, monitor);
+        List<Node> path = fireIndex.findPath(start, new int[]{end}, Engine.ASTAR, null, monitor);
+        return new Solution(fireIndex, path);
+    }
+
+    /**
+     * Résultat d'une résolution : index du feu et chemin (null si aucun).
+     */
+    private static final class Solution {
+        final FireIndex fireIndex;
+        final List<Node> path;
+
+        Solution(FireIndex fireIndex, List<Node> path) {
+            this.fireIndex = fireIndex;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Progression publiée par une résolution au premier plan.
+     */
+    private static final class Progress {
+        final SolveMonitor.Stage stage;
+        final long work;
+        final int[] frontier; // ligne * colonnes + colonne
+
+        Progress(SolveMonitor.Stage stage, long work, int[] frontier) {
+            this.stage = stage;
+            this.work = work;
+            this.frontier = frontier;
+        }
+    }
+
+    /**
+     * Résolution au premier plan : le moniteur vérifie l'annulation à chaque point de contrôle
+     * et ne publie un échantillon du front que toutes les {@link #PUBLISH_NANOS}.
+     */
+    private final class SolveWorker extends SwingWorker<Solution, Progress> implements SolveMonitor {
+
+        private final int index;
+        private final Grid grid;
+        private final int start;
+        private final int end;
+        private long lastPublish;
+
+        SolveWorker(int index, Grid grid, int start, int end) {
+            this.index = index;
+            this.grid = grid;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Solution doInBackground() {
+            lastPublish = System.nanoTime();
+            return solve(grid, start, end, this);
+        }
+
+        @Override
+        public void checkpoint(Stage stage, long work, int[] frontier, int from, int to) {
+            if (isCancelled()) {
+                throw new CancellationException();
+            }
+            long now = System.nanoTime();
+            if (now - lastPublish < PUBLISH_NANOS) {
+                return;
+            }
+            lastPublish = now;
+            int cols = grid.cols();
+            int[] sample = new int[Math.min(to - from, MAX_FRONTIER)];
+            for (int i = 0; i < sample.length; i++) {
+                int idx = frontier[from + i];
+                sample[i] = grid.row(idx) * cols + grid.col(idx);
+            }
+            publish(new Progress(stage, work, sample));
+        }
+
+        @Override
+        protected void process(List<Progress> chunks) {
+            if (worker != this) {
+                return;
+            }
+            Progress last = chunks.get(chunks.size() - 1);
+            infoLabel.setText(last.stage == Stage.FIRE
+                    ? "Labyrinthe #" + (index + 1) + " : propagation du feu, " + last.work + " cases brulees"
+                    : "Labyrinthe #" + (index + 1) + " : recherche, " + last.work + " noeuds developpes");
+            labyrinthPanel.setFrontier(last.frontier);
+        }
+
+        @Override
+        protected void done() {
+            if (worker != this) {
+                // Annulée (bouton "Annuler" ou changement de labyrinthe)
+                if (index == currentIndex) {
+                    infoLabel.setText("Labyrinthe #" + (index + 1) + " : resolution annulee.");
+                }
+                return;
+            }
+            worker = null;
+            setSolving(false);
+            labyrinthPanel.setFrontier(null);
+            infoLabel.setText("Labyrinthes : " + labyrinths.size()
+                    + "  (Labyrinthe #" + (index + 1) + ")");
+            Solution solution;
+            try {
+                solution = get();
+            } catch (InterruptedException | CancellationException e) {
+                return;
+            } catch (ExecutionException e) {
+                infoLabel.setText("Erreur lors de la resolution : " + e.getCause());
+                return;
+            }
+            solutions.put(index, CompletableFuture.completedFuture(solution));
+            showSolution(solution);
+        }
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             LabyrinthGUI gui = new LabyrinthGUI();
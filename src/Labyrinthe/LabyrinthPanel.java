@@ -2,25 +2,75 @@ package Labyrinthe;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.HashSet;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 /**
  * Un panel qui dessine un labyrinthe sous forme de grille colorée
- * et qui affiche un chemin en bleu, ainsi qu'une légende.
+ * et qui affiche un chemin en bleu.
+ *
+ * Le panel est fait pour être placé dans un {@link JScrollPane} : seules les cases visibles
+ * sont dessinées. La grille est rendue une fois, à un pixel par case, dans des tuiles
+ * d'images gardées en cache (les tuiles les moins récemment vues sont libérées), puis
+ * agrandie au zoom courant lors de l'affichage. Le chemin et le front d'une résolution en
+ * cours sont des couches séparées : les changer ne redessine que leur zone, sans toucher aux
+ * tuiles. Ctrl + molette ou {@link #zoomIn()} /
+ * {@link #zoomOut()} changent le zoom en gardant le même point au centre.
+ *
+ * Avec une carte des marges ({@link #setSafetyMap}), les cases ouvertes sont colorées selon
+ * leur départ au plus tard : du rouge (partir tout de suite) au vert (la plus grande marge),
+ * vert vif si le feu ne peut jamais empêcher l'évasion, bordeaux si elle est impossible. La
+ * bulle d'aide d'une case donne alors sa valeur.
  */
 public class LabyrinthPanel extends JPanel {
 
-    private char[][] grid;         // Le labyrinthe à dessiner
-    private Set<Point> pathCells;  // Les cases du chemin (Node.x, Node.y) convertis en Point(col, row)
+    /** Tailles de case disponibles (en pixels). */
+    private static final int[] ZOOM_LEVELS = {1, 2, 3, 4, 6, 8, 12, 16, 24, 30, 40};
 
-    private int cellSize = 30;     // Taille de chaque case (en pixels)
+    /** Taille de case en dessous de laquelle on ne trace plus les traits de grille. */
+    private static final int MIN_GRID_LINES = 6;
+
+    /** Côté d'une tuile, en cases. */
+    private static final int TILE = 256;
+
+    /** Nombre maximal de tuiles en cache (256 tuiles de 256 x 256 cases = 64 Mo). */
+    private static final int MAX_TILES = 256;
+
+    /** Couleur du front d'une résolution en cours. */
+    private static final Color FRONTIER = Color.ORANGE;
+
+    /** Couleur d'une case d'où l'évasion est impossible (carte des marges). */
+    private static final Color TRAPPED = new Color(110, 0, 0);
+
+    private Grid grid;             // Le labyrinthe à dessiner
+    private int[] pathCells = new int[0]; // Les cases du chemin (ligne * cols + colonne), triées
+    private Rectangle pathBounds;  // Zone (en cases) occupée par le chemin, ou null
+    private int[] frontierCells = new int[0]; // Le front d'une résolution en cours, trié
+    private Rectangle frontierBounds; // Zone (en cases) occupée par le front, ou null
+    private SafetyMap safety;      // Carte des marges affichée en dégradé, ou null
+
+    private int zoom = 9;          // Indice dans ZOOM_LEVELS (30 pixels par case)
+    private int cellSize = ZOOM_LEVELS[zoom]; // Taille de chaque case (en pixels)
     private int margin   = 10;     // Marge autour
 
+    /** Tuiles déjà rendues, de la moins à la plus récemment utilisée. */
+    private final Map<Integer, BufferedImage> tiles = new LinkedHashMap<Integer, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
     public LabyrinthPanel() {
         setBackground(Color.WHITE);
-        pathCells = new HashSet<>();
+        addMouseWheelListener(this::mouseWheelMoved);
+        // Bulle d'aide des marges ; getToolTipText renvoie null sans carte
+        ToolTipManager.sharedInstance().registerComponent(this);
     }
 
     /**
@@ -28,28 +78,172 @@ public class LabyrinthPanel extends JPanel {
      * @param newGrid le tableau 2D de caractères
      */
     public void setGrid(char[][] newGrid) {
+        setGrid(newGrid == null ? null : Grid.of(newGrid));
+    }
+
+    /**
+     * Définit la grille à afficher (mur, feu, départ...).
+     * @param newGrid la grille
+     */
+    public void setGrid(Grid newGrid) {
         this.grid = newGrid;
+        tiles.clear();
         // On efface l'ancien chemin si on recharge un nouveau labyrinthe
-        this.pathCells.clear();
+        this.pathCells = new int[0];
+        this.pathBounds = null;
+        this.frontierCells = new int[0];
+        this.frontierBounds = null;
+        this.safety = null;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Affiche (ou retire, avec null) la carte des marges de la grille courante. Les tuiles sont
+     * rendues de nouveau.
+     *
+     * @param map Carte des marges de la grille affichée, ou null.
+     */
+    public void setSafetyMap(SafetyMap map) {
+        if (map != null && map.grid() != grid) {
+            return;
+        }
+        this.safety = map;
+        tiles.clear();
         repaint();
     }
 
     /**
-     * Convertit la liste de Node (chemin A*) en un ensemble de Points pour l'affichage.
-     * Chaque Node a (x=ligne, y=colonne).
+     * Affiche un chemin (liste de Node, x = ligne, y = colonne) par-dessus la grille.
+     * Seules les zones de l'ancien et du nouveau chemin sont redessinées.
      */
     public void setPath(List<Node> path) {
-        this.pathCells.clear();
-        if (path != null) {
-            for (Node n : path) {
+        Rectangle dirty = pathBounds;
+        if (path == null || path.isEmpty() || grid == null) {
+            pathCells = new int[0];
+        } else {
+            int cols = grid.cols();
+            int[] cells = new int[path.size()];
+            for (int i = 0; i < cells.length; i++) {
+                Node n = path.get(i);
                 //  Node.x = ligne, Node.y = colonne
-                // Pour dessiner, on fait "colonne = n.y, ligne = n.x"
-                this.pathCells.add(new Point(n.y, n.x));
+                cells[i] = n.x * cols + n.y;
             }
+            Arrays.sort(cells);
+            pathCells = cells;
+        }
+        pathBounds = boundsOf(pathCells);
+        repaintCells(dirty, pathBounds);
+    }
+
+    /**
+     * Affiche le front d'une résolution en cours (en orange, sous le chemin).
+     * Seules les zones de l'ancien et du nouveau front sont redessinées.
+     *
+     * @param cells Cases du front (ligne * colonnes + colonne), ou null pour l'effacer.
+     *              Le tableau est trié sur place et conservé par le panel.
+     */
+    public void setFrontier(int[] cells) {
+        Rectangle dirty = frontierBounds;
+        if (cells == null || grid == null) {
+            frontierCells = new int[0];
+        } else {
+            Arrays.sort(cells);
+            frontierCells = cells;
+        }
+        frontierBounds = boundsOf(frontierCells);
+        repaintCells(dirty, frontierBounds);
+    }
+
+    /**
+     * Zone (en cases) couverte par des cases triées, ou null s'il n'y en a aucune.
+     */
+    private Rectangle boundsOf(int[] sorted) {
+        if (sorted.length == 0) {
+            return null;
+        }
+        int cols = grid.cols();
+        int minC = Integer.MAX_VALUE, maxC = 0;
+        for (int cell : sorted) {
+            int c = cell % cols;
+            minC = Math.min(minC, c);
+            maxC = Math.max(maxC, c);
+        }
+        int minR = sorted[0] / cols;
+        int maxR = sorted[sorted.length - 1] / cols;
+        return new Rectangle(minC, minR, maxC - minC + 1, maxR - minR + 1);
+    }
+
+    /**
+     * Redessine l'union de l'ancienne et de la nouvelle zone d'une couche.
+     */
+    private void repaintCells(Rectangle before, Rectangle after) {
+        Rectangle dirty = before == null ? after : after == null ? before : before.union(after);
+        if (dirty != null) {
+            repaint(toPixels(dirty));
+        }
+    }
+
+    /** Agrandit d'un cran. */
+    public void zoomIn() {
+        setZoom(zoom + 1, null);
+    }
+
+    /** Réduit d'un cran. */
+    public void zoomOut() {
+        setZoom(zoom - 1, null);
+    }
+
+    /** @return Taille courante d'une case, en pixels. */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Change le zoom en gardant fixe le point {@code anchor} (coordonnées du panel), ou le
+     * centre de la zone visible si anchor est null.
+     */
+    private void setZoom(int level, Point anchor) {
+        level = Math.max(0, Math.min(ZOOM_LEVELS.length - 1, level));
+        if (level == zoom) {
+            return;
+        }
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        Rectangle view = viewport != null ? viewport.getViewRect() : getVisibleRect();
+        if (anchor == null) {
+            anchor = new Point(view.x + view.width / 2, view.y + view.height / 2);
+        }
+        double scale = (double) ZOOM_LEVELS[level] / cellSize;
+        int offsetX = anchor.x - view.x;
+        int offsetY = anchor.y - view.y;
+
+        zoom = level;
+        cellSize = ZOOM_LEVELS[level];
+        revalidate();
+        if (viewport != null) {
+            // Même case sous le point d'ancrage avant et après le zoom
+            int x = (int) Math.round(margin + (anchor.x - margin) * scale) - offsetX;
+            int y = (int) Math.round(margin + (anchor.y - margin) * scale) - offsetY;
+            Dimension size = getPreferredSize();
+            x = Math.max(0, Math.min(x, size.width - view.width));
+            y = Math.max(0, Math.min(y, size.height - view.height));
+            viewport.setViewSize(size);
+            viewport.setViewPosition(new Point(x, y));
         }
         repaint();
     }
 
+    /**
+     * Ctrl + molette : zoom autour du pointeur. Sinon, la molette fait défiler le JScrollPane.
+     */
+    private void mouseWheelMoved(MouseWheelEvent e) {
+        if (e.isControlDown()) {
+            setZoom(zoom - e.getWheelRotation(), e.getPoint());
+        } else if (getParent() != null) {
+            getParent().dispatchEvent(SwingUtilities.convertMouseEvent(this, e, getParent()));
+        }
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
@@ -59,118 +253,243 @@ public class LabyrinthPanel extends JPanel {
             return;
         }
 
-        int rows = grid.length;
-        int cols = grid[0].length;
-
-        // Dessin d'un rectangle de fond
-        int totalWidth  = cols * cellSize;
-        int totalHeight = rows * cellSize;
-        g.setColor(Color.LIGHT_GRAY);
-        g.fillRect(margin, margin, totalWidth, totalHeight);
-
-        // 1) Dessiner chaque case
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                char ch = grid[r][c];
-
-                // Couleur par défaut = vert (vide)
-                Color color = Color.GREEN;
-
-                switch (ch) {
-                    case '#':
-                        color = Color.BLACK;   // mur
-                        break;
-                    case 'F':
-                        color = Color.RED;     // feu
-                        break;
-                    case 'D':
-                        color = Color.CYAN;    // départ
-                        break;
-                    case 'S':
-                        color = Color.YELLOW;  // sortie
-                        break;
-                    case '.':
-                        color = Color.GREEN;   // vide
-                        break;
-                    default:
-                        color = Color.GREEN;   // par sécurité
-                        break;
-                }
+        int rows = grid.rows();
+        int cols = grid.cols();
+
+        // Cases visibles seulement
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        int c0 = Math.max(0, (clip.x - margin) / cellSize);
+        int r0 = Math.max(0, (clip.y - margin) / cellSize);
+        int c1 = Math.min(cols - 1, (clip.x + clip.width - margin) / cellSize);
+        int r1 = Math.min(rows - 1, (clip.y + clip.height - margin) / cellSize);
+        if (c0 > c1 || r0 > r1) {
+            return;
+        }
 
-                int xPix = margin + c * cellSize;
-                int yPix = margin + r * cellSize;
+        // 1) Les tuiles de la grille, agrandies au zoom courant
+        for (int ty = r0 / TILE; ty <= r1 / TILE; ty++) {
+            for (int tx = c0 / TILE; tx <= c1 / TILE; tx++) {
+                BufferedImage tile = tile(tx, ty);
+                g.drawImage(tile, margin + tx * TILE * cellSize, margin + ty * TILE * cellSize,
+                        tile.getWidth() * cellSize, tile.getHeight() * cellSize, null);
+            }
+        }
 
-                g.setColor(color);
-                g.fillRect(xPix, yPix, cellSize, cellSize);
+        // 2) Dessiner le front d'une résolution en cours, puis le chemin par-dessus (en bleu)
+        paintCells(g, frontierCells, FRONTIER, r0, r1, c0, c1);
+        paintCells(g, pathCells, Color.BLUE, r0, r1, c0, c1);
 
-                // Trait de grille
-                g.setColor(Color.BLACK);
-                g.drawRect(xPix, yPix, cellSize, cellSize);
+        // 3) Traits de grille, si les cases sont assez grandes
+        if (cellSize >= MIN_GRID_LINES) {
+            g.setColor(Color.BLACK);
+            int left = margin + c0 * cellSize;
+            int right = margin + (c1 + 1) * cellSize;
+            int top = margin + r0 * cellSize;
+            int bottom = margin + (r1 + 1) * cellSize;
+            for (int r = r0; r <= r1 + 1; r++) {
+                g.drawLine(left, margin + r * cellSize, right, margin + r * cellSize);
+            }
+            for (int c = c0; c <= c1 + 1; c++) {
+                g.drawLine(margin + c * cellSize, top, margin + c * cellSize, bottom);
             }
         }
+    }
+
+    /**
+     * Dessine les cases visibles d'une couche : une recherche dichotomique par ligne visible.
+     */
+    private void paintCells(Graphics g, int[] sorted, Color color, int r0, int r1, int c0, int c1) {
+        if (sorted.length == 0) {
+            return;
+        }
+        int cols = grid.cols();
+        g.setColor(color);
+        for (int r = r0; r <= r1; r++) {
+            int from = lowerBound(sorted, r * cols + c0);
+            int to = lowerBound(sorted, r * cols + c1 + 1);
+            for (int i = from; i < to; i++) {
+                int c = sorted[i] - r * cols;
+                g.fillRect(margin + c * cellSize, margin + r * cellSize, cellSize, cellSize);
+            }
+        }
+    }
 
-        // 2) Dessiner le chemin par-dessus (en bleu)
-        for (Point p : pathCells) {
-            // p.x = colonne, p.y = ligne
-            int xPix = margin + p.x * cellSize;
-            int yPix = margin + p.y * cellSize;
+    /**
+     * Renvoie la tuile (tx, ty), rendue à un pixel par case à la première demande.
+     */
+    private BufferedImage tile(int tx, int ty) {
+        int tilesX = (grid.cols() + TILE - 1) / TILE;
+        Integer key = ty * tilesX + tx;
+        BufferedImage tile = tiles.get(key);
+        if (tile == null) {
+            int r0 = ty * TILE;
+            int c0 = tx * TILE;
+            int h = Math.min(TILE, grid.rows() - r0);
+            int w = Math.min(TILE, grid.cols() - c0);
+            int[] pixels = new int[w * h];
+            for (int r = 0; r < h; r++) {
+                int base = grid.index(r0 + r, c0);
+                for (int c = 0; c < w; c++) {
+                    pixels[r * w + c] = rgbOf(base + c);
+                }
+            }
+            tile = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            tile.setRGB(0, 0, w, h, pixels, 0, w);
+            tiles.put(key, tile);
+        }
+        return tile;
+    }
 
-            g.setColor(Color.BLUE);
-            g.fillRect(xPix, yPix, cellSize, cellSize);
+    /**
+     * Couleur d'une case, en tenant compte de la carte des marges.
+     */
+    private int rgbOf(int idx) {
+        byte ch = grid.cells[idx];
+        if (safety == null || ch == '#' || ch == 'F' || ch == 'D' || ch == 'S') {
+            return colorOf(ch).getRGB();
+        }
+        int latest = safety.latestAt(idx);
+        if (latest == SafetyMap.NEVER) {
+            return TRAPPED.getRGB();
+        }
+        if (latest == SafetyMap.ALWAYS) {
+            return Color.GREEN.getRGB();
+        }
+        // Teinte 0 (rouge) à 1/4 (vert-jaune) : le vert vif reste aux cases sans limite
+        float ratio = (float) latest / Math.max(1, safety.maxFiniteDeparture());
+        return Color.HSBtoRGB(0.25f * ratio, 1f, 0.9f);
+    }
 
-            g.setColor(Color.BLACK);
-            g.drawRect(xPix, yPix, cellSize, cellSize);
+    @Override
+    public String getToolTipText(MouseEvent e) {
+        if (safety == null) {
+            return null;
+        }
+        int r = (e.getY() - margin) / cellSize;
+        int c = (e.getX() - margin) / cellSize;
+        if (e.getY() < margin || e.getX() < margin || r >= grid.rows() || c >= grid.cols()
+                || grid.charAt(r, c) == '#') {
+            return null;
         }
+        int latest = safety.latestDeparture(r, c);
+        String value = latest == SafetyMap.NEVER ? "évasion impossible"
+                : latest == SafetyMap.ALWAYS ? "départ sans limite"
+                : "départ au plus tard : t = " + latest;
+        return "(" + r + ", " + c + ") " + value;
+    }
+
+    /**
+     * Couleur d'une case.
+     */
+    private static Color colorOf(byte ch) {
+        switch (ch) {
+            case '#':
+                return Color.BLACK;   // mur
+            case 'F':
+                return Color.RED;     // feu
+            case 'D':
+                return Color.CYAN;    // départ
+            case 'S':
+                return Color.YELLOW;  // sortie
+            case 'B':
+                return Color.GRAY;    // béton
+            case 'P':
+                return Color.MAGENTA; // porte coupe-feu
+            case '.':
+            default:
+                return Color.GREEN;   // vide
+        }
+    }
+
+    /**
+     * Premier indice de {@code sorted} dont la valeur est au moins {@code key}.
+     */
+    private static int lowerBound(int[] sorted, int key) {
+        int i = Arrays.binarySearch(sorted, key);
+        if (i < 0) {
+            return -i - 1;
+        }
+        while (i > 0 && sorted[i - 1] == key) {
+            i--;
+        }
+        return i;
+    }
+
+    /**
+     * Convertit une zone de cases en zone de pixels du panel.
+     */
+    private Rectangle toPixels(Rectangle cells) {
+        return new Rectangle(margin + cells.x * cellSize, margin + cells.y * cellSize,
+                cells.width * cellSize + 1, cells.height * cellSize + 1);
+    }
 
-        // 3) Dessiner la légende dans le coin à droite
-        drawLegend(g, margin + totalWidth + 20, margin);
+    @Override
+    public Dimension getPreferredSize() {
+        // On adapte la taille au labyrinthe et au zoom
+        if (grid == null) {
+            return new Dimension(400, 300);
+        }
+        long width = (long) grid.cols() * cellSize + margin * 2;
+        long height = (long) grid.rows() * cellSize + margin * 2;
+        return new Dimension((int) Math.min(width, Integer.MAX_VALUE), (int) Math.min(height, Integer.MAX_VALUE));
     }
 
     /**
-     * Affiche la légende (couleurs -> signification)
+     * Légende (couleurs -> signification), affichée à côté du JScrollPane.
      */
-    private void drawLegend(Graphics g, int startX, int startY) {
-        String[] labels = {
+    static final class Legend extends JComponent {
+
+        private static final long serialVersionUID = 1L;
+
+        private static final String[] LABELS = {
                 "Mur (#)   = Noir",
                 "Vide (.)  = Vert",
                 "Feu (F)   = Rouge",
                 "Départ (D)= Cyan",
                 "Sortie (S)= Jaune",
-                "Chemin    = Bleu"
+                "Béton (B) = Gris",
+                "Porte (P) = Magenta",
+                "Chemin    = Bleu",
+                "Front     = Orange"
         };
-        Color[] colors = {
+        private static final Color[] COLORS = {
                 Color.BLACK,
                 Color.GREEN,
                 Color.RED,
                 Color.CYAN,
                 Color.YELLOW,
-                Color.BLUE
+                Color.GRAY,
+                Color.MAGENTA,
+                Color.BLUE,
+                FRONTIER
         };
 
-        g.setColor(Color.BLACK);
-        g.drawString("Légende :", startX, startY);
-        int y = startY + 15;
-        for (int i = 0; i < labels.length; i++) {
-            // Petit carré de couleur
-            g.setColor(colors[i]);
-            g.fillRect(startX, y - 10, 10, 10);
+        @Override
+        protected void paintComponent(Graphics g) {
+            int startX = 10;
+            int startY = 20;
             g.setColor(Color.BLACK);
-            g.drawRect(startX, y - 10, 10, 10);
+            g.drawString("Légende :", startX, startY);
+            int y = startY + 15;
+            for (int i = 0; i < LABELS.length; i++) {
+                // Petit carré de couleur
+                g.setColor(COLORS[i]);
+                g.fillRect(startX, y - 10, 10, 10);
+                g.setColor(Color.BLACK);
+                g.drawRect(startX, y - 10, 10, 10);
 
-            // Texte
-            g.drawString(labels[i], startX + 15, y);
-            y += 15;
+                // Texte
+                g.drawString(LABELS[i], startX + 15, y);
+                y += 15;
+            }
         }
-    }
 
-    @Override
-    public Dimension getPreferredSize() {
-        // On adapte la taille au labyrinthe si on veut
-        if (grid == null) {
-            return new Dimension(400, 300);
+        @Override
+        public Dimension getPreferredSize() {
+            return new Dimension(160, 20 + 15 * (LABELS.length + 1));
         }
-        int rows = grid.length;
-        int cols = grid[0].length;
-        return new Dimension(cols * cellSize + margin * 2 + 120, rows * cellSize + margin * 2);
     }
 }
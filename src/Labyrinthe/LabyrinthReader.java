@@ -0,0 +1,228 @@
+package Labyrinthe;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lecteur en flux du format texte des labyrinthes (T, puis pour chaque labyrinthe
+ * "N M" suivi de N lignes).
+ *
+ * Remplace {@link java.util.Scanner} : les octets sont lus par gros blocs depuis un canal NIO
+ * et les lignes de la grille sont copiées directement dans la {@link Grid}, sans passer
+ * par des String. Seul le labyrinthe en cours de lecture est gardé en mémoire.
+ */
+final class LabyrinthReader implements Closeable {
+
+    /** Taille du tampon de lecture. */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+
+    /**
+     * @param channel Canal à lire (fichier, entrée standard, ressource...).
+     */
+    LabyrinthReader(ReadableByteChannel channel) {
+        this(channel, BUFFER_SIZE);
+    }
+
+    /**
+     * @param channel    Canal à lire.
+     * @param bufferSize Taille du tampon de lecture, en octets (petite pour de petits contenus).
+     */
+    LabyrinthReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        this.buf = buffer.array();
+    }
+
+    /**
+     * Ouvre un fichier texte de labyrinthes.
+     *
+     * @param path Chemin du fichier.
+     * @return Lecteur positionné au début du fichier.
+     * @throws IOException si le fichier ne peut pas être ouvert.
+     */
+    static LabyrinthReader open(Path path) throws IOException {
+        return new LabyrinthReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Lit depuis un flux d'entrée quelconque (entrée standard, ressource du JAR...).
+     *
+     * @param in Flux à lire.
+     * @return Lecteur sur ce flux.
+     */
+    static LabyrinthReader of(InputStream in) {
+        return new LabyrinthReader(Channels.newChannel(in));
+    }
+
+    /**
+     * Recharge le tampon. Les octets déjà consommés sont abandonnés.
+     *
+     * @return false si la fin du flux est atteinte.
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            pos = limit = 0;
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Lit le prochain entier positif en ignorant les blancs qui le précèdent.
+     *
+     * @return Entier lu.
+     * @throws IOException si la fin du fichier est atteinte, si le jeton n'est pas un entier
+     *                     ou s'il dépasse Integer.MAX_VALUE.
+     */
+    int readInt() throws IOException {
+        int b;
+        do {
+            if (pos == limit && !fill()) {
+                throw new EOFException("Fin de fichier inattendue : entier attendu.");
+            }
+            b = buf[pos++];
+        } while (b == ' ' || b == '\n' || b == '\r' || b == '\t');
+
+        if (b < '0' || b > '9') {
+            throw new IOException("Format du fichier incorrect : entier attendu, '" + (char) b + "' trouvé.");
+        }
+        int value = 0;
+        while (true) {
+            if (value > (Integer.MAX_VALUE - (b - '0')) / 10) {
+                throw new IOException("Format du fichier incorrect : entier trop grand.");
+            }
+            value = value * 10 + (b - '0');
+            if (pos == limit && !fill()) {
+                return value;
+            }
+            b = buf[pos];
+            if (b < '0' || b > '9') {
+                return value;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Consomme la fin de la ligne courante, retour chariot compris.
+     */
+    void skipLine() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return;
+            }
+            while (pos < limit) {
+                if (buf[pos++] == '\n') {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lit la prochaine ligne et en copie les {@code length} premiers octets dans dst.
+     *
+     * @param dst    Destination.
+     * @param off    Position de départ dans dst.
+     * @param length Nombre d'octets attendus.
+     * @param row    Numéro de la ligne (pour les messages d'erreur, à partir de 1).
+     * @throws IOException si la ligne est trop courte ou si le fichier est incomplet.
+     */
+    void readRow(byte[] dst, int off, int length, int row) throws IOException {
+        if (pos == limit && !fill()) {
+            throw new EOFException("Fichier de carte incomplet.");
+        }
+        int copied = 0;
+        int lineLength = 0;
+        byte last = 0;
+        while (true) {
+            int start = pos;
+            while (pos < limit && buf[pos] != '\n') {
+                pos++;
+            }
+            int chunk = pos - start;
+            if (chunk > 0) {
+                int n = Math.min(chunk, length - copied);
+                if (n > 0) {
+                    System.arraycopy(buf, start, dst, off + copied, n);
+                    copied += n;
+                }
+                lineLength += chunk;
+                last = buf[pos - 1];
+            }
+            if (pos < limit) {
+                pos++; // consomme '\n'
+                break;
+            }
+            if (!fill()) {
+                break;
+            }
+        }
+        if (last == '\r') {
+            lineLength--;
+        }
+        if (lineLength < length) {
+            throw new IOException("Ligne " + row + " trop courte.");
+        }
+    }
+
+    /**
+     * Lit un labyrinthe complet : la ligne "N M" puis N lignes, analysées au passage
+     * ({@link Grid#scan()}).
+     *
+     * @return Grille lue.
+     * @throws IOException si le format est incorrect.
+     */
+    Grid readGrid() throws IOException {
+        int N = readInt(); // Nombre de lignes
+        int M = readInt(); // Nombre de colonnes
+        skipLine();
+
+        Grid grid;
+        try {
+            grid = new Grid(N, M);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Format du fichier incorrect : " + e.getMessage(), e);
+        }
+        GridScan.Builder scan = new GridScan.Builder(N, M);
+        for (int i = 0; i < N; i++) {
+            int base = grid.index(i, 0);
+            readRow(grid.cells, base, M, i + 1);
+            // Analyse la ligne tant qu'elle est en cache (voir GridScan)
+            scan.row(i, grid.cells, base);
+        }
+        grid.scan = scan.build();
+        return grid;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
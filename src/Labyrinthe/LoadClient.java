@@ -0,0 +1,124 @@
+package Labyrinthe;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client de charge pour {@link SolveServer} : N clients en boucle fermée (chacun envoie sa
+ * requête suivante dès la réponse reçue) postent le même fichier pendant une durée donnée,
+ * puis le débit et les percentiles de latence sont affichés.
+ *
+ * <pre>
+ * java Labyrinthe.LoadClient http://localhost:8080/batch lot.txt [clients] [secondes]
+ * </pre>
+ */
+public final class LoadClient {
+
+    private LoadClient() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage : java Labyrinthe.LoadClient URL FICHIER [clients (16)] [secondes (10)]");
+            return;
+        }
+        URI uri = URI.create(args[0]);
+        byte[] body = Files.readAllBytes(Paths.get(args[1]));
+        int clients = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        long seconds = args.length > 3 ? Long.parseLong(args[3]) : 10;
+
+        Result result = run(uri, body, clients, seconds * 1_000_000_000L);
+        System.out.print(result);
+    }
+
+    /**
+     * Envoie le même corps en boucle depuis plusieurs clients.
+     *
+     * @param uri     Point d'entrée du service.
+     * @param body    Corps de chaque requête.
+     * @param clients Nombre de clients simultanés.
+     * @param nanos   Durée de l'essai.
+     * @return Bilan de l'essai.
+     * @throws InterruptedException si l'attente des clients est interrompue.
+     */
+    static Result run(URI uri, byte[] body, int clients, long nanos) throws InterruptedException {
+        Result result = new Result();
+        long deadline = System.nanoTime() + nanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient http = HttpClient.newBuilder().executor(executor).build()) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "text/plain")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            List<Thread> threads = new ArrayList<>();
+            for (int c = 0; c < clients; c++) {
+                threads.add(Thread.ofVirtual().start(() -> {
+                    while (System.nanoTime() < deadline) {
+                        long begin = System.nanoTime();
+                        int status;
+                        try {
+                            status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        result.record(status, System.nanoTime() - begin);
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        result.nanos = nanos;
+        return result;
+    }
+
+    /**
+     * Bilan d'un essai : compteurs par type de réponse et latences des réponses 200.
+     */
+    static final class Result {
+        final LongAdder ok = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder serverErrors = new LongAdder();
+        private final StatsSummary.Histogram micros = new StatsSummary.Histogram();
+        long nanos;
+
+        void record(int status, long latency) {
+            if (status == 200) {
+                ok.increment();
+                synchronized (this) {
+                    micros.add(latency / 1000);
+                }
+            } else if (status == 503) {
+                shed.increment();
+            } else if (status >= 500) {
+                serverErrors.increment();
+            } else {
+                failed.increment();
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            double seconds = nanos / 1e9;
+            long count = micros.count();
+            return String.format(Locale.ROOT,
+                    "%d réponses 200 (%.1f req/s), %d refus 503, %d erreurs, %d erreurs du service%n"
+                            + "latence (µs) : p50 %d, p90 %d, p99 %d, max %d%n",
+                    ok.sum(), ok.sum() / seconds, shed.sum(), failed.sum(), serverErrors.sum(),
+                    count == 0 ? 0 : micros.percentile(0.5), count == 0 ? 0 : micros.percentile(0.9),
+                    count == 0 ? 0 : micros.percentile(0.99), micros.max());
+        }
+    }
+}
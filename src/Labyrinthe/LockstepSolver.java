@@ -0,0 +1,180 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+
+/**
+ * Moteur de décision (Y/N) qui fait avancer le feu et le prisonnier pas à pas, ensemble.
+ *
+ * Au pas t, le front du feu contient les cases brûlées au temps t et le front du prisonnier
+ * les cases atteintes au temps t. On propage d'abord le feu au temps t + 1, puis le prisonnier
+ * vers les cases voisines encore intactes : c'est exactement la contrainte
+ * {@code t + 1 < fireTime} de {@link LabyrinthEscape#aStarWithFire}.
+ *
+ * La recherche s'arrête dès que le prisonnier atteint 'S' ou que son front est vide. Aucune
+ * table des temps du feu ni aucun chemin n'est construit : seuls deux bitsets (cases brûlées,
+ * cases visitées) et les fronts courants sont conservés.
+ */
+final class LockstepSolver {
+
+    private LockstepSolver() {
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe avant que le feu n'atteigne la sortie.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(Grid grid) {
+        return canEscape(grid, null);
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe en remplissant les statistiques :
+     * cases brûlées, cases atteintes par le prisonnier et plus grand front du prisonnier.
+     *
+     * @param grid  Grille du labyrinthe.
+     * @param stats Statistiques à remplir, ou null.
+     * @return true si une évasion est possible, sinon false.
+     */
+    static boolean canEscape(Grid grid, SolveStats stats) {
+        return canEscape(grid, stats, null);
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe sous l'observation d'un moniteur,
+     * consulté à la fin d'un pas dès que {@link SolveMonitor#INTERVAL} cases de plus ont été
+     * brûlées ou atteintes (le front transmis est celui du prisonnier).
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param stats   Statistiques à remplir, ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return true si une évasion est possible, sinon false.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static boolean canEscape(Grid grid, SolveStats stats, SolveMonitor monitor) {
+        return canEscape(grid, grid.scan(), stats, monitor);
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe à partir du prétraitement de la
+     * grille (départ, sortie et sources de feu déjà relevés).
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param scan    Prétraitement de la grille.
+     * @param stats   Statistiques à remplir, ou null.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return true si une évasion est possible, sinon false.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static boolean canEscape(Grid grid, GridScan scan, SolveStats stats, SolveMonitor monitor) {
+        long begin = stats == null ? 0 : System.nanoTime();
+        int start = scan.start;
+        int end = scan.exit;
+        if (start < 0 || end < 0) {
+            return false;
+        }
+
+        byte[] cells = grid.cells;
+        int[] offsets = grid.neighbourOffsets();
+        long[] burned = new long[(cells.length + 63) >>> 6];
+        long[] visited = new long[(cells.length + 63) >>> 6];
+
+        // Front du feu au temps 0 : toutes les sources 'F'
+        int fireSize = scan.fireCount;
+        int[] fire = Arrays.copyOf(scan.fires, Math.max(16, fireSize));
+        for (int i = 0; i < fireSize; i++) {
+            burned[fire[i] >>> 6] |= 1L << fire[i];
+        }
+        int[] nextFire = new int[fire.length];
+
+        int[] prisoner = new int[16];
+        int[] nextPrisoner = new int[16];
+        int prisonerSize = 1;
+        prisoner[0] = start;
+        visited[start >>> 6] |= 1L << start;
+
+        // Compteurs pour SolveStats
+        long burnedCount = fireSize;
+        long reachedCount = 1;
+        long peak = 1;
+        long nextCheck = SolveMonitor.INTERVAL;
+
+        while (true) {
+            // 1) Le feu avance d'un pas
+            int nextFireSize = 0;
+            for (int i = 0; i < fireSize; i++) {
+                int idx = fire[i];
+                for (int k = 0; k < 4; k++) {
+                    int n = idx + offsets[k];
+                    long bit = 1L << n;
+                    if (cells[n] != Grid.WALL && (burned[n >>> 6] & bit) == 0) {
+                        burned[n >>> 6] |= bit;
+                        if (nextFireSize == nextFire.length) {
+                            nextFire = Arrays.copyOf(nextFire, nextFireSize << 1);
+                        }
+                        nextFire[nextFireSize++] = n;
+                    }
+                }
+            }
+            int[] tmp = fire;
+            fire = nextFire;
+            nextFire = tmp;
+            fireSize = nextFireSize;
+            burnedCount += nextFireSize;
+
+            // 2) Le prisonnier avance d'un pas vers les cases que le feu n'a pas encore atteintes
+            int nextPrisonerSize = 0;
+            for (int i = 0; i < prisonerSize; i++) {
+                int idx = prisoner[i];
+                for (int k = 0; k < 4; k++) {
+                    int n = idx + offsets[k];
+                    long bit = 1L << n;
+                    if (cells[n] == Grid.WALL
+                            || ((burned[n >>> 6] | visited[n >>> 6]) & bit) != 0) {
+                        continue;
+                    }
+                    if (n == end) {
+                        record(stats, begin, burnedCount, reachedCount + 1, peak);
+                        return true;
+                    }
+                    visited[n >>> 6] |= bit;
+                    if (nextPrisonerSize == nextPrisoner.length) {
+                        nextPrisoner = Arrays.copyOf(nextPrisoner, nextPrisonerSize << 1);
+                    }
+                    nextPrisoner[nextPrisonerSize++] = n;
+                }
+            }
+            if (nextPrisonerSize == 0) {
+                // Le prisonnier est encerclé
+                record(stats, begin, burnedCount, reachedCount, peak);
+                return false;
+            }
+            reachedCount += nextPrisonerSize;
+            peak = Math.max(peak, nextPrisonerSize);
+            tmp = prisoner;
+            prisoner = nextPrisoner;
+            nextPrisoner = tmp;
+            prisonerSize = nextPrisonerSize;
+
+            if (monitor != null && burnedCount + reachedCount >= nextCheck) {
+                nextCheck = burnedCount + reachedCount + SolveMonitor.INTERVAL;
+                monitor.checkpoint(SolveMonitor.Stage.SEARCH, burnedCount + reachedCount, prisoner, 0, prisonerSize);
+            }
+        }
+    }
+
+    /**
+     * Recopie les compteurs dans les statistiques, si elles sont demandées.
+     * Les cases du prisonnier sont ajoutées et retirées une seule fois chacune.
+     */
+    private static void record(SolveStats stats, long begin, long burned, long reached, long peak) {
+        if (stats != null) {
+            stats.searchNanos = System.nanoTime() - begin;
+            stats.fireCellsVisited = burned;
+            stats.nodesPushed = reached;
+            stats.nodesPopped = reached;
+            stats.peakQueue = peak;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package Labyrinthe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Zone mémoire hors tas adossée à un fichier temporaire projeté en mémoire.
+ *
+ * Un {@link MappedByteBuffer} est limité à 2 Gio : la zone est découpée en tranches de 1 Gio
+ * et adressée par des positions {@code long}. Les entiers et les longs ne chevauchent jamais
+ * deux tranches tant que leur position est alignée sur leur taille. Le fichier est supprimé à
+ * la fermeture ; les pages projetées restent valides jusqu'à ce que le tampon soit collecté.
+ */
+final class MappedBuffer implements Closeable {
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = (int) (CHUNK_SIZE - 1);
+
+    /** Bloc de zéros pour {@link #clear}. */
+    private static final byte[] ZEROS = new byte[1 << 16];
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long capacity;
+
+    private MappedBuffer(FileChannel channel, long capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        int count = (int) ((capacity + CHUNK_SIZE - 1) >>> CHUNK_SHIFT);
+        this.chunks = new MappedByteBuffer[Math.max(count, 1)];
+        for (int i = 0; i < chunks.length; i++) {
+            long start = (long) i << CHUNK_SHIFT;
+            long length = Math.min(CHUNK_SIZE, Math.max(capacity - start, 1));
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+            chunks[i].order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Crée une zone remplie de zéros dans un fichier temporaire.
+     *
+     * @param dir   Répertoire du fichier temporaire.
+     * @param bytes Taille de la zone, en octets.
+     * @return Zone projetée en mémoire.
+     * @throws IOException si le fichier ne peut pas être créé ou projeté.
+     */
+    static MappedBuffer create(Path dir, long bytes) throws IOException {
+        Path file = Files.createTempFile(dir, "labyrinthe-", ".bin");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        try {
+            return new MappedBuffer(channel, bytes);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** @return Taille de la zone, en octets. */
+    long capacity() {
+        return capacity;
+    }
+
+    byte getByte(long pos) {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].get((int) pos & CHUNK_MASK);
+    }
+
+    void putByte(long pos, byte value) {
+        chunks[(int) (pos >>> CHUNK_SHIFT)].put((int) pos & CHUNK_MASK, value);
+    }
+
+    /** Lit l'entier en {@code pos}, qui doit être un multiple de 4. */
+    int getInt(long pos) {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getInt((int) pos & CHUNK_MASK);
+    }
+
+    /** Écrit l'entier en {@code pos}, qui doit être un multiple de 4. */
+    void putInt(long pos, int value) {
+        chunks[(int) (pos >>> CHUNK_SHIFT)].putInt((int) pos & CHUNK_MASK, value);
+    }
+
+    /** Lit le long en {@code pos}, qui doit être un multiple de 8. */
+    long getLong(long pos) {
+        return chunks[(int) (pos >>> CHUNK_SHIFT)].getLong((int) pos & CHUNK_MASK);
+    }
+
+    /** Écrit le long en {@code pos}, qui doit être un multiple de 8. */
+    void putLong(long pos, long value) {
+        chunks[(int) (pos >>> CHUNK_SHIFT)].putLong((int) pos & CHUNK_MASK, value);
+    }
+
+    /**
+     * Copie des octets du tas vers la zone (la copie peut chevaucher deux tranches).
+     */
+    void put(long pos, byte[] src, int off, int length) {
+        while (length > 0) {
+            int inChunk = (int) pos & CHUNK_MASK;
+            int n = (int) Math.min(length, CHUNK_SIZE - inChunk);
+            chunks[(int) (pos >>> CHUNK_SHIFT)].put(inChunk, src, off, n);
+            pos += n;
+            off += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Remet à zéro les octets de [from, to[.
+     */
+    void clear(long from, long to) {
+        while (from < to) {
+            int n = (int) Math.min(to - from, ZEROS.length);
+            put(from, ZEROS, 0, n);
+            from += n;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
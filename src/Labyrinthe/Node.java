@@ -0,0 +1,83 @@
+package Labyrinthe;
+
+/**
+ * Représente un nœud (case) dans la grille utilisée pour le calcul du chemin.
+ * Chaque nœud contient sa position, son coût, et une référence à son parent pour reconstruire le chemin.
+ */
+class Node implements Comparable<Node> {
+    /** Coordonnée x de la case. */
+    int x;
+
+    /** Coordonnée y de la case. */
+    int y;
+
+    /** Coût du chemin depuis le point de départ. */
+    int gCost;
+
+    /** Estimation heuristique de la distance au point de sortie. */
+    int hCost;
+
+    /** Référence au parent de ce nœud, utilisée pour reconstruire le chemin. */
+    Node parent;
+
+    /**
+     * Constructeur de Node.
+     *
+     * @param x       Coordonnée x de la case.
+     * @param y       Coordonnée y de la case.
+     * @param gCost   Coût parcouru depuis le départ.
+     * @param hCost   Estimation heuristique de la distance au point de sortie.
+     * @param parent  Référence au parent de ce nœud.
+     */
+    public Node(int x, int y, int gCost, int hCost, Node parent) {
+        this.x = x;
+        this.y = y;
+        this.gCost = gCost;
+        this.hCost = hCost;
+        this.parent = parent;
+    }
+
+    /**
+     * Calcule le coût total (fCost) de ce nœud.
+     * fCost = gCost + hCost
+     *
+     * @return Coût total du nœud.
+     */
+    public int fCost() {
+        return gCost + hCost;
+    }
+
+    /**
+     * Compare deux nœuds en fonction de leur coût total (fCost).
+     *
+     * @param other L'autre nœud à comparer.
+     * @return Résultat de la comparaison.
+     */
+    @Override
+    public int compareTo(Node other) {
+        return Integer.compare(this.fCost(), other.fCost());
+    }
+    /**
+     * Vérifie si deux nœuds sont égaux en comparant leurs coordonnées.
+     *
+     * @param o Objet à comparer.
+     * @return true si les nœuds sont égaux, sinon false.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Node)) return false;
+        Node n = (Node) o;
+        return this.x == n.x && this.y == n.y;
+    }
+    /**
+     * Calcule le code de hachage pour le nœud.
+     *
+     * @return Code de hachage basé sur les coordonnées.
+     */
+    @Override
+    public int hashCode() {
+        // Combinaison simple des coordonnées
+        return 31 * x + y;
+    }
+}
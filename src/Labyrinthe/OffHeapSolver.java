@@ -0,0 +1,271 @@
+package Labyrinthe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Résolution hors tas pour les cartes plus grandes que le tas Java.
+ *
+ * La grille (1 octet par case, même disposition bordée que {@link Grid}), les temps du feu
+ * (un entier par case) et l'état de la recherche (file de BFS et bitset des cases visitées)
+ * sont rangés dans des fichiers temporaires projetés en mémoire ({@link MappedBuffer}).
+ * Les indices sont des {@code long} : seule la taille du disque limite la carte, le tas ne
+ * contient qu'une ligne de lecture, et le système pagine les zones selon la mémoire disponible.
+ *
+ * La recherche est un BFS par niveaux avec la contrainte de feu de
+ * {@link LabyrinthEscape#aStarWithFire} : chaque pas coûte 1, la première arrivée sur une case
+ * est donc la meilleure et le BFS donne la même réponse que l'A*. Les zones sont réutilisées
+ * d'un labyrinthe à l'autre et ne grandissent que si nécessaire.
+ *
+ * Le BFS du feu suppose une propagation d'une case par unité de temps : les grilles à
+ * matériaux ({@link Grid#isWeighted()}) sont refusées.
+ */
+final class OffHeapSolver implements Closeable {
+
+    /** Temps du feu stocké pour une case jamais atteinte (les temps sont stockés + 1). */
+    private static final int NEVER = 0;
+
+    private final Path dir;
+
+    private MappedBuffer grid;
+    private MappedBuffer fire;
+    private MappedBuffer queue;
+    private MappedBuffer visited;
+
+    private long rows;
+    private long cols;
+    private long stride;
+    private long start;
+    private long exit;
+
+    /** Cases atteintes par le prisonnier lors de la dernière recherche. */
+    private long reached;
+
+    /**
+     * @param dir Répertoire des fichiers temporaires.
+     */
+    OffHeapSolver(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Lit T labyrinthes et écrit "Y" ou "N" pour chacun, dans l'ordre de lecture.
+     *
+     * @param reader  Lecteur de labyrinthes.
+     * @param out     Destination des résultats.
+     * @param summary Résumé qui reçoit les statistiques de chaque labyrinthe, ou null.
+     * @throws IOException si le fichier est mal formé, si l'écriture échoue ou si les
+     *                     fichiers temporaires ne peuvent pas être créés.
+     */
+    void solveAll(LabyrinthReader reader, Writer out, StatsSummary summary) throws IOException {
+        int T = reader.readInt(); // Nombre de labyrinthes
+        for (int t = 0; t < T; t++) {
+            load(reader);
+            SolveStats stats = summary == null ? null : new SolveStats();
+            boolean escaped = canEscape(stats);
+            if (summary != null) {
+                summary.add(t + 1, stats);
+            }
+            out.write(escaped ? "Y\n" : "N\n");
+        }
+    }
+
+    /**
+     * Lit un labyrinthe ("N M" puis N lignes) directement dans la zone de la grille.
+     *
+     * @param reader Lecteur positionné sur l'en-tête du labyrinthe.
+     * @throws IOException si le format est incorrect ou si la grille contient des matériaux.
+     */
+    void load(LabyrinthReader reader) throws IOException {
+        int N = reader.readInt(); // Nombre de lignes
+        int M = reader.readInt(); // Nombre de colonnes
+        reader.skipLine();
+
+        rows = N;
+        cols = M;
+        stride = cols + 2;
+        long cells = (rows + 2) * stride;
+        ensureCapacity(cells);
+
+        byte[] row = new byte[(int) stride];
+        Arrays.fill(row, Grid.WALL);
+        grid.put(0, row, 0, row.length);
+        grid.put((rows + 1) * stride, row, 0, row.length);
+        start = -1;
+        exit = -1;
+        for (int i = 0; i < N; i++) {
+            reader.readRow(row, 1, M, i + 1);
+            long base = (i + 1) * stride;
+            for (int c = 1; c <= M; c++) {
+                if (Grid.spreadCost(row[c]) > 1) {
+                    throw new IOException("Matériau '" + (char) row[c] + "' en ligne " + (i + 1)
+                            + " : --offheap ne gère que les cases ordinaires.");
+                }
+                if (row[c] == Grid.START && start < 0) {
+                    start = base + c;
+                } else if (row[c] == Grid.EXIT && exit < 0) {
+                    exit = base + c;
+                }
+            }
+            grid.put(base, row, 0, row.length);
+        }
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au dernier labyrinthe chargé.
+     *
+     * @param stats Statistiques à remplir, ou null.
+     * @return true si une évasion est possible, sinon false.
+     */
+    boolean canEscape(SolveStats stats) {
+        if (start < 0 || exit < 0) {
+            // Si pas de D ou pas de S, échec direct
+            return false;
+        }
+        long cells = (rows + 2) * stride;
+        long begin = stats == null ? 0 : System.nanoTime();
+        long burned = computeFireTime(cells);
+        long middle = stats == null ? 0 : System.nanoTime();
+        boolean escaped = search(cells);
+        if (stats != null) {
+            stats.fireNanos = middle - begin;
+            stats.searchNanos = System.nanoTime() - middle;
+            stats.fireCellsVisited = burned;
+            stats.nodesPushed = reached;
+            stats.nodesPopped = reached;
+            stats.cells = rows * cols;
+            stats.escaped = escaped;
+        }
+        return escaped;
+    }
+
+    /**
+     * BFS multi-source du feu dans la zone des temps du feu.
+     *
+     * @return Nombre de cases atteintes par le feu.
+     */
+    private long computeFireTime(long cells) {
+        fire.clear(0, cells * Integer.BYTES);
+        long head = 0;
+        long tail = 0;
+
+        // Enfile toutes les positions 'F' (feu) avec temps = 0
+        for (long r = 1; r <= rows; r++) {
+            long base = r * stride;
+            for (long idx = base + 1; idx <= base + cols; idx++) {
+                if (grid.getByte(idx) == Grid.FIRE) {
+                    fire.putInt(idx * Integer.BYTES, 1);
+                    queue.putLong(tail++ * Long.BYTES, idx);
+                }
+            }
+        }
+
+        // Parcours BFS pour calculer la propagation du feu
+        long[] offsets = {-stride, 1, stride, -1};
+        while (head < tail) {
+            long idx = queue.getLong(head++ * Long.BYTES);
+            int t = fire.getInt(idx * Integer.BYTES) + 1;
+            for (long off : offsets) {
+                long n = idx + off;
+                // La bordure de murs évite tout test de bornes
+                if (grid.getByte(n) != Grid.WALL && fire.getInt(n * Integer.BYTES) == NEVER) {
+                    fire.putInt(n * Integer.BYTES, t);
+                    queue.putLong(tail++ * Long.BYTES, n);
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * BFS du prisonnier, niveau par niveau : au niveau t, la file contient les cases atteintes
+     * au temps t, et une case n'est entrée au temps t + 1 que si le feu n'y est pas encore.
+     */
+    private boolean search(long cells) {
+        visited.clear(0, ((cells + 63) >>> 6) * Long.BYTES);
+        long[] offsets = {-stride, 1, stride, -1};
+        long head = 0;
+        long tail = 0;
+        queue.putLong(tail++ * Long.BYTES, start);
+        mark(start);
+        int t = 0;
+        try {
+            while (head < tail) {
+                long levelEnd = tail;
+                int next = t + 1;
+                while (head < levelEnd) {
+                    long idx = queue.getLong(head++ * Long.BYTES);
+                    for (long off : offsets) {
+                        long n = idx + off;
+                        if (grid.getByte(n) == Grid.WALL || isMarked(n)) {
+                            continue;
+                        }
+                        // Le feu y arrive avant ou en même temps => pas possible
+                        int stored = fire.getInt(n * Integer.BYTES);
+                        if (stored != NEVER && next >= stored - 1) {
+                            continue;
+                        }
+                        if (n == exit) {
+                            return true;
+                        }
+                        mark(n);
+                        queue.putLong(tail++ * Long.BYTES, n);
+                    }
+                }
+                t = next;
+            }
+            return false;
+        } finally {
+            reached = tail;
+        }
+    }
+
+    private void mark(long idx) {
+        long pos = (idx >>> 6) * Long.BYTES;
+        visited.putLong(pos, visited.getLong(pos) | (1L << idx));
+    }
+
+    private boolean isMarked(long idx) {
+        return (visited.getLong((idx >>> 6) * Long.BYTES) & (1L << idx)) != 0;
+    }
+
+    /**
+     * Agrandit les zones si le labyrinthe suivant ne tient pas dans les zones actuelles.
+     */
+    private void ensureCapacity(long cells) throws IOException {
+        if (grid != null && grid.capacity() >= cells) {
+            return;
+        }
+        close();
+        grid = MappedBuffer.create(dir, cells);
+        fire = MappedBuffer.create(dir, cells * Integer.BYTES);
+        queue = MappedBuffer.create(dir, cells * Long.BYTES);
+        visited = MappedBuffer.create(dir, ((cells + 63) >>> 6) * Long.BYTES);
+    }
+
+    @Override
+    public void close() throws IOException {
+        MappedBuffer[] buffers = {grid, fire, queue, visited};
+        grid = null;
+        fire = null;
+        queue = null;
+        visited = null;
+        IOException error = null;
+        for (MappedBuffer buffer : buffers) {
+            if (buffer == null) {
+                continue;
+            }
+            try {
+                buffer.close();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
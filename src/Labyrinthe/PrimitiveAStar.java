@@ -0,0 +1,347 @@
+package Labyrinthe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Variante de {@link LabyrinthEscape#aStarWithFire} sans allocation par nœud.
+ * Les cases sont repérées par leur indice dans la {@link Grid}, l'ensemble fermé
+ * est une table de tampons et le parent de chaque case est mémorisé sous forme de direction ;
+ * ces tables sont empruntées à une réserve commune ({@link SolverWorkspace}) et réutilisées
+ * d'une recherche à l'autre.
+ *
+ * Chaque déplacement coûte 1 et l'heuristique de Manhattan varie d'au plus 1 à chaque pas :
+ * le fCost d'un voisin ne dépasse donc jamais celui du nœud courant de plus de 2, et la file
+ * de priorité se réduit à quelques piles d'entiers (file à seaux).
+ */
+final class PrimitiveAStar {
+
+    /** Représente une valeur très grande pour l'initialisation. */
+    private static final int INF = Integer.MAX_VALUE;
+
+    /** Déplacements en ligne et en colonne, dans l'ordre de {@link Grid#neighbourOffsets()}. */
+    private static final int[] DX = {-1, 0, 1, 0};
+    private static final int[] DY = {0, 1, 0, -1};
+
+    private PrimitiveAStar() {
+    }
+
+    /**
+     * Adaptateur pour l'ancienne représentation en tableaux 2D.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param start    Position de départ.
+     * @param end      Position de sortie.
+     * @param fireTime Temps d'arrivée du feu sur chaque case.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> aStarWithFire(char[][] grid, int[] start, int[] end, int[][] fireTime) {
+        Grid g = Grid.of(grid);
+        int[] flatFire = new int[g.size()];
+        Arrays.fill(flatFire, INF);
+        for (int r = 0; r < g.rows; r++) {
+            System.arraycopy(fireTime[r], 0, flatFire, g.index(r, 0), g.cols);
+        }
+        return aStarWithFire(g, g.index(start[0], start[1]), g.index(end[0], end[1]), flatFire);
+    }
+
+    /**
+     * Cherche un chemin sécurisé avec la même contrainte de feu que
+     * {@link LabyrinthEscape#aStarWithFire}.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param endIdx   Indice de la case de sortie.
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> aStarWithFire(Grid grid, int startIdx, int endIdx, int[] fireTime) {
+        return aStarWithFire(grid, startIdx, new int[]{endIdx}, fireTime);
+    }
+
+    /**
+     * Cherche un chemin sécurisé vers la plus proche de plusieurs sorties.
+     *
+     * L'heuristique est le minimum des distances de Manhattan aux sorties. Elle varie d'au
+     * plus 1 à chaque pas : le fCost d'un voisin vaut fCost(courant), fCost(courant) + 1 ou
+     * fCost(courant) + 2, et la file de priorité se réduit à trois piles d'entiers utilisées
+     * en rotation (une seule sortie n'utilise que deux d'entre elles).
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> aStarWithFire(Grid grid, int startIdx, int[] exits, int[] fireTime) {
+        return aStarWithFire(grid, startIdx, exits, fireTime, null);
+    }
+
+    /**
+     * Cherche un chemin sécurisé vers la plus proche de plusieurs sorties, en comptant
+     * les opérations sur la file. Les compteurs sont locaux et ne sont recopiés dans
+     * {@code stats} qu'à la fin.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param stats    Statistiques à remplir, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> aStarWithFire(Grid grid, int startIdx, int[] exits, int[] fireTime, SolveStats stats) {
+        return aStarWithFire(grid, startIdx, exits, fireTime, null, stats);
+    }
+
+    /**
+     * Cherche un chemin sécurisé en se limitant à un sous-ensemble de cases
+     * (voir {@link ClusterIndex}).
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param allowed  Bitset des cases autorisées, indexé comme la grille, ou null pour toutes.
+     * @param stats    Statistiques à remplir, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    static List<Node> aStarWithFire(Grid grid, int startIdx, int[] exits, int[] fireTime, long[] allowed,
+                                    SolveStats stats) {
+        return aStarWithFire(grid, startIdx, exits, fireTime, allowed, stats, null);
+    }
+
+    /**
+     * Cherche un chemin sécurisé sous l'observation d'un moniteur. Le front transmis au
+     * moniteur est la pile du fCost courant.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param allowed  Bitset des cases autorisées, indexé comme la grille, ou null pour toutes.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    static List<Node> aStarWithFire(Grid grid, int startIdx, int[] exits, int[] fireTime, long[] allowed,
+                                    SolveStats stats, SolveMonitor monitor) {
+        return aStarWithFire(grid, startIdx, exits, DistanceField.of(fireTime), allowed, stats, monitor);
+    }
+
+    /**
+     * Cherche un chemin sécurisé à partir d'une table du feu de largeur quelconque. L'état de
+     * la recherche est pris dans des tables empruntées ({@link SolverWorkspace}).
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param allowed  Bitset des cases autorisées, indexé comme la grille, ou null pour toutes.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    static List<Node> aStarWithFire(Grid grid, int startIdx, int[] exits, DistanceField fireTime, long[] allowed,
+                                    SolveStats stats, SolveMonitor monitor) {
+        SolverWorkspace workspace = SolverWorkspace.acquire();
+        try {
+            DistanceField bestG = workspace.bestG(grid.cells.length);
+            int exit = search(grid, startIdx, exits, fireTime, allowed, stats, monitor, workspace, bestG);
+            if (exit < 0) {
+                return null;
+            }
+            return reconstructPath(grid, exit, bestG.get(exit) + 1, workspace.parentDir(grid.cells.length),
+                    grid.neighbourOffsets());
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Vérifie seulement qu'un chemin sécurisé existe, sans construire de nœuds.
+     *
+     * @param grid     Grille du labyrinthe.
+     * @param startIdx Indice de la case de départ.
+     * @param exits    Indices des cases de sortie (au moins une).
+     * @param fireTime Temps d'arrivée du feu sur chaque case, indexé comme la grille.
+     * @param stats    Statistiques à remplir, ou null.
+     * @param monitor  Moniteur de progression et d'annulation, ou null.
+     * @return true si une sortie est atteinte avant le feu.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    static boolean reachesExit(Grid grid, int startIdx, int[] exits, DistanceField fireTime, SolveStats stats,
+                               SolveMonitor monitor) {
+        SolverWorkspace workspace = SolverWorkspace.acquire();
+        try {
+            return search(grid, startIdx, exits, fireTime, null, stats, monitor, workspace,
+                    workspace.bestG(grid.cells.length)) >= 0;
+        } finally {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Cœur de l'A*. Au retour, le coût g de chaque case atteinte ({@code bestG}, remise à
+     * l'infini par l'appelant) et la direction de son parent restent dans les tables du
+     * {@code workspace}, jusqu'à sa prochaine utilisation.
+     *
+     * @return Indice de la sortie atteinte, ou -1 si aucun chemin.
+     */
+    private static int search(Grid grid, int startIdx, int[] exits, DistanceField fireTime, long[] allowed,
+                              SolveStats stats, SolveMonitor monitor, SolverWorkspace workspace,
+                              DistanceField bestG) {
+        byte[] cells = grid.cells;
+        int[] offsets = grid.neighbourOffsets();
+        int stride = grid.stride;
+        int[] exitX = new int[exits.length];
+        int[] exitY = new int[exits.length];
+        for (int e = 0; e < exits.length; e++) {
+            exitX[e] = exits[e] / stride;
+            exitY[e] = exits[e] % stride;
+        }
+
+        char[] closed = workspace.closed(cells.length);
+        char closedMark = workspace.closedMark();
+        byte[] parentDir = workspace.parentDir(cells.length);
+
+        // Piles des niveaux fCost, fCost + 1 et fCost + 2 (indice = fCost % 3)
+        int[][] buckets = workspace.buckets;
+        int[] sizes = new int[3];
+
+        int f = heuristic(startIdx / stride, startIdx % stride, exitX, exitY);
+        bestG.set(startIdx, 0);
+        buckets[f % 3][sizes[f % 3]++] = startIdx;
+
+        // Compteurs pour SolveStats
+        long pushed = 1;
+        long popped = 0;
+        long stale = 0;
+        long peak = 1;
+
+        while (true) {
+            int b = f % 3;
+            if (sizes[b] == 0) {
+                if (sizes[0] + sizes[1] + sizes[2] == 0) {
+                    // Impossible de trouver un chemin sans être rattrapé par le feu
+                    record(stats, pushed, popped, stale, peak, -1);
+                    return -1;
+                }
+                f++;
+                continue;
+            }
+
+            int idx = buckets[b][--sizes[b]];
+            popped++;
+            // Une seule fois par nœud retiré, pas à chaque niveau vide parcouru
+            if (monitor != null && (popped & (SolveMonitor.INTERVAL - 1)) == 0) {
+                monitor.checkpoint(SolveMonitor.Stage.SEARCH, popped, buckets[b], 0, sizes[b]);
+            }
+
+            // Si déjà exploré, on skip
+            if (closed[idx] == closedMark) {
+                stale++;
+                continue;
+            }
+            closed[idx] = closedMark;
+
+            int x = idx / stride;
+            int y = idx - x * stride;
+            int g = bestG.get(idx);
+
+            // Si on atteint une sortie (heuristique nulle), le chemin est dans parentDir
+            if (f == g) {
+                record(stats, pushed, popped, stale, peak, g);
+                return idx;
+            }
+
+            int tentativeG = g + 1;
+            for (int k = 0; k < 4; k++) {
+                int nIdx = idx + offsets[k];
+
+                // La bordure de murs évite tout test de bornes
+                if (cells[nIdx] == Grid.WALL) {
+                    continue;
+                }
+                // Le feu y arrive avant ou en même temps => pas possible
+                if (tentativeG >= fireTime.get(nIdx)) {
+                    continue;
+                }
+                if (allowed != null && (allowed[nIdx >>> 6] & (1L << nIdx)) == 0) {
+                    continue;
+                }
+
+                if (bestG.lower(nIdx, tentativeG)) {
+                    parentDir[nIdx] = (byte) k;
+                    int nf = tentativeG + heuristic(x + DX[k], y + DY[k], exitX, exitY);
+                    int nb = nf % 3;
+                    if (sizes[nb] == buckets[nb].length) {
+                        buckets[nb] = Arrays.copyOf(buckets[nb], sizes[nb] << 1);
+                    }
+                    buckets[nb][sizes[nb]++] = nIdx;
+                    pushed++;
+                    peak = Math.max(peak, pushed - popped);
+                }
+            }
+        }
+    }
+
+    /**
+     * Recopie les compteurs d'une recherche dans les statistiques, si elles sont demandées.
+     */
+    private static void record(SolveStats stats, long pushed, long popped, long stale, long peak, long pathLength) {
+        if (stats != null) {
+            stats.nodesPushed = pushed;
+            stats.nodesPopped = popped;
+            stats.stalePops = stale;
+            stats.peakQueue = peak;
+            stats.pathLength = pathLength;
+        }
+    }
+
+    /**
+     * Calcule l'heuristique Manhattan vers la sortie la plus proche.
+     */
+    private static int heuristic(int x, int y, int[] exitX, int[] exitY) {
+        int h = Math.abs(x - exitX[0]) + Math.abs(y - exitY[0]);
+        for (int e = 1; e < exitX.length; e++) {
+            h = Math.min(h, Math.abs(x - exitX[e]) + Math.abs(y - exitY[e]));
+        }
+        return h;
+    }
+
+    /**
+     * Reconstruit le chemin en remontant les directions de parent depuis la sortie.
+     *
+     * @param grid      Grille du labyrinthe.
+     * @param endIdx    Indice de la sortie.
+     * @param length    Nombre de cases du chemin (gCost de la sortie + 1).
+     * @param parentDir Direction ayant permis d'atteindre chaque case.
+     * @param offsets   Décalages des voisins de la grille.
+     * @return Liste des nœuds constituant le chemin, de départ à arrivée.
+     */
+    private static List<Node> reconstructPath(Grid grid, int endIdx, int length, byte[] parentDir, int[] offsets) {
+        int[] cells = new int[length];
+        int idx = endIdx;
+        for (int g = length - 1; g > 0; g--) {
+            cells[g] = idx;
+            idx -= offsets[parentDir[idx]];
+        }
+        cells[0] = idx;
+
+        int endX = grid.row(endIdx);
+        int endY = grid.col(endIdx);
+        List<Node> path = new ArrayList<>(length);
+        Node parent = null;
+        for (int g = 0; g < length; g++) {
+            int x = grid.row(cells[g]);
+            int y = grid.col(cells[g]);
+            Node node = new Node(x, y, g, Math.abs(x - endX) + Math.abs(y - endY), parent);
+            path.add(node);
+            parent = node;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,578 @@
+package Labyrinthe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.zip.CRC32;
+
+/**
+ * Cache des résultats, indexé par une empreinte du contenu de la grille.
+ *
+ * La clé est une empreinte de 128 bits calculée sur les octets de la grille (dimensions
+ * comprises) : les positions de D et de S en font partie, et deux grilles identiques donnent
+ * la même clé quel que soit le fichier d'où elles viennent. La réponse ne dépend pas du moteur
+ * (ils sont tous exacts) : un résultat calculé par un moteur sert aux autres.
+ *
+ * Chaque entrée garde la réponse et, si elle a été demandée, le chemin ; la table des temps du
+ * feu est gardée en plus si le cache est créé avec {@code keepFireTimes}. Les entrées sont
+ * évincées par ordre d'utilisation (LRU) dès que leur taille estimée dépasse le budget.
+ *
+ * Avec un journal sur disque, chaque nouveau résultat (réponse et chemin, jamais la table du
+ * feu) y est ajouté à la fin, et le journal est relu à l'ouverture : un processus relancé
+ * repart avec les résultats déjà connus. Un enregistrement incomplet ou corrompu en fin de
+ * journal (arrêt brutal) est ignoré puis écrasé par les écritures suivantes.
+ *
+ * Thread-safe : les résolutions ont lieu hors du verrou, seule la table est protégée. Les
+ * écritures du journal se font elles aussi hors de ce verrou, sous un verrou à part : une
+ * recherche dans le cache n'attend jamais le disque.
+ */
+final class ResultCache implements Closeable {
+
+    /** Budget par défaut (256 Mio). */
+    static final long DEFAULT_BUDGET = 256L << 20;
+
+    /** Taille estimée d'une entrée vide (clé, entrée, maillon de la table). */
+    private static final int ENTRY_OVERHEAD = 128;
+
+    /** Taille de l'en-tête d'un enregistrement du journal : longueur et CRC32. */
+    private static final int RECORD_HEADER = 8;
+    /** Taille fixe d'un enregistrement : empreinte, dimensions, drapeaux, longueur du chemin. */
+    private static final int RECORD_FIXED = 8 + 8 + 4 + 4 + 1 + 4;
+
+    private static final int FLAG_ESCAPED = 1;
+    private static final int FLAG_PATH = 2;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final long budget;
+    private final boolean keepFireTimes;
+    private final boolean verifyHits;
+
+    /** Entrées, de la moins à la plus récemment utilisée. */
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(1024, 0.75f, true);
+    private long bytes;
+
+    /** Journal sur disque, ou null. */
+    private final FileChannel log;
+    /** Verrou des écritures du journal (et de {@link #logEnd}), distinct de celui de la table. */
+    private final Object logLock = new Object();
+    private long logEnd;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long written;
+    private long verified;
+    private long mismatches;
+    /** Contrôles interrompus par le budget de la demande : l'entrée reste servie. */
+    private long unverified;
+
+    private ResultCache(long budget, boolean keepFireTimes, boolean verifyHits, FileChannel log) {
+        this.budget = budget;
+        this.keepFireTimes = keepFireTimes;
+        this.verifyHits = verifyHits;
+        this.log = log;
+    }
+
+    /**
+     * Crée un cache en mémoire seulement.
+     *
+     * @param budget        Taille maximale estimée des entrées, en octets.
+     * @param keepFireTimes Vrai pour garder aussi la table des temps du feu.
+     * @param verifyHits    Vrai pour recalculer chaque résultat trouvé et le comparer.
+     * @return Cache vide.
+     */
+    static ResultCache inMemory(long budget, boolean keepFireTimes, boolean verifyHits) {
+        return new ResultCache(budget, keepFireTimes, verifyHits, null);
+    }
+
+    /**
+     * Ouvre (ou crée) un cache adossé à un journal sur disque, et le remplit avec le journal.
+     *
+     * @param logFile       Journal des résultats.
+     * @param budget        Taille maximale estimée des entrées en mémoire, en octets.
+     * @param keepFireTimes Vrai pour garder aussi la table des temps du feu (en mémoire).
+     * @param verifyHits    Vrai pour recalculer chaque résultat trouvé et le comparer.
+     * @return Cache ouvert.
+     * @throws IOException si le journal ne peut pas être lu ou créé.
+     */
+    static ResultCache open(Path logFile, long budget, boolean keepFireTimes, boolean verifyHits) throws IOException {
+        FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            ResultCache cache = new ResultCache(budget, keepFireTimes, verifyHits, channel);
+            cache.replay();
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Vérifie s'il est possible d'échapper au labyrinthe, en passant par le cache.
+     * Un résultat trouvé dans le cache ne mesure que le calcul de l'empreinte.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur utilisé en cas d'absence.
+     * @param stats  Statistiques à remplir, ou null.
+     * @return true si une évasion est possible, sinon false.
+     */
+    boolean canEscape(Grid grid, Engine engine, SolveStats stats) {
+        return solve(grid, engine, SolveBudget.Limits.NONE, stats) == Verdict.ESCAPE;
+    }
+
+    /**
+     * Résout un labyrinthe dans des limites données, en passant par le cache. Une réponse
+     * {@link Verdict#TIMEOUT} n'est pas gardée : la prochaine demande recalcule. Le contrôle
+     * d'un résultat trouvé (voir {@link #verify(Grid, Engine)}) respecte les mêmes limites.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur utilisé en cas d'absence.
+     * @param limits Limites de la résolution en cas d'absence.
+     * @param stats  Statistiques à remplir, ou null.
+     * @return Réponse trouvée ou calculée.
+     */
+    Verdict solve(Grid grid, Engine engine, SolveBudget.Limits limits, SolveStats stats) {
+        long begin = stats == null ? 0 : System.nanoTime();
+        Key key = Key.of(grid);
+        Entry entry = lookup(key);
+        if (entry != null && (!verifyHits
+                || verify(key, entry, grid, engine, limits.bounded() ? limits.start() : null))) {
+            if (stats != null) {
+                stats.engine = engine;
+                stats.cells = (long) grid.rows * grid.cols;
+                stats.searchNanos = System.nanoTime() - begin;
+                stats.escaped = entry.escaped;
+            }
+            return Verdict.of(entry.escaped);
+        }
+        Verdict verdict = LabyrinthEscape.solve(grid, engine, limits, stats);
+        if (verdict != Verdict.TIMEOUT) {
+            put(key, new Entry(verdict == Verdict.ESCAPE, false, null, null));
+        }
+        return verdict;
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé de D à S, en passant par le cache. Une entrée qui
+     * n'a que la réponse "Y" est complétée par le chemin.
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine {@link Engine#JPS} pour la recherche par points de saut, A* sinon.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     */
+    List<Node> findPath(Grid grid, Engine engine) {
+        return findPath(grid, engine, null);
+    }
+
+    /**
+     * Cherche le plus court chemin sécurisé de D à S, en passant par le cache, sous
+     * l'observation d'un moniteur (un budget, par exemple), qui s'applique aussi au contrôle
+     * d'un résultat trouvé. Une recherche interrompue n'entre pas dans le cache.
+     *
+     * @param grid    Grille du labyrinthe.
+     * @param engine  {@link Engine#JPS} pour la recherche par points de saut, A* sinon.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Liste des nœuds du chemin trouvé, ou null si aucun chemin.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt la recherche.
+     */
+    List<Node> findPath(Grid grid, Engine engine, SolveMonitor monitor) {
+        Key key = Key.of(grid);
+        Entry entry = lookup(key);
+        if (entry != null && verifyHits && !verify(key, entry, grid, engine, monitor)) {
+            entry = null;
+        }
+        if (entry != null && (entry.hasPath || !entry.escaped)) {
+            return entry.path == null ? null : toNodes(grid, entry.path);
+        }
+        GridScan scan = grid.scan();
+        int start = scan.start;
+        int end = scan.exit;
+        if (start < 0 || end < 0) {
+            put(key, new Entry(false, true, null, null));
+            return null;
+        }
+        int[] fireTime = LabyrinthEscape.computeFireField(grid, scan, null, monitor).toIntArray();
+        List<Node> path = engine == Engine.JPS && !scan.weighted
+                ? JumpPointSearch.findPath(grid, start, new int[]{end}, fireTime, null, monitor)
+                : PrimitiveAStar.aStarWithFire(grid, start, new int[]{end}, fireTime, null, null, monitor);
+        put(key, new Entry(path != null, true, toCells(grid, path), keepFireTimes ? fireTime : null));
+        return path;
+    }
+
+    /**
+     * @param grid Grille du labyrinthe.
+     * @return Table des temps du feu gardée pour cette grille (partagée, ne pas modifier), ou
+     *         null si elle n'est pas dans le cache.
+     */
+    int[] fireTimes(Grid grid) {
+        Key key = Key.of(grid);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        return entry == null ? null : entry.fireTime;
+    }
+
+    /**
+     * Recalcule complètement un labyrinthe et compare le résultat à celui du cache (réponse,
+     * et longueur du chemin s'il est connu).
+     * Une entrée divergente est retirée du cache (elle sera recalculée à la prochaine demande).
+     *
+     * @param grid   Grille du labyrinthe.
+     * @param engine Moteur de la résolution de contrôle.
+     * @return true si le labyrinthe est absent du cache ou si l'entrée est confirmée.
+     */
+    boolean verify(Grid grid, Engine engine) {
+        Key key = Key.of(grid);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        return entry == null || verify(key, entry, grid, engine, null);
+    }
+
+    /**
+     * Contrôle une entrée sous le moniteur de la demande. Un contrôle interrompu ne conclut
+     * rien : l'entrée est gardée et servie, sans compter ni comme vérifiée ni comme divergente.
+     */
+    private boolean verify(Key key, Entry entry, Grid grid, Engine engine, SolveMonitor monitor) {
+        boolean ok;
+        try {
+            if (entry.hasPath) {
+                GridScan scan = grid.scan();
+                List<Node> path = scan.start < 0 || scan.exit < 0 ? null
+                        : FireIndex.build(grid, scan, null, monitor).findPath(scan.start, new int[]{scan.exit},
+                                engine, null, monitor);
+                ok = path == null ? entry.path == null
+                        : entry.path != null && entry.path.length == path.size();
+            } else {
+                ok = LabyrinthEscape.canEscape(grid, engine, null, monitor) == entry.escaped;
+            }
+        } catch (CancellationException e) {
+            synchronized (this) {
+                unverified++;
+            }
+            return true;
+        }
+        synchronized (this) {
+            verified++;
+            if (!ok) {
+                mismatches++;
+                remove(key);
+            }
+        }
+        return ok;
+    }
+
+    /**
+     * Cherche une entrée et met à jour les compteurs.
+     */
+    private synchronized Entry lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return entry;
+    }
+
+    /**
+     * Ajoute ou remplace une entrée, évince les entrées les plus anciennes jusqu'à revenir sous
+     * le budget, puis écrit l'entrée dans le journal si elle apporte du nouveau. La décision est
+     * prise sous le verrou de la table, l'écriture hors de lui.
+     */
+    private void put(Key key, Entry entry) {
+        boolean journal;
+        synchronized (this) {
+            Entry old = entries.get(key);
+            if (old != null && old.hasPath && !entry.hasPath) {
+                return; // On ne remplace pas un chemin connu par une simple réponse
+            }
+            // Ce que le journal contient déjà pour la clé suit l'entrée, et disparaît avec elle
+            journal = log != null && (old == null || !old.journaled || entry.hasPath && !old.journaledPath);
+            entry.journaled = journal || old != null && old.journaled;
+            entry.journaledPath = journal ? entry.hasPath : old != null && old.journaledPath;
+            insert(key, entry);
+        }
+        if (!journal) {
+            return;
+        }
+        try {
+            synchronized (logLock) {
+                append(key, entry);
+            }
+            synchronized (this) {
+                written++;
+            }
+        } catch (IOException e) {
+            // Le cache en mémoire reste valable ; le journal ne sera simplement pas complet
+            System.err.println("Journal du cache : écriture impossible : " + e.getMessage());
+        }
+    }
+
+    private void insert(Key key, Entry entry) {
+        Entry old = entries.put(key, entry);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+        bytes += entry.bytes();
+        var it = entries.entrySet().iterator();
+        while (bytes > budget && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            bytes -= eldest.bytes();
+            evictions++;
+        }
+    }
+
+    private void remove(Key key) {
+        Entry old = entries.remove(key);
+        if (old != null) {
+            bytes -= old.bytes();
+        }
+    }
+
+    /**
+     * Ajoute un enregistrement à la fin du journal.
+     */
+    private void append(Key key, Entry entry) throws IOException {
+        int pathLength = entry.path == null ? 0 : entry.path.length;
+        int payload = RECORD_FIXED + 4 * pathLength;
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER + payload).order(ByteOrder.LITTLE_ENDIAN);
+        record.position(RECORD_HEADER);
+        record.putLong(key.h1).putLong(key.h2).putInt(key.rows).putInt(key.cols)
+                .put((byte) entry.flags()).putInt(pathLength);
+        for (int i = 0; i < pathLength; i++) {
+            record.putInt(entry.path[i]);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), RECORD_HEADER, payload);
+        record.putInt(0, payload).putInt(4, (int) crc.getValue());
+        record.flip();
+        while (record.hasRemaining()) {
+            logEnd += log.write(record, logEnd);
+        }
+    }
+
+    /**
+     * Relit le journal depuis le début ; le dernier enregistrement d'une clé l'emporte.
+     * La lecture s'arrête au premier enregistrement incomplet ou corrompu.
+     */
+    private void replay() throws IOException {
+        long size = log.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER).order(ByteOrder.LITTLE_ENDIAN);
+        long pos = 0;
+        while (pos + RECORD_HEADER <= size) {
+            header.clear();
+            readFully(header, pos);
+            int payload = header.getInt(0);
+            if (payload < RECORD_FIXED || pos + RECORD_HEADER + payload > size) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.allocate(payload).order(ByteOrder.LITTLE_ENDIAN);
+            readFully(record, pos + RECORD_HEADER);
+            CRC32 crc = new CRC32();
+            crc.update(record.array(), 0, payload);
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            Key key = new Key(record.getLong(0), record.getLong(8), record.getInt(16), record.getInt(20));
+            int flags = record.get(24);
+            int pathLength = record.getInt(25);
+            if (pathLength < 0 || RECORD_FIXED + 4L * pathLength != payload) {
+                break;
+            }
+            int[] path = null;
+            if (pathLength > 0) {
+                path = new int[pathLength];
+                record.position(RECORD_FIXED);
+                record.asIntBuffer().get(path);
+            }
+            Entry entry = new Entry((flags & FLAG_ESCAPED) != 0, (flags & FLAG_PATH) != 0, path, null);
+            Entry old = entries.get(key);
+            if (old == null || !old.hasPath || entry.hasPath) {
+                entry.journaled = true;
+                entry.journaledPath = entry.hasPath;
+                insert(key, entry);
+            }
+            pos += RECORD_HEADER + payload;
+        }
+        logEnd = pos;
+        // Retire une éventuelle fin corrompue, pour que les ajouts suivants restent lisibles
+        log.truncate(pos);
+        evictions = 0;
+    }
+
+    private void readFully(ByteBuffer buffer, long pos) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = log.read(buffer, pos + buffer.position());
+            if (n < 0) {
+                throw new IOException("Journal du cache tronqué.");
+            }
+        }
+        buffer.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (log != null) {
+            synchronized (logLock) {
+                log.force(false);
+                log.close();
+            }
+        }
+    }
+
+    /**
+     * Compteurs du cache : entrées, taille, succès, absences, évictions, écritures, contrôles
+     * (faits, divergents, interrompus).
+     */
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format(Locale.ROOT,
+                "Cache : %d entrées, %.1f / %.1f Mio, %d succès (%.1f %%), %d absences, %d évictions, "
+                        + "%d écrits sur disque, %d vérifiés, %d divergences, %d non vérifiés (limites)",
+                entries.size(), bytes / 1048576.0, budget / 1048576.0, hits,
+                lookups == 0 ? 0.0 : 100.0 * hits / lookups, misses, evictions, written, verified, mismatches,
+                unverified);
+    }
+
+    /**
+     * Cases d'un chemin, en indices de la grille.
+     */
+    private static int[] toCells(Grid grid, List<Node> path) {
+        if (path == null) {
+            return null;
+        }
+        int[] cells = new int[path.size()];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = grid.index(path.get(i).x, path.get(i).y);
+        }
+        return cells;
+    }
+
+    /**
+     * Reconstruit les nœuds d'un chemin gardé en indices de la grille.
+     */
+    private static List<Node> toNodes(Grid grid, int[] cells) {
+        int end = cells[cells.length - 1];
+        int endX = grid.row(end);
+        int endY = grid.col(end);
+        List<Node> path = new ArrayList<>(cells.length);
+        Node parent = null;
+        for (int g = 0; g < cells.length; g++) {
+            int x = grid.row(cells[g]);
+            int y = grid.col(cells[g]);
+            Node node = new Node(x, y, g, Math.abs(x - endX) + Math.abs(y - endY), parent);
+            path.add(node);
+            parent = node;
+        }
+        return path;
+    }
+
+    /**
+     * Empreinte de 128 bits d'une grille et ses dimensions.
+     */
+    static final class Key {
+        final long h1;
+        final long h2;
+        final int rows;
+        final int cols;
+
+        Key(long h1, long h2, int rows, int cols) {
+            this.h1 = h1;
+            this.h2 = h2;
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        /**
+         * Calcule l'empreinte des cases (8 octets à la fois, deux accumulateurs indépendants).
+         */
+        static Key of(Grid grid) {
+            byte[] cells = grid.cells;
+            long h1 = 0x9E3779B97F4A7C15L ^ grid.rows;
+            long h2 = 0xC2B2AE3D27D4EB4FL ^ ((long) grid.cols << 32);
+            int i = 0;
+            for (; i + 8 <= cells.length; i += 8) {
+                long v = (long) LONGS.get(cells, i);
+                h1 = Long.rotateLeft(h1 ^ v * 0x87C37B91114253D5L, 31) * 0x4CF5AD432745937FL;
+                h2 = Long.rotateLeft(h2 + (v ^ v >>> 29), 27) * 0x52DCE729L + h1;
+            }
+            for (; i < cells.length; i++) {
+                h1 = (h1 ^ cells[i]) * 0x100000001B3L;
+                h2 = (h2 + cells[i]) * 0x9E3779B97F4A7C15L;
+            }
+            return new Key(mix(h1 ^ cells.length), mix(h2 + h1), grid.rows, grid.cols);
+        }
+
+        /** Finalisation de MurmurHash3 : chaque bit d'entrée influence tous les bits de sortie. */
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            return h ^ h >>> 33;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return h1 == k.h1 && h2 == k.h2 && rows == k.rows && cols == k.cols;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) h1;
+        }
+    }
+
+    /**
+     * Résultat gardé pour une grille.
+     */
+    private static final class Entry {
+        final boolean escaped;
+        /** Vrai si le chemin est connu ({@code path} est alors null pour "N"). */
+        final boolean hasPath;
+        final int[] path;
+        final int[] fireTime;
+        /** Vrai si la réponse est déjà dans le journal (lu et écrit sous le verrou du cache). */
+        boolean journaled;
+        /** Vrai si le chemin est déjà dans le journal. */
+        boolean journaledPath;
+
+        Entry(boolean escaped, boolean hasPath, int[] path, int[] fireTime) {
+            this.escaped = escaped;
+            this.hasPath = hasPath;
+            this.path = path;
+            this.fireTime = fireTime;
+        }
+
+        int flags() {
+            return (escaped ? FLAG_ESCAPED : 0) | (hasPath ? FLAG_PATH : 0);
+        }
+
+        long bytes() {
+            return ENTRY_OVERHEAD + 4L * (path == null ? 0 : path.length)
+                    + 4L * (fireTime == null ? 0 : fireTime.length);
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+
+/**
+ * Carte des marges de sécurité : pour chaque case, le dernier instant auquel le prisonnier
+ * peut en partir et atteindre encore une sortie avant le feu.
+ *
+ * Partir de la case v à l'instant t, c'est y attendre jusqu'à t (le feu ne doit pas l'avoir
+ * atteinte : t &lt; feu(v)), puis avancer d'une case par unité de temps avec la contrainte de
+ * l'A* (chaque case entrée au temps g vérifie g &lt; feu). Attendre en chemin n'aide jamais :
+ * le feu ne recule pas. Le départ au plus tard L vérifie donc
+ * <pre>
+ *   L(sortie) = feu(sortie) - 1
+ *   L(v)      = min(feu(v) - 1, max sur les voisins u de L(u) - 1)
+ * </pre>
+ * et toutes les cases se calculent en un seul parcours à rebours depuis les sorties, sur la
+ * table du feu déjà calculée : un Dijkstra qui développe les cases par L décroissant (chaque
+ * relâchement ne fait que baisser la valeur, le premier L retiré du tas est donc définitif).
+ *
+ * Ensuite, chaque question « peut-on s'échapper depuis (r, c) en partant à t ? » est une
+ * simple lecture : t &lt;= L(r, c), sans nouvelle propagation ni A*. Pour le départ 'D' à
+ * l'instant 0, la réponse est celle de {@link LabyrinthEscape#canEscape(Grid)}.
+ *
+ * Comme {@link FireIndex}, la carte est immuable et peut être lue depuis plusieurs threads.
+ */
+public final class SafetyMap {
+
+    /** Départ au plus tard d'une case d'où aucune évasion n'est possible. */
+    public static final int NEVER = -1;
+
+    /** Départ au plus tard d'une case d'où l'évasion reste possible quel que soit l'instant. */
+    public static final int ALWAYS = Integer.MAX_VALUE;
+
+    private static final int[] NO_FRONTIER = new int[0];
+
+    private final Grid grid;
+    /** Départ au plus tard de chaque case, indexé comme la grille. */
+    private final int[] latest;
+    /** Nombre de cases d'où l'évasion est possible à l'instant 0. */
+    private final int escapable;
+    /** Plus grand départ au plus tard fini, ou {@link #NEVER}. */
+    private final int maxFinite;
+
+    private SafetyMap(Grid grid, int[] latest, int escapable, int maxFinite) {
+        this.grid = grid;
+        this.latest = latest;
+        this.escapable = escapable;
+        this.maxFinite = maxFinite;
+    }
+
+    /**
+     * Calcule la carte des marges vers la sortie 'S' d'une grille.
+     *
+     * @param grid Grille du labyrinthe.
+     * @return Carte des marges (toutes les cases à {@link #NEVER} sans sortie).
+     */
+    public static SafetyMap build(Grid grid) {
+        return build(FireIndex.build(grid));
+    }
+
+    /**
+     * Calcule la carte des marges vers la sortie 'S', à partir d'un feu déjà propagé.
+     *
+     * @param fire Index du feu de la grille.
+     * @return Carte des marges (toutes les cases à {@link #NEVER} sans sortie).
+     */
+    public static SafetyMap build(FireIndex fire) {
+        int exit = fire.grid().scan().exit;
+        return build(fire, exit < 0 ? new int[0] : new int[]{exit}, null);
+    }
+
+    /**
+     * Calcule la carte des marges vers l'une des sorties données.
+     *
+     * @param fire  Index du feu de la grille.
+     * @param exits Sorties acceptées, chacune sous la forme {ligne, colonne}.
+     * @return Carte des marges.
+     * @throws IllegalArgumentException si une sortie est hors de la grille.
+     */
+    public static SafetyMap build(FireIndex fire, int[][] exits) {
+        Grid grid = fire.grid();
+        int[] exitIdx = new int[exits.length];
+        for (int e = 0; e < exits.length; e++) {
+            fire.checkCell(exits[e][0], exits[e][1]);
+            exitIdx[e] = grid.index(exits[e][0], exits[e][1]);
+        }
+        return build(fire, exitIdx, null);
+    }
+
+    /**
+     * Parcours à rebours depuis les sorties, sous l'observation d'un moniteur (aucun front
+     * n'est transmis : le tas mêle des marges très différentes).
+     *
+     * @param fire    Index du feu de la grille.
+     * @param exitIdx Indices des sorties.
+     * @param monitor Moniteur de progression et d'annulation, ou null.
+     * @return Carte des marges.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static SafetyMap build(FireIndex fire, int[] exitIdx, SolveMonitor monitor) {
+        Grid grid = fire.grid();
+        DistanceField fireTime = fire.fireField();
+        byte[] cells = grid.cells;
+        int[] offsets = grid.neighbourOffsets();
+
+        int[] latest = new int[cells.length];
+        Arrays.fill(latest, NEVER);
+
+        // Tas min sur (ALWAYS - L) << 32 | indice : la plus grande marge sort en premier
+        long[] heap = new long[64];
+        int heapSize = 0;
+        for (int exit : exitIdx) {
+            int l = cap(fireTime.get(exit));
+            if (cells[exit] != Grid.WALL && l > latest[exit]) {
+                latest[exit] = l;
+                heap = grow(heap, heapSize);
+                heap[heapSize] = key(l, exit);
+                siftUp(heap, heapSize++);
+            }
+        }
+
+        long settled = 0;
+        int escapable = 0;
+        int maxFinite = NEVER;
+        while (heapSize > 0) {
+            long top = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize);
+            int idx = (int) top;
+            int l = ALWAYS - (int) (top >>> 32);
+            if (l != latest[idx]) {
+                // Entrée périmée : la case a reçu une marge plus grande depuis
+                continue;
+            }
+            if (monitor != null && (settled & (SolveMonitor.INTERVAL - 1)) == 0) {
+                monitor.checkpoint(SolveMonitor.Stage.SEARCH, settled, NO_FRONTIER, 0, 0);
+            }
+            settled++;
+            escapable++;
+            if (l != ALWAYS) {
+                maxFinite = Math.max(maxFinite, l);
+            }
+
+            // Arriver ici à l - 1 au plus tard, depuis un voisin où l'on se trouvait un pas plus tôt
+            int before = l == ALWAYS ? ALWAYS : l - 1;
+            for (int k = 0; k < 4; k++) {
+                int n = idx + offsets[k];
+                // La bordure de murs évite tout test de bornes
+                if (cells[n] == Grid.WALL) {
+                    continue;
+                }
+                int nl = Math.min(before, cap(fireTime.get(n)));
+                if (nl > latest[n]) {
+                    latest[n] = nl;
+                    heap = grow(heap, heapSize);
+                    heap[heapSize] = key(nl, n);
+                    siftUp(heap, heapSize++);
+                }
+            }
+        }
+        return new SafetyMap(grid, latest, escapable, maxFinite);
+    }
+
+    /** @return Grille de la carte. */
+    public Grid grid() {
+        return grid;
+    }
+
+    /**
+     * @param row Ligne.
+     * @param col Colonne.
+     * @return Dernier instant de départ depuis la case qui permet encore de s'échapper,
+     *         {@link #NEVER} si aucun, {@link #ALWAYS} si le feu ne peut jamais l'empêcher.
+     * @throws IllegalArgumentException si la case est hors de la grille.
+     */
+    public int latestDeparture(int row, int col) {
+        checkCell(row, col);
+        return latest[grid.index(row, col)];
+    }
+
+    /**
+     * @param idx Indice d'une case de la grille.
+     * @return Départ au plus tard de la case (voir {@link #latestDeparture}).
+     */
+    int latestAt(int idx) {
+        return latest[idx];
+    }
+
+    /**
+     * Vérifie si un prisonnier placé en (row, col) peut s'échapper en partant tout de suite.
+     *
+     * @param row Ligne.
+     * @param col Colonne.
+     * @return true si une évasion est possible, sinon false.
+     */
+    public boolean canEscape(int row, int col) {
+        return latestDeparture(row, col) >= 0;
+    }
+
+    /**
+     * Vérifie si un prisonnier placé en (row, col) peut s'échapper en attendant sur place
+     * jusqu'à l'instant donné.
+     *
+     * @param row       Ligne.
+     * @param col       Colonne.
+     * @param departure Instant du départ (au moins 0).
+     * @return true si une évasion est possible, sinon false.
+     */
+    public boolean canEscape(int row, int col, int departure) {
+        return departure >= 0 && departure <= latestDeparture(row, col);
+    }
+
+    /** @return Nombre de cases d'où l'évasion est possible en partant à l'instant 0. */
+    public int escapableCells() {
+        return escapable;
+    }
+
+    /** @return Plus grand départ au plus tard fini, ou {@link #NEVER} s'il n'y en a aucun. */
+    public int maxFiniteDeparture() {
+        return maxFinite;
+    }
+
+    /**
+     * Dernier instant où l'on peut se trouver sur une case d'après le seul feu.
+     */
+    private static int cap(int fireTime) {
+        return fireTime == DistanceField.INF ? ALWAYS : fireTime - 1;
+    }
+
+    private static long key(int latest, int idx) {
+        return (long) (ALWAYS - latest) << 32 | idx;
+    }
+
+    private static long[] grow(long[] heap, int heapSize) {
+        return heapSize == heap.length ? Arrays.copyOf(heap, heapSize << 1) : heap;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long key = heap[i];
+        while (i > 0) {
+            int p = (i - 1) >>> 1;
+            if (heap[p] <= key) {
+                break;
+            }
+            heap[i] = heap[p];
+            i = p;
+        }
+        heap[i] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) {
+            return;
+        }
+        long key = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= key) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+
+    /**
+     * Vérifie qu'une case est dans la grille.
+     */
+    private void checkCell(int row, int col) {
+        if (row < 0 || row >= grid.rows || col < 0 || col >= grid.cols) {
+            throw new IllegalArgumentException("Case hors de la grille : (" + row + ", " + col + ")");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package Labyrinthe;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Budget d'une résolution : une échéance et/ou un nombre maximal d'itérations (cases brûlées,
+ * nœuds développés), toutes étapes confondues.
+ *
+ * C'est un {@link SolveMonitor} : les moteurs le consultent toutes les
+ * {@link SolveMonitor#INTERVAL} itérations, ce qui coûte au plus une lecture de l'horloge par
+ * appel, et il les interrompt par une {@link CancellationException} quand le budget est
+ * épuisé. La résolution donne alors {@link Verdict#TIMEOUT}. La préparation d'un moteur, en
+ * O(cases) (allocation des tables, recherche des sources), précède le premier point de
+ * contrôle : sur une très grande grille, l'échéance peut être dépassée d'autant. Un budget
+ * n'appartient qu'au thread qui résout.
+ */
+final class SolveBudget implements SolveMonitor {
+
+    /** Échéance ({@link System#nanoTime()}), valable si {@link #timed}. */
+    private final long deadline;
+    private final boolean timed;
+
+    /** Nombre maximal d'itérations. */
+    private final long maxWork;
+
+    /** Travail des étapes terminées, et de l'étape en cours au dernier point de contrôle. */
+    private long spent;
+    private long stageWork;
+    private Stage stage;
+
+    private SolveBudget(long deadline, boolean timed, long maxWork) {
+        this.deadline = deadline;
+        this.timed = timed;
+        this.maxWork = maxWork;
+    }
+
+    @Override
+    public void checkpoint(Stage stage, long work, int[] frontier, int from, int to) {
+        if (stage != this.stage || work < stageWork) {
+            // Nouvelle étape (ou nouvelle boucle de la même étape) : le compteur repart de 0
+            spent += stageWork;
+            this.stage = stage;
+        }
+        stageWork = work;
+        if (exhausted()) {
+            throw new CancellationException("Budget de résolution épuisé.");
+        }
+    }
+
+    /** @return Vrai si l'échéance est passée ou si le nombre d'itérations est atteint. */
+    boolean exhausted() {
+        return spent() >= maxWork || (timed && System.nanoTime() - deadline >= 0);
+    }
+
+    /** @return Itérations consommées jusqu'au dernier point de contrôle. */
+    long spent() {
+        return spent + stageWork;
+    }
+
+    /**
+     * Réserve une part de ce qui reste du budget, pour une première tentative.
+     *
+     * @param fraction Part du temps et des itérations restants (entre 0 et 1).
+     * @return Budget de la tentative ; le reporter ensuite par {@link #charge}.
+     */
+    SolveBudget share(double fraction) {
+        long remaining = Math.max(0, maxWork - spent());
+        long work = maxWork == Long.MAX_VALUE ? Long.MAX_VALUE : (long) (remaining * fraction);
+        if (!timed) {
+            return new SolveBudget(0, false, work);
+        }
+        long now = System.nanoTime();
+        return new SolveBudget(now + (long) (Math.max(0, deadline - now) * fraction), true, work);
+    }
+
+    /**
+     * Compte dans ce budget les itérations d'une tentative menée avec {@link #share}. Le temps,
+     * lui, s'écoule de toute façon.
+     *
+     * @param part Budget de la tentative.
+     */
+    void charge(SolveBudget part) {
+        spent += part.spent();
+    }
+
+    /**
+     * Limites appliquées à chaque labyrinthe d'un lot. Immuable : chaque résolution démarre
+     * son propre budget par {@link #start()}.
+     */
+    static final class Limits {
+
+        /** Aucune limite : la résolution va toujours à son terme. */
+        static final Limits NONE = new Limits(0, 0, false);
+
+        /** Durée maximale d'une résolution en nanosecondes (0 = sans limite). */
+        final long timeoutNanos;
+
+        /** Nombre maximal d'itérations d'une résolution (0 = sans limite). */
+        final long maxWork;
+
+        /** Vrai pour essayer d'abord le moteur {@link Engine#LOCKSTEP} sur une part du budget. */
+        final boolean escalate;
+
+        /**
+         * @param timeoutNanos Durée maximale d'une résolution en nanosecondes (0 = sans limite).
+         * @param maxWork      Nombre maximal d'itérations d'une résolution (0 = sans limite).
+         * @param escalate     Vrai pour essayer d'abord le moteur de décision rapide.
+         */
+        Limits(long timeoutNanos, long maxWork, boolean escalate) {
+            this.timeoutNanos = timeoutNanos;
+            this.maxWork = maxWork;
+            this.escalate = escalate;
+        }
+
+        /** @return Vrai si une échéance ou un nombre d'itérations est fixé. */
+        boolean bounded() {
+            return timeoutNanos > 0 || maxWork > 0;
+        }
+
+        /**
+         * Démarre le budget d'une résolution : l'échéance court à partir de maintenant.
+         *
+         * @return Nouveau budget.
+         */
+        SolveBudget start() {
+            long work = maxWork > 0 ? maxWork : Long.MAX_VALUE;
+            if (timeoutNanos <= 0) {
+                return new SolveBudget(0, false, work);
+            }
+            return new SolveBudget(System.nanoTime() + timeoutNanos, true, work);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package Labyrinthe;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Événement JFR émis pour chaque résolution instrumentée (voir {@link SolveStats}).
+ * Visible dans JDK Mission Control ou via {@code jfr print --events Labyrinthe.Solve}.
+ */
+@Name("Labyrinthe.Solve")
+@Label("Résolution de labyrinthe")
+@Category("Labyrinthe")
+@Description("Durées et compteurs d'une résolution de labyrinthe")
+class SolveEvent extends Event {
+
+    @Label("Moteur")
+    String engine;
+
+    @Label("Cases")
+    long cells;
+
+    @Label("Propagation du feu")
+    @Timespan(Timespan.NANOSECONDS)
+    long fireNanos;
+
+    @Label("Recherche")
+    @Timespan(Timespan.NANOSECONDS)
+    long searchNanos;
+
+    @Label("Cases visitées par le feu")
+    long fireCellsVisited;
+
+    @Label("Nœuds ajoutés")
+    long nodesPushed;
+
+    @Label("Nœuds retirés")
+    long nodesPopped;
+
+    @Label("Retraits ignorés")
+    long stalePops;
+
+    @Label("File maximale")
+    long peakQueue;
+
+    @Label("Longueur du chemin")
+    long pathLength;
+
+    @Label("Évasion possible")
+    boolean escaped;
+
+    /**
+     * @return true si un enregistrement JFR actif demande cet événement.
+     */
+    static boolean recording() {
+        return new SolveEvent().isEnabled();
+    }
+}
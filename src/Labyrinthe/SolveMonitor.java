@@ -0,0 +1,43 @@
+package Labyrinthe;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Point d'observation d'une résolution en cours : suivi de la progression et annulation
+ * coopérative.
+ *
+ * Les boucles de propagation du feu et de recherche appellent {@link #checkpoint} toutes les
+ * {@link #INTERVAL} itérations, depuis le thread qui résout. Sans moniteur (null), le coût se
+ * limite à un test par itération.
+ */
+interface SolveMonitor {
+
+    /** Nombre d'itérations entre deux appels à {@link #checkpoint} (puissance de 2). */
+    int INTERVAL = 4096;
+
+    /**
+     * Étapes d'une résolution.
+     */
+    enum Stage {
+        /** Propagation du feu (BFS multi-source). */
+        FIRE,
+        /** Recherche du prisonnier. */
+        SEARCH
+    }
+
+    /**
+     * Signale la progression et donne l'occasion d'interrompre la résolution.
+     *
+     * Le front courant est fourni sous forme d'indices de la {@link Grid} rangés dans
+     * {@code frontier[from..to[} ; le tableau appartient au moteur et ne doit être ni modifié
+     * ni conservé après le retour (le copier si nécessaire).
+     *
+     * @param stage    Étape en cours.
+     * @param work     Travail déjà effectué (cases brûlées ou nœuds développés).
+     * @param frontier Tableau contenant le front courant.
+     * @param from     Début du front dans le tableau.
+     * @param to       Fin (exclue) du front dans le tableau.
+     * @throws CancellationException pour interrompre la résolution.
+     */
+    void checkpoint(Stage stage, long work, int[] frontier, int from, int to);
+}
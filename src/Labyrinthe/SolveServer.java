@@ -0,0 +1,403 @@
+package Labyrinthe;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service HTTP de résolution, sur le serveur HTTP du JDK avec un thread virtuel par requête
+ * pour les entrées-sorties.
+ *
+ * Points d'entrée :
+ * <pre>
+ * POST /solve   un labyrinthe ("N M" puis N lignes), ou un fichier binaire (premier labyrinthe)
+ * POST /batch   un lot (T puis T labyrinthes), ou un fichier binaire (tous ses labyrinthes)
+ * GET  /stats   compteurs de latence et de débit par point d'entrée
+ * </pre>
+ * La réponse contient une ligne "Y" ou "N" par labyrinthe ("TIMEOUT" si la résolution dépasse
+ * les limites du service). Avec {@code ?path=1}, chaque "Y" est suivi des cases du chemin,
+ * sous la forme "ligne,colonne" séparées par des espaces.
+ *
+ * Admission : les résolutions, qui occupent le processeur, passent par un pool de
+ * {@code workers} threads ordinaires dont la file est bornée à {@code queue} requêtes. Un
+ * thread virtuel qui calcule sans jamais se bloquer garderait son thread porteur et priverait
+ * les autres requêtes de processeur ; ici, le thread virtuel de la requête lit le corps, se
+ * met en attente du résultat puis écrit la réponse. Chaque requête prend une place parmi
+ * {@code workers + queue} avant de lire son corps et la rend après la réponse : au plus
+ * autant de corps sont en mémoire à la fois. Sans place libre, la requête est refusée tout de
+ * suite avec un 503 et un en-tête Retry-After, plutôt que de laisser les latences et la
+ * mémoire grandir sans limite.
+ *
+ * Les limites du service s'appliquent aussi aux recherches de chemin : au-delà, la ligne est
+ * "TIMEOUT".
+ */
+final class SolveServer implements AutoCloseable {
+
+    /** Taille maximale d'un corps de requête (256 Mio). */
+    private static final int MAX_BODY = 1 << 28;
+
+    /** Taille du tampon de lecture des corps texte. */
+    private static final int READ_BUFFER = 1 << 16;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Engine engine;
+    /** Limites de chaque résolution Y/N. */
+    private final SolveBudget.Limits limits;
+    /** Cache des résultats, ou null. */
+    private final ResultCache cache;
+
+    /** Pool de résolution, à file bornée. */
+    private final ThreadPoolExecutor solvers;
+
+    /** Places des requêtes admises (en lecture, en file ou en résolution). */
+    private final Semaphore admission;
+    private final int admissionLimit;
+
+    /** Compteurs par point d'entrée (la table ne change plus après la construction). */
+    private final Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+    private final long started = System.nanoTime();
+
+    /**
+     * Crée le service sans le démarrer.
+     *
+     * @param address Adresse d'écoute (port 0 pour un port libre).
+     * @param workers Nombre de résolutions simultanées (threads du pool de résolution).
+     * @param queue   Nombre de requêtes en attente dans la file du pool (0 = 4 x workers).
+     * @param engine  Moteur de résolution.
+     * @param cache   Cache des résultats (les mêmes cartes reviennent souvent), ou null.
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    SolveServer(InetSocketAddress address, int workers, int queue, Engine engine, ResultCache cache)
+            throws IOException {
+        this(address, workers, queue, engine, SolveBudget.Limits.NONE, cache);
+    }
+
+    /**
+     * Crée le service sans le démarrer, avec des limites par labyrinthe : une résolution qui
+     * les dépasse répond "TIMEOUT" au lieu de bloquer un thread du pool.
+     *
+     * @param address Adresse d'écoute (port 0 pour un port libre).
+     * @param workers Nombre de résolutions simultanées (threads du pool de résolution).
+     * @param queue   Nombre de requêtes en attente dans la file du pool (0 = 4 x workers).
+     * @param engine  Moteur de résolution.
+     * @param limits  Limites de chaque résolution, recherches de chemin comprises.
+     * @param cache   Cache des résultats (les mêmes cartes reviennent souvent), ou null.
+     * @throws IOException si le port ne peut pas être ouvert.
+     */
+    SolveServer(InetSocketAddress address, int workers, int queue, Engine engine, SolveBudget.Limits limits,
+                ResultCache cache) throws IOException {
+        this.engine = engine;
+        this.limits = limits;
+        this.cache = cache;
+        AtomicInteger threads = new AtomicInteger();
+        int waiting = queue > 0 ? queue : 4 * workers;
+        this.admissionLimit = workers + waiting;
+        this.admission = new Semaphore(admissionLimit);
+        this.solvers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(waiting), task -> {
+                    Thread thread = new Thread(task, "solveur-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(executor);
+        for (String path : new String[]{"/solve", "/batch", "/stats"}) {
+            EndpointStats stats = new EndpointStats(path);
+            endpoints.put(path, stats);
+            server.createContext(path, exchange -> handle(exchange, stats));
+        }
+    }
+
+    /** Démarre l'écoute. */
+    void start() {
+        server.start();
+    }
+
+    /** @return Adresse d'écoute effective. */
+    InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    /**
+     * Arrête l'écoute et interrompt les requêtes en cours.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        solvers.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Traite une requête : compteurs, admission, résolution et réponse.
+     */
+    private void handle(HttpExchange exchange, EndpointStats stats) throws IOException {
+        long begin = System.nanoTime();
+        stats.requests.increment();
+        try (exchange) {
+            String path = exchange.getHttpContext().getPath();
+            if (path.equals("/stats")) {
+                send(exchange, 200, toString());
+                stats.record(System.nanoTime() - begin, 0);
+                return;
+            }
+            if (!exchange.getRequestMethod().equals("POST")) {
+                stats.errors.increment();
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "POST attendu.\n");
+                return;
+            }
+            // Admission avant de lire le corps : une place par requête, rendue après la réponse
+            if (!admission.tryAcquire()) {
+                shed(exchange, stats);
+                return;
+            }
+            try {
+                byte[] body = readBody(exchange.getRequestBody());
+                boolean withPath = wantsPath(exchange.getRequestURI().getRawQuery());
+                boolean batch = path.equals("/batch");
+                StringBuilder out = new StringBuilder();
+                Future<Integer> grids;
+                try {
+                    grids = solvers.submit(() -> solve(body, batch, withPath, out));
+                } catch (RejectedExecutionException e) {
+                    shed(exchange, stats);
+                    return;
+                }
+                int solved = grids.get();
+                send(exchange, 200, out.toString());
+                stats.record(System.nanoTime() - begin, solved);
+            } catch (BodyTooLargeException e) {
+                stats.errors.increment();
+                send(exchange, 413, e.getMessage() + "\n");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    // Corps mal formé : la faute est au client
+                    stats.errors.increment();
+                    send(exchange, 400, "Requête invalide : " + cause.getMessage() + "\n");
+                } else {
+                    // Mémoire épuisée, erreur d'un moteur... : la faute est au service
+                    stats.failures.increment();
+                    send(exchange, 500, "Erreur du service : " + cause + "\n");
+                }
+            } catch (IOException e) {
+                stats.errors.increment();
+                send(exchange, 400, "Requête invalide : " + e.getMessage() + "\n");
+            } catch (InterruptedException e) {
+                // Arrêt du service
+                Thread.currentThread().interrupt();
+                stats.errors.increment();
+                send(exchange, 503, "Service en cours d'arrêt.\n");
+            } finally {
+                admission.release();
+            }
+        }
+    }
+
+    /**
+     * Refuse une requête faute de place dans la file.
+     */
+    private static void shed(HttpExchange exchange, EndpointStats stats) throws IOException {
+        stats.shed.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        send(exchange, 503, "Service saturé, réessayer plus tard.\n");
+    }
+
+    /**
+     * Résout le contenu d'une requête et écrit une ligne par labyrinthe.
+     *
+     * @return Nombre de labyrinthes résolus.
+     */
+    private int solve(byte[] body, boolean batch, boolean withPath, StringBuilder out) throws IOException {
+        if (BinaryLabyrinthFile.isBinary(body, body.length)) {
+            try (BinaryLabyrinthFile file = BinaryLabyrinthFile.wrap(ByteBuffer.wrap(body))) {
+                int count = batch ? file.count() : Math.min(file.count(), 1);
+                if (count == 0) {
+                    throw new IOException("aucun labyrinthe dans le fichier binaire.");
+                }
+                for (int t = 0; t < count; t++) {
+                    solveInto(file.grid(t), withPath, out);
+                }
+                return count;
+            }
+        }
+        LabyrinthReader reader = new LabyrinthReader(Channels.newChannel(new ByteArrayInputStream(body)),
+                Math.max(1, Math.min(body.length, READ_BUFFER)));
+        int count = batch ? reader.readInt() : 1; // Nombre de labyrinthes
+        for (int t = 0; t < count; t++) {
+            solveInto(reader.readGrid(), withPath, out);
+        }
+        return count;
+    }
+
+    /**
+     * Résout un labyrinthe et ajoute sa ligne de réponse.
+     */
+    private void solveInto(Grid grid, boolean withPath, StringBuilder out) {
+        if (!withPath) {
+            Verdict verdict = cache != null
+                    ? cache.solve(grid, engine, limits, null)
+                    : LabyrinthEscape.solve(grid, engine, limits, null);
+            out.append(verdict.line).append('\n');
+            return;
+        }
+        // Le chemin demande une recherche : A*, ou JPS si c'est le moteur choisi, dans les
+        // mêmes limites qu'une réponse Y/N
+        SolveBudget budget = limits.bounded() ? limits.start() : null;
+        List<Node> path;
+        try {
+            if (cache != null) {
+                path = cache.findPath(grid, engine, budget);
+            } else {
+                GridScan scan = grid.scan();
+                path = scan.start < 0 || scan.exit < 0 ? null
+                        : FireIndex.build(grid, scan, null, budget)
+                                .findPath(scan.start, new int[]{scan.exit}, engine, null, budget);
+            }
+        } catch (CancellationException e) {
+            out.append(Verdict.TIMEOUT.line).append('\n');
+            return;
+        }
+        if (path == null || path.isEmpty()) {
+            out.append("N\n");
+            return;
+        }
+        out.append('Y');
+        for (Node node : path) {
+            out.append(' ').append(node.x).append(',').append(node.y);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Lit le corps d'une requête, dans la limite de {@link #MAX_BODY}.
+     */
+    private static byte[] readBody(InputStream in) throws IOException {
+        byte[] body = in.readNBytes(MAX_BODY);
+        if (body.length == MAX_BODY && in.read() >= 0) {
+            throw new BodyTooLargeException();
+        }
+        return body;
+    }
+
+    /**
+     * @return Vrai si la requête contient {@code path=1} (ou {@code path=true}).
+     */
+    private static boolean wantsPath(String query) {
+        if (query == null) {
+            return false;
+        }
+        for (String param : query.split("&")) {
+            if (param.equals("path=1") || param.equals("path=true")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    /**
+     * Compteurs de tous les points d'entrée, au format de {@code GET /stats}.
+     */
+    @Override
+    public String toString() {
+        double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-9);
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT,
+                "Service : %.1f s, %d requêtes admises (%d places), %d résolutions en cours, %d en file, moteur %s%n",
+                seconds, admissionLimit - admission.availablePermits(), admissionLimit, solvers.getActiveCount(),
+                solvers.getQueue().size(), engine));
+        sb.append(String.format(Locale.ROOT, "  %-8s %10s %9s %9s %9s %10s %9s %9s %9s %9s %9s %9s%n",
+                "", "requêtes", "refusées", "erreurs", "échecs", "labyr.", "req/s", "labyr./s",
+                "p50 µs", "p90 µs", "p99 µs", "max µs"));
+        for (EndpointStats stats : endpoints.values()) {
+            stats.appendTo(sb, seconds);
+        }
+        if (cache != null) {
+            sb.append(cache).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Compteurs d'un point d'entrée. Les compteurs simples sont des {@link LongAdder} ;
+     * l'histogramme des latences des requêtes réussies est protégé par le verrou de l'objet.
+     */
+    private static final class EndpointStats {
+        final String path;
+        final LongAdder requests = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        /** Requêtes refusées pour une faute du client (400, 405, 413) ou pendant l'arrêt. */
+        final LongAdder errors = new LongAdder();
+        /** Requêtes en échec du côté du service (500). */
+        final LongAdder failures = new LongAdder();
+        final LongAdder grids = new LongAdder();
+        private final StatsSummary.Histogram micros = new StatsSummary.Histogram();
+
+        EndpointStats(String path) {
+            this.path = path;
+        }
+
+        void record(long nanos, int solved) {
+            grids.add(solved);
+            synchronized (this) {
+                micros.add(nanos / 1000);
+            }
+        }
+
+        synchronized void appendTo(StringBuilder sb, double seconds) {
+            long ok = micros.count();
+            sb.append(String.format(Locale.ROOT, "  %-8s %10d %9d %9d %9d %10d %9.1f %9.1f %9d %9d %9d %9d%n",
+                    path, requests.sum(), shed.sum(), errors.sum(), failures.sum(), grids.sum(),
+                    ok / seconds, grids.sum() / seconds,
+                    ok == 0 ? 0 : micros.percentile(0.5), ok == 0 ? 0 : micros.percentile(0.9),
+                    ok == 0 ? 0 : micros.percentile(0.99), micros.max()));
+        }
+    }
+
+    /**
+     * Corps de requête plus grand que {@link #MAX_BODY}.
+     */
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() {
+            super("Corps de requête trop grand (maximum " + (MAX_BODY >> 20) + " Mio).");
+        }
+    }
+}
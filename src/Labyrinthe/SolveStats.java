@@ -0,0 +1,73 @@
+package Labyrinthe;
+
+/**
+ * Mesures d'une résolution : durée de chaque étape et volume de travail.
+ *
+ * Les moteurs ne remplissent cet objet que s'il leur est passé (non null) : sans statistiques
+ * demandées, le coût se limite à quelques compteurs locaux.
+ */
+final class SolveStats {
+
+    /** Moteur utilisé. */
+    Engine engine;
+
+    /** Nombre de cases de la grille. */
+    long cells;
+
+    /** Durée de la propagation du feu, en nanosecondes. */
+    long fireNanos;
+
+    /** Durée de la recherche du prisonnier, en nanosecondes. */
+    long searchNanos;
+
+    /** Cases atteintes par le feu pendant la propagation. */
+    long fireCellsVisited;
+
+    /** Nœuds ajoutés à la file de recherche (openSet). */
+    long nodesPushed;
+
+    /** Nœuds retirés de la file de recherche. */
+    long nodesPopped;
+
+    /** Nœuds retirés mais déjà explorés (ignorés par l'ensemble fermé). */
+    long stalePops;
+
+    /** Taille maximale de la file de recherche. */
+    long peakQueue;
+
+    /** Longueur du chemin trouvé en nombre de pas, ou -1 si aucun chemin. */
+    long pathLength = -1;
+
+    /** Réponse obtenue. */
+    boolean escaped;
+
+    /** Vrai si la résolution a été interrompue faute de budget ({@link Verdict#TIMEOUT}). */
+    boolean timedOut;
+
+    /** @return Durée totale de la résolution, en nanosecondes. */
+    long totalNanos() {
+        return fireNanos + searchNanos;
+    }
+
+    /**
+     * Publie ces mesures sous forme d'événement JFR, si l'enregistrement est actif.
+     */
+    void commitEvent() {
+        SolveEvent event = new SolveEvent();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.engine = engine == null ? null : engine.name();
+        event.cells = cells;
+        event.fireNanos = fireNanos;
+        event.searchNanos = searchNanos;
+        event.fireCellsVisited = fireCellsVisited;
+        event.nodesPushed = nodesPushed;
+        event.nodesPopped = nodesPopped;
+        event.stalePops = stalePops;
+        event.peakQueue = peakQueue;
+        event.pathLength = pathLength;
+        event.escaped = escaped;
+        event.commit();
+    }
+}
@@ -0,0 +1,166 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tables de travail d'une résolution, gardées d'un labyrinthe à l'autre.
+ *
+ * En lot, allouer puis remplir d'infini les tables du feu et de la recherche pour chaque
+ * labyrinthe coûte souvent plus cher que la recherche elle-même. Les tables, agrandies à la
+ * plus grande grille rencontrée et remises à zéro en O(1) grâce à des tampons de génération
+ * ({@link DistanceField#reusable()}), sont donc prêtées par une petite réserve commune :
+ * {@link #acquire()} en emprunte un jeu pour le thread courant, {@link #release()} le rend.
+ * Un thread virtuel par labyrinthe en profite ainsi autant qu'un pool de threads. La réserve
+ * garde au plus {@link #POOL_LIMIT} jeux ; au-delà, les tables rendues sont abandonnées.
+ *
+ * Les tables n'appartiennent qu'à l'appel en cours : rien de ce qui en sort (chemin, réponse)
+ * ne doit y faire référence.
+ */
+final class SolverWorkspace {
+
+    /** Nombre maximal de jeux de tables gardés dans la réserve. */
+    static final int POOL_LIMIT = 2 * Runtime.getRuntime().availableProcessors();
+
+    private static final ConcurrentLinkedQueue<SolverWorkspace> IDLE = new ConcurrentLinkedQueue<>();
+    /** Taille de {@link #IDLE} (sa méthode size() parcourt toute la file). */
+    private static final AtomicInteger IDLE_COUNT = new AtomicInteger();
+
+    /** Jeu emprunté par le thread courant, ou null. */
+    private static final ThreadLocal<SolverWorkspace> BORROWED = new ThreadLocal<>();
+
+    /** Emprunts imbriqués en cours sur ce jeu (thread emprunteur seulement). */
+    private int leases;
+
+    private final DistanceField fire = DistanceField.reusable();
+    private final DistanceField bestG = DistanceField.reusable();
+    private int[] queue = new int[0];
+
+    /** Génération de fermeture de chaque case de l'A* (fermée si égale à {@link #closedMark}). */
+    private char[] closed = new char[0];
+    private char closedMark;
+    private byte[] parentDir = new byte[0];
+    private int[] parents = new int[0];
+
+    /** Piles de la file à seaux de l'A*, agrandies par le moteur et gardées. */
+    final int[][] buckets = {new int[64], new int[64], new int[64]};
+
+    /** Seaux circulaires de la propagation pondérée du feu ({@link WeightedFireField}). */
+    final int[][] fireBuckets = new int[WeightedFireField.SPAN][64];
+
+    private SolverWorkspace() {
+    }
+
+    /**
+     * Emprunte un jeu de tables pour le thread courant, à rendre par {@link #release()} dans
+     * un bloc finally. Un emprunt imbriqué reprend le jeu déjà emprunté.
+     *
+     * @return Tables empruntées.
+     */
+    static SolverWorkspace acquire() {
+        SolverWorkspace workspace = BORROWED.get();
+        if (workspace == null) {
+            workspace = IDLE.poll();
+            if (workspace != null) {
+                IDLE_COUNT.decrementAndGet();
+            } else {
+                workspace = new SolverWorkspace();
+            }
+            BORROWED.set(workspace);
+        }
+        workspace.leases++;
+        return workspace;
+    }
+
+    /**
+     * Rend le jeu emprunté par {@link #acquire()} ; le dernier emprunt imbriqué le remet dans
+     * la réserve, s'il y reste de la place.
+     */
+    void release() {
+        if (--leases > 0) {
+            return;
+        }
+        BORROWED.remove();
+        if (IDLE_COUNT.incrementAndGet() <= POOL_LIMIT) {
+            IDLE.offer(this);
+        } else {
+            IDLE_COUNT.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param size Nombre de cases de la grille.
+     * @return Table des temps du feu, remise à l'infini.
+     */
+    DistanceField fireField(int size) {
+        fire.reset(size);
+        return fire;
+    }
+
+    /**
+     * @param size Nombre de cases de la grille.
+     * @return Table des coûts g de l'A*, remise à l'infini.
+     */
+    DistanceField bestG(int size) {
+        bestG.reset(size);
+        return bestG;
+    }
+
+    /**
+     * @param size Nombre de cases à enfiler au plus.
+     * @return File du BFS du feu (contenu indéfini).
+     */
+    int[] queue(int size) {
+        if (queue.length < size) {
+            queue = new int[size];
+        }
+        return queue;
+    }
+
+    /**
+     * Ouvre une nouvelle génération de fermeture : toutes les cases redeviennent ouvertes.
+     *
+     * @param size Nombre de cases de la grille.
+     * @return Tampons de fermeture ; une case est fermée si son tampon vaut {@link #closedMark()}.
+     */
+    char[] closed(int size) {
+        if (closed.length < size) {
+            closed = new char[size];
+            closedMark = 0;
+        }
+        if (++closedMark == 0) {
+            Arrays.fill(closed, (char) 0);
+            closedMark = 1;
+        }
+        return closed;
+    }
+
+    /** @return Tampon des cases fermées pendant la recherche en cours. */
+    char closedMark() {
+        return closedMark;
+    }
+
+    /**
+     * @param size Nombre de cases de la grille.
+     * @return Direction du parent de chaque case (contenu indéfini hors des cases atteintes).
+     */
+    byte[] parentDir(int size) {
+        if (parentDir.length < size) {
+            parentDir = new byte[size];
+        }
+        return parentDir;
+    }
+
+    /**
+     * @param size Nombre de cases de la grille.
+     * @return Point de saut précédent de chaque point de saut de JPS (contenu indéfini hors
+     *         des points atteints).
+     */
+    int[] parents(int size) {
+        if (parents.length < size) {
+            parents = new int[size];
+        }
+        return parents;
+    }
+}
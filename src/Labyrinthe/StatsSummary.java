@@ -0,0 +1,134 @@
+package Labyrinthe;
+
+import java.util.Locale;
+
+/**
+ * Agrège les {@link SolveStats} d'un lot dans des histogrammes à seaux logarithmiques
+ * (puissances de 2) et retient le labyrinthe le plus lent. Thread-safe.
+ */
+final class StatsSummary {
+
+    private final Histogram totalMicros = new Histogram();
+    private final Histogram fireMicros = new Histogram();
+    private final Histogram searchMicros = new Histogram();
+    private final Histogram fireCells = new Histogram();
+    private final Histogram pushed = new Histogram();
+    private final Histogram popped = new Histogram();
+    private final Histogram stale = new Histogram();
+    private final Histogram peakQueue = new Histogram();
+    private final Histogram pathLength = new Histogram();
+
+    private int grids;
+    private int escaped;
+    private int timedOut;
+    private int slowestIndex = -1;
+    private SolveStats slowest;
+
+    /**
+     * Ajoute les mesures d'un labyrinthe.
+     *
+     * @param index Numéro du labyrinthe dans le lot (à partir de 1).
+     * @param stats Mesures de sa résolution.
+     */
+    synchronized void add(int index, SolveStats stats) {
+        grids++;
+        if (stats.escaped) {
+            escaped++;
+        }
+        if (stats.timedOut) {
+            timedOut++;
+        }
+        totalMicros.add(stats.totalNanos() / 1000);
+        fireMicros.add(stats.fireNanos / 1000);
+        searchMicros.add(stats.searchNanos / 1000);
+        fireCells.add(stats.fireCellsVisited);
+        pushed.add(stats.nodesPushed);
+        popped.add(stats.nodesPopped);
+        stale.add(stats.stalePops);
+        peakQueue.add(stats.peakQueue);
+        if (stats.pathLength >= 0) {
+            pathLength.add(stats.pathLength);
+        }
+        if (slowest == null || stats.totalNanos() > slowest.totalNanos()) {
+            slowest = stats;
+            slowestIndex = index;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        if (timedOut == 0) {
+            sb.append(String.format(Locale.ROOT, "Statistiques : %d labyrinthes, %d Y, %d N%n",
+                    grids, escaped, grids - escaped));
+        } else {
+            sb.append(String.format(Locale.ROOT, "Statistiques : %d labyrinthes, %d Y, %d N, %d TIMEOUT%n",
+                    grids, escaped, grids - escaped - timedOut, timedOut));
+        }
+        sb.append(String.format(Locale.ROOT, "  %-26s %10s %10s %10s %10s %10s%n",
+                "", "min", "p50", "p90", "p99", "max"));
+        line(sb, "durée totale (µs)", totalMicros);
+        line(sb, "propagation du feu (µs)", fireMicros);
+        line(sb, "recherche (µs)", searchMicros);
+        line(sb, "cases visitées (feu)", fireCells);
+        line(sb, "nœuds ajoutés", pushed);
+        line(sb, "nœuds retirés", popped);
+        line(sb, "retraits ignorés", stale);
+        line(sb, "file maximale", peakQueue);
+        line(sb, "longueur du chemin", pathLength);
+        if (slowest != null) {
+            sb.append(String.format(Locale.ROOT,
+                    "  plus lent : labyrinthe #%d (%d cases, feu %.3f ms, recherche %.3f ms)%n",
+                    slowestIndex, slowest.cells, slowest.fireNanos / 1e6, slowest.searchNanos / 1e6));
+        }
+        return sb.toString();
+    }
+
+    private static void line(StringBuilder sb, String label, Histogram h) {
+        if (h.count == 0) {
+            return;
+        }
+        sb.append(String.format(Locale.ROOT, "  %-26s %10d %10d %10d %10d %10d%n",
+                label, h.min, h.percentile(0.5), h.percentile(0.9), h.percentile(0.99), h.max));
+    }
+
+    /**
+     * Histogramme à seaux logarithmiques : le seau b compte les valeurs de [2^(b-1), 2^b[.
+     * Les percentiles sont donnés à un facteur 2 près (borne haute du seau).
+     */
+    static final class Histogram {
+        private final long[] buckets = new long[65];
+        private long count;
+        private long min = Long.MAX_VALUE;
+        private long max;
+
+        void add(long value) {
+            value = Math.max(value, 0);
+            buckets[64 - Long.numberOfLeadingZeros(value)]++;
+            count++;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        long count() {
+            return count;
+        }
+
+        long max() {
+            return max;
+        }
+
+        long percentile(double p) {
+            long rank = (long) Math.ceil(p * count);
+            long seen = 0;
+            for (int b = 0; b < buckets.length; b++) {
+                seen += buckets[b];
+                if (seen >= rank) {
+                    long upper = b == 0 ? 0 : (b >= 63 ? Long.MAX_VALUE : (1L << b) - 1);
+                    return Math.min(Math.max(upper, min), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package Labyrinthe;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Analyse de lignes avec l'API Vector ({@code jdk.incubator.vector}) : chaque vecteur de L
+ * octets (16 à 64 selon le processeur) est comparé aux caractères recherchés, et chaque
+ * comparaison donne un masque de L bits.
+ *
+ * Le masque des murs, inversé, s'écrit tel quel dans le bitset des cases ouvertes : L divise
+ * 64 et les vecteurs partent de colonnes multiples de L, un vecteur ne chevauche donc jamais
+ * deux mots. Un second masque repère les cases ni murs ni vides (feux, départ, sortie,
+ * matériaux, ces derniers jusqu'au premier seulement) : presque toujours vide, il ne coûte
+ * qu'un test par vecteur, et ses bits sont sinon traités un à un. Les colonnes restantes
+ * (moins d'un vecteur) passent par l'analyse scalaire.
+ *
+ * Chargée seulement par {@link GridScan}, quand le module est présent.
+ */
+final class VectorRowScanner implements GridScan.RowScanner {
+
+    /** Forme préférée du processeur, au plus 64 octets pour tenir dans un mot. */
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() <= 64
+            ? ByteVector.SPECIES_PREFERRED : ByteVector.SPECIES_512;
+
+    private static final int LANES = SPECIES.length();
+
+    /** Bits utiles d'un masque de comparaison. */
+    private static final long LANE_BITS = LANES == 64 ? -1L : (1L << LANES) - 1;
+
+    @Override
+    public void scan(byte[] cells, int base, int cols, int word, GridScan.Builder out) {
+        long[] open = out.open;
+        int bound = SPECIES.loopBound(cols);
+        int c = 0;
+        for (; c < bound; c += LANES) {
+            ByteVector v = ByteVector.fromArray(SPECIES, cells, base + c);
+            VectorMask<Byte> walls = v.eq(Grid.WALL);
+            open[word + (c >>> 6)] |= (~walls.toLong() & LANE_BITS) << (c & 63);
+
+            // Feux, départ, sortie, matériaux : rares, traités case par case ; une fois un
+            // matériau vu, les autres n'apprennent plus rien
+            VectorMask<Byte> rare = out.weighted
+                    ? v.eq(Grid.FIRE).or(v.eq(Grid.START)).or(v.eq(Grid.EXIT))
+                    : walls.or(v.eq(Grid.EMPTY)).not();
+            if (rare.anyTrue()) {
+                long lanes = rare.toLong();
+                while (lanes != 0) {
+                    int k = Long.numberOfTrailingZeros(lanes);
+                    GridScan.ScalarRowScanner.rare(base + c + k, cells[base + c + k], out);
+                    lanes &= lanes - 1;
+                }
+            }
+        }
+        GridScan.ScalarRowScanner.scanRange(cells, base, c, cols, word, out);
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+}
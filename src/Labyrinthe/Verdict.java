@@ -0,0 +1,31 @@
+package Labyrinthe;
+
+/**
+ * Réponse d'une résolution sous budget ({@link SolveBudget}).
+ */
+enum Verdict {
+
+    /** Le prisonnier peut s'échapper. */
+    ESCAPE("Y"),
+
+    /** Le prisonnier ne peut pas s'échapper. */
+    TRAPPED("N"),
+
+    /** Budget épuisé avant la réponse : on ne sait pas. */
+    TIMEOUT("TIMEOUT");
+
+    /** Ligne écrite dans les résultats d'un lot. */
+    final String line;
+
+    Verdict(String line) {
+        this.line = line;
+    }
+
+    /**
+     * @param escaped Réponse d'une résolution menée à son terme.
+     * @return {@link #ESCAPE} ou {@link #TRAPPED}.
+     */
+    static Verdict of(boolean escaped) {
+        return escaped ? ESCAPE : TRAPPED;
+    }
+}
@@ -0,0 +1,106 @@
+package Labyrinthe;
+
+import java.util.Arrays;
+
+/**
+ * Propagation du feu sur une grille à matériaux ({@link Grid#isWeighted()}) : le feu met
+ * {@link Grid#spreadCost} unités de temps à gagner chaque case.
+ *
+ * C'est un Dijkstra multi-source sur la file à seaux de Dial. Les délais sont des entiers
+ * d'au plus {@link Grid#MAX_SPREAD_COST} : toutes les cases en attente ont un temps compris
+ * entre le temps courant t et t + MAX_SPREAD_COST, et MAX_SPREAD_COST + 1 seaux circulaires
+ * suffisent ; on en prend la puissance de 2 suivante, le seau d'un temps étant alors ses bits
+ * de poids faible. Enfiler et défiler coûtent O(1), sans tas ni boxing : le coût reste celui
+ * du BFS, à quelques seaux vides près.
+ *
+ * Une case dont le temps baisse est enfilée de nouveau ; l'ancienne entrée est ignorée quand
+ * elle sort, son temps ne correspondant plus à celui de la table. Les seaux sont empruntés à
+ * la réserve de tables ({@link SolverWorkspace}) et gardent leur taille d'une propagation à
+ * l'autre.
+ */
+final class WeightedFireField {
+
+    /** Nombre de seaux circulaires (puissance de 2). */
+    static final int SPAN = Integer.highestOneBit(Grid.MAX_SPREAD_COST) << 1;
+
+    private static final int MASK = SPAN - 1;
+
+    private WeightedFireField() {
+    }
+
+    /**
+     * Propage le feu depuis des sources déjà à 0 dans la table.
+     *
+     * @param grid        Grille du labyrinthe.
+     * @param fireTime    Table à remplir, à l'infini hors des sources, indexée comme la grille.
+     * @param sources     Indices des sources de feu.
+     * @param sourceCount Nombre de sources.
+     * @param stats       Statistiques à remplir (cases atteintes), ou null.
+     * @param monitor     Moniteur de progression et d'annulation, ou null.
+     * @throws java.util.concurrent.CancellationException si le moniteur interrompt le calcul.
+     */
+    static void fill(Grid grid, DistanceField fireTime, int[] sources, int sourceCount, SolveStats stats,
+                     SolveMonitor monitor) {
+        SolverWorkspace workspace = SolverWorkspace.acquire();
+        try {
+            fill(grid, fireTime, sources, sourceCount, stats, monitor, workspace.fireBuckets);
+        } finally {
+            workspace.release();
+        }
+    }
+
+    private static void fill(Grid grid, DistanceField fireTime, int[] sources, int sourceCount, SolveStats stats,
+                             SolveMonitor monitor, int[][] buckets) {
+        byte[] cells = grid.cells;
+        int[] offsets = grid.neighbourOffsets();
+
+        int[] sizes = new int[SPAN];
+        if (buckets[0].length < sourceCount) {
+            buckets[0] = Arrays.copyOf(buckets[0], sourceCount);
+        }
+        System.arraycopy(sources, 0, buckets[0], 0, sourceCount);
+        sizes[0] = sourceCount;
+        int pending = sourceCount;
+
+        long settled = 0;
+        int t = 0;
+        while (pending > 0) {
+            int b = t & MASK;
+            if (sizes[b] == 0) {
+                t++;
+                continue;
+            }
+            int idx = buckets[b][--sizes[b]];
+            pending--;
+            if (fireTime.get(idx) != t) {
+                // Entrée périmée : la case a été atteinte plus tôt depuis
+                continue;
+            }
+            if (monitor != null && (settled & (SolveMonitor.INTERVAL - 1)) == 0) {
+                monitor.checkpoint(SolveMonitor.Stage.FIRE, settled, buckets[b], 0, sizes[b]);
+            }
+            settled++;
+
+            for (int k = 0; k < 4; k++) {
+                int n = idx + offsets[k];
+                byte cell = cells[n];
+                // La bordure de murs évite tout test de bornes
+                if (cell == Grid.WALL) {
+                    continue;
+                }
+                int nt = t + Grid.spreadCost(cell);
+                if (fireTime.lower(n, nt)) {
+                    int nb = nt & MASK;
+                    if (sizes[nb] == buckets[nb].length) {
+                        buckets[nb] = Arrays.copyOf(buckets[nb], Math.max(64, sizes[nb] << 1));
+                    }
+                    buckets[nb][sizes[nb]++] = n;
+                    pending++;
+                }
+            }
+        }
+        if (stats != null) {
+            stats.fireCellsVisited = settled;
+        }
+    }
+}